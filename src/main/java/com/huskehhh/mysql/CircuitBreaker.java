@@ -0,0 +1,95 @@
+package com.huskehhh.mysql;
+
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+/**
+ * Stops callers from waiting on a database which can't be reached.<br>
+ *
+ * After enough consecutive connection failures the breaker opens and
+ * requests fail straight away. Once the open period has passed a single
+ * request is let through as a trial, closing the breaker if it connects.
+ */
+public class CircuitBreaker {
+
+	private enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openMillis;
+
+	private State state = State.CLOSED;
+	private int failures;
+	private long openedAt;
+	private long trialStartedAt;
+
+	/**
+	 * @param failureThreshold
+	 *            Consecutive connection failures before the breaker opens
+	 * @param openMillis
+	 *            Milliseconds to fail requests for before trying the database again
+	 */
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		this.failureThreshold = Math.max(1, failureThreshold);
+		this.openMillis = Math.max(0, openMillis);
+	}
+
+	/**
+	 * Checks whether a request may go to the database
+	 *
+	 * @return true if the breaker is closed, or this request is the trial
+	 */
+	public synchronized boolean allowRequest() {
+		long now = System.currentTimeMillis();
+
+		switch (state) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				if (now - openedAt < openMillis) {
+					return false;
+				}
+				state = State.HALF_OPEN;
+				trialStartedAt = now;
+				return true;
+			default:
+				// a trial which never reported back is replaced by a new one
+				if (now - trialStartedAt < openMillis) {
+					return false;
+				}
+				trialStartedAt = now;
+				return true;
+		}
+	}
+
+	public synchronized void recordSuccess() {
+		if (state != State.CLOSED) {
+			Utils.log("[SQL] Database connection restored.");
+		}
+		state = State.CLOSED;
+		failures = 0;
+	}
+
+	public synchronized void recordFailure() {
+		failures++;
+
+		if (state == State.HALF_OPEN || failures >= failureThreshold) {
+			if (state == State.CLOSED) {
+				Utils.log("[SQL] Unable to reach the database, changes will be saved locally until it returns.", 2);
+			}
+			state = State.OPEN;
+			openedAt = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * @return true if requests are currently being refused
+	 */
+	public synchronized boolean isOpen() {
+		return state != State.CLOSED;
+	}
+
+	public synchronized int getFailures() {
+		return failures;
+	}
+}
@@ -0,0 +1,22 @@
+package com.huskehhh.mysql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Work to be done with a database connection, see {@link Database#write(ConnectionCallback)}
+ *
+ * @param <T>
+ *            Type of the result
+ */
+public interface ConnectionCallback<T> {
+
+	/**
+	 * @param connection
+	 *            Connection to use, it is returned to the pool afterwards
+	 * @return Result of the work
+	 * @throws SQLException
+	 *             if the work failed
+	 */
+	T doInConnection(Connection connection) throws SQLException;
+}
@@ -0,0 +1,409 @@
+package com.huskehhh.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+/**
+ * Bounded pool of long-lived connections for a {@link Database}.<br>
+ *
+ * Connections are borrowed with {@link #borrow()} and handed back by closing
+ * the returned handle, so callers can use try-with-resources.
+ * Idle connections are validated before being lent out, evicted once they
+ * have been idle for too long, and any connection held past the leak
+ * threshold is reported along with the code that borrowed it.
+ * Each connection keeps its prepared statements in a {@link StatementCache}.
+ */
+public class ConnectionPool {
+
+	private static final long VALIDATION_BYPASS_MILLIS = 500;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 3;
+
+	private final Database database;
+	private final int maxSize;
+	private final long connectionTimeout;
+	private final long idleTimeout;
+	private final long leakThreshold;
+	private final int statementCacheSize;
+
+	private final AtomicLong statementsPrepared = new AtomicLong();
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementsExecuted = new AtomicLong();
+
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private final Set<PooledConnection> borrowed = new HashSet<>();
+	private final ScheduledExecutorService housekeeper;
+
+	private int total;
+	private boolean shutdown;
+
+	/**
+	 * Creates a new pool for the given database
+	 *
+	 * @param database
+	 *            Database used to open new physical connections
+	 * @param maxSize
+	 *            Maximum amount of open connections
+	 * @param connectionTimeout
+	 *            Milliseconds to wait for a free connection
+	 * @param idleTimeout
+	 *            Milliseconds a connection may stay idle before being closed
+	 * @param leakThreshold
+	 *            Milliseconds a connection may be borrowed before being reported, 0 to disable
+	 * @param statementCacheSize
+	 *            Maximum amount of prepared statements cached per connection, 0 to disable
+	 */
+	public ConnectionPool(Database database, int maxSize, long connectionTimeout, long idleTimeout, long leakThreshold, int statementCacheSize) {
+		this.database = database;
+		this.maxSize = Math.max(1, maxSize);
+		this.connectionTimeout = connectionTimeout;
+		this.idleTimeout = idleTimeout;
+		this.leakThreshold = leakThreshold;
+		this.statementCacheSize = Math.max(0, statementCacheSize);
+
+		housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Parkour-Pool-Housekeeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		housekeeper.scheduleWithFixedDelay(this::housekeep, 10, 10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Borrows a connection from the pool<br>
+	 *
+	 * An idle connection will be reused if it is still valid, otherwise a new
+	 * one is opened while the pool is below its maximum size. If the pool is
+	 * exhausted the caller waits up to the connection timeout.
+	 *
+	 * @return Connection handle, close it to return it to the pool
+	 * @throws SQLException
+	 *             if no connection could be provided in time
+	 */
+	public Connection borrow() throws SQLException {
+		long deadline = System.currentTimeMillis() + connectionTimeout;
+
+		while (true) {
+			PooledConnection pooled = null;
+			boolean reserved = false;
+
+			synchronized (this) {
+				while (!shutdown && idle.isEmpty() && total >= maxSize) {
+					long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0) {
+						throw new SQLException("Timed out waiting for a connection, pool size: " + maxSize);
+					}
+					try {
+						wait(remaining);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SQLException("Interrupted waiting for a connection", e);
+					}
+				}
+
+				if (shutdown) {
+					throw new SQLException("Connection pool has been shut down");
+				}
+
+				if (!idle.isEmpty()) {
+					pooled = idle.pollFirst();
+				} else {
+					total++;
+					reserved = true;
+				}
+			}
+
+			if (reserved) {
+				pooled = create();
+			} else if (!isValid(pooled)) {
+				synchronized (this) {
+					total--;
+				}
+				closeQuietly(pooled.physical);
+				continue;
+			}
+
+			synchronized (this) {
+				pooled.borrowedAt = System.currentTimeMillis();
+				pooled.borrowSite = leakThreshold > 0 ? new Exception("Connection borrowed here") : null;
+				pooled.leakReported = false;
+				borrowed.add(pooled);
+			}
+			return pooled.createHandle();
+		}
+	}
+
+	/**
+	 * Shuts the pool down<br>
+	 *
+	 * Waiting callers are released and every connection, idle or borrowed, is closed.
+	 */
+	public void shutdown() {
+		List<PooledConnection> toClose;
+
+		synchronized (this) {
+			if (shutdown) {
+				return;
+			}
+			shutdown = true;
+			toClose = new ArrayList<>(idle);
+			toClose.addAll(borrowed);
+			idle.clear();
+			borrowed.clear();
+			total = 0;
+			notifyAll();
+		}
+
+		housekeeper.shutdownNow();
+		for (PooledConnection pooled : toClose) {
+			closeQuietly(pooled.physical);
+		}
+	}
+
+	public synchronized int getTotalConnections() {
+		return total;
+	}
+
+	public synchronized int getIdleConnections() {
+		return idle.size();
+	}
+
+	public synchronized int getActiveConnections() {
+		return borrowed.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return Amount of statements prepared by the database, cache misses included
+	 */
+	public long getStatementsPrepared() {
+		return statementsPrepared.get();
+	}
+
+	/**
+	 * @return Amount of statements reused from a connection's cache
+	 */
+	public long getStatementCacheHits() {
+		return statementCacheHits.get();
+	}
+
+	/**
+	 * @return Amount of prepared statement executions
+	 */
+	public long getStatementsExecuted() {
+		return statementsExecuted.get();
+	}
+
+	void recordPrepare() {
+		statementsPrepared.incrementAndGet();
+	}
+
+	void recordCacheHit() {
+		statementCacheHits.incrementAndGet();
+	}
+
+	void recordExecution() {
+		statementsExecuted.incrementAndGet();
+	}
+
+	private PooledConnection create() throws SQLException {
+		try {
+			Connection physical = database.openConnection();
+			if (physical == null) {
+				throw new SQLException("Database returned no connection");
+			}
+			return new PooledConnection(physical);
+
+		} catch (SQLException | ClassNotFoundException | RuntimeException e) {
+			synchronized (this) {
+				total--;
+				notifyAll();
+			}
+			if (e instanceof SQLException) {
+				throw (SQLException) e;
+			}
+			throw new SQLException("Unable to open connection: " + e.getMessage(), e);
+		}
+	}
+
+	private boolean isValid(PooledConnection pooled) {
+		if (System.currentTimeMillis() - pooled.lastUsed < VALIDATION_BYPASS_MILLIS) {
+			return true;
+		}
+		try {
+			return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void release(PooledConnection pooled) {
+		pooled.statements.closeOpenStatements();
+
+		boolean reusable;
+		try {
+			if (!pooled.physical.getAutoCommit()) {
+				pooled.physical.rollback();
+				pooled.physical.setAutoCommit(true);
+			}
+			reusable = !pooled.physical.isClosed();
+		} catch (SQLException e) {
+			reusable = false;
+		}
+
+		synchronized (this) {
+			if (!borrowed.remove(pooled)) {
+				return;
+			}
+			pooled.lastUsed = System.currentTimeMillis();
+			pooled.borrowSite = null;
+
+			if (reusable && !shutdown) {
+				idle.addFirst(pooled);
+			} else {
+				total--;
+			}
+			notifyAll();
+		}
+
+		if (!reusable) {
+			closeQuietly(pooled.physical);
+		}
+	}
+
+	private void housekeep() {
+		List<PooledConnection> evicted = new ArrayList<>();
+		long now = System.currentTimeMillis();
+
+		synchronized (this) {
+			Iterator<PooledConnection> iterator = idle.iterator();
+			while (iterator.hasNext()) {
+				PooledConnection pooled = iterator.next();
+				if (now - pooled.lastUsed >= idleTimeout) {
+					iterator.remove();
+					evicted.add(pooled);
+					total--;
+				}
+			}
+
+			if (leakThreshold > 0) {
+				for (PooledConnection pooled : borrowed) {
+					if (!pooled.leakReported && now - pooled.borrowedAt >= leakThreshold) {
+						pooled.leakReported = true;
+						Utils.log("[SQL] Possible connection leak, connection held for " + (now - pooled.borrowedAt) + "ms", 1);
+						if (pooled.borrowSite != null) {
+							pooled.borrowSite.printStackTrace();
+						}
+					}
+				}
+			}
+		}
+
+		for (PooledConnection pooled : evicted) {
+			closeQuietly(pooled.physical);
+		}
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException ignored) {
+		}
+	}
+
+	/**
+	 * A physical connection owned by the pool.
+	 * Each borrow hands out a new handle so a stale handle can't return the connection twice.
+	 */
+	private class PooledConnection {
+
+		private final Connection physical;
+		private final StatementCache statements;
+		private long lastUsed = System.currentTimeMillis();
+		private long borrowedAt;
+		private Exception borrowSite;
+		private boolean leakReported;
+
+		private PooledConnection(Connection physical) {
+			this.physical = physical;
+			this.statements = new StatementCache(ConnectionPool.this, physical, statementCacheSize);
+		}
+
+		private Connection createHandle() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new Handle(this));
+		}
+	}
+
+	/**
+	 * Only {@link Connection#prepareStatement(String)} and {@link Connection#prepareStatement(String, int)} are cached
+	 */
+	private static boolean isCacheable(Method method) {
+		Class<?>[] parameters = method.getParameterTypes();
+		return parameters.length == 1 || (parameters.length == 2 && parameters[1] == int.class);
+	}
+
+	private class Handle implements InvocationHandler {
+
+		private final PooledConnection pooled;
+		private boolean closed;
+
+		private Handle(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!closed) {
+						closed = true;
+						release(pooled);
+					}
+					return null;
+				case "isClosed":
+					return closed || pooled.physical.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled" + pooled.physical;
+				default:
+					if (closed) {
+						throw new SQLException("Connection has already been returned to the pool");
+					}
+			}
+
+			if (method.getName().equals("prepareStatement") && isCacheable(method)) {
+				Integer autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : null;
+				return pooled.statements.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+			}
+
+			try {
+				return method.invoke(pooled.physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
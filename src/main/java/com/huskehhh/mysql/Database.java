@@ -1,12 +1,12 @@
 package com.huskehhh.mysql;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
 import java.sql.Statement;
 
-import me.A5H73Y.Parkour.Utilities.Utils;
-
 /**
  * Abstract Database class, serves as a base for any connection method (MySQL,
  * SQLite, etc.)
@@ -16,18 +16,35 @@ import me.A5H73Y.Parkour.Utilities.Utils;
  */
 public abstract class Database {
 
-	protected Connection connection;
+	protected ConnectionPool pool;
+	protected CircuitBreaker circuitBreaker = new CircuitBreaker(3, 30000);
 
 	/**
 	 * Creates a new Database
 	 *
 	 */
 	protected Database() {
-		this.connection = null;
+		this.pool = null;
 	}
 
 	/**
-	 * Opens a connection with the database
+	 * Checks whether the exception means the database couldn't be reached,
+	 * rather than a problem with the statement
+	 *
+	 * @param e
+	 *            Exception thrown by the driver or pool
+	 * @return true for connection failures
+	 */
+	public static boolean isConnectionFailure(SQLException e) {
+		return e instanceof SQLTransientConnectionException
+				|| e instanceof SQLNonTransientConnectionException
+				|| e instanceof SQLRecoverableException
+				|| (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+	}
+
+	/**
+	 * Opens a new physical connection with the database<br>
+	 * Used by the {@link ConnectionPool}, callers should use {@link #getConnection()}
 	 * 
 	 * @return Opened connection
 	 * @throws SQLException
@@ -38,95 +55,162 @@ public abstract class Database {
 	public abstract Connection openConnection() throws SQLException, ClassNotFoundException;
 
 	/**
-	 * Checks if a connection is open with the database
-	 * 
-	 * @return true if the connection is open
+	 * Creates the connection pool and opens the first connection,
+	 * so an unreachable database is detected straight away
+	 *
+	 * @param maxSize
+	 *            Maximum amount of open connections
+	 * @param connectionTimeout
+	 *            Milliseconds to wait for a free connection
+	 * @param idleTimeout
+	 *            Milliseconds a connection may stay idle before being closed
+	 * @param leakThreshold
+	 *            Milliseconds a connection may be borrowed before being reported, 0 to disable
+	 * @param statementCacheSize
+	 *            Maximum amount of prepared statements cached per connection, 0 to disable
 	 * @throws SQLException
-	 *             if the connection cannot be checked
+	 *             if the first connection can not be opened
 	 */
-    protected boolean checkConnection() {
-		try {
-			return connection != null && !connection.isClosed();
+	public void initialisePool(int maxSize, long connectionTimeout, long idleTimeout, long leakThreshold, int statementCacheSize) throws SQLException {
+		shutdown();
+		pool = new ConnectionPool(this, maxSize, connectionTimeout, idleTimeout, leakThreshold, statementCacheSize);
+
+		try (Connection connection = pool.borrow()) {
+			connection.getMetaData();
 		} catch (SQLException e) {
-			e.printStackTrace();
+			shutdown();
+			throw e;
 		}
-		return false;
 	}
 
 	/**
-	 * Gets the connection with the database
+	 * Borrows a connection from the pool<br>
+	 * Closing the connection returns it to the pool, use try-with-resources
 	 * 
-	 * @return Connection with the database, null if none
+	 * @return Connection with the database
+	 * @throws SQLException
+	 *             if the pool has not been initialised or is exhausted,
+	 *             or the database is unavailable
 	 */
-	public Connection getConnection() {
+	public Connection getConnection() throws SQLException {
+		if (pool == null) {
+			throw new SQLException("Connection pool has not been initialised");
+		}
+		if (!circuitBreaker.allowRequest()) {
+			throw new SQLTransientConnectionException("Database is unavailable", "08001");
+		}
+
+		Connection connection;
+		try {
+			connection = pool.borrow();
+		} catch (SQLException e) {
+			if (isConnectionFailure(e)) {
+				circuitBreaker.recordFailure();
+			}
+			throw e;
+		}
+		circuitBreaker.recordSuccess();
 		return connection;
 	}
 
 	/**
-	 * Closes the connection with the database
-	 * 
-	 * @return true if successful
+	 * Borrows a connection for queries which don't change the database<br>
+	 * Engines may serve these from separate connections, by default the same pool is used
+	 *
+	 * @return Connection with the database
 	 * @throws SQLException
-	 *             if the connection cannot be closed
+	 *             if the pool has not been initialised or is exhausted
 	 */
-	public boolean closeConnection() {
-		if (connection == null) {
-			return false;
-		}
-		try {
-			connection.close();
-		} catch (SQLException e) {
-			Utils.log("SQL Error: " + e.getMessage(), 2);
-		}
-		return true;
+	public Connection getReadConnection() throws SQLException {
+		return getConnection();
 	}
 
+	/**
+	 * Borrows a connection for queries which must see the changes written since the given time<br>
+	 * Engines which read from a replica use the primary if the replica may not have them yet
+	 *
+	 * @param writtenSince
+	 *            Epoch milliseconds of the latest change the query must see
+	 * @return Connection with the database
+	 * @throws SQLException
+	 *             if the pool has not been initialised or is exhausted
+	 */
+	public Connection getReadConnection(long writtenSince) throws SQLException {
+		return getReadConnection();
+	}
 
 	/**
-	 * Executes a SQL Query<br>
-	 * 
-	 * If the connection is closed, it will be opened
-	 * 
-	 * @param query
-	 *            Query to be run
-	 * @return the results of the query
+	 * Runs work which changes the database<br>
+	 * By default the work is run on the calling thread with a pooled connection,
+	 * engines which only allow one writer may run it elsewhere. The caller waits for the result either way.
+	 *
+	 * @param callback
+	 *            Work to run
+	 * @return Result of the work
 	 * @throws SQLException
-	 *             If the query cannot be executed
-	 * @throws ClassNotFoundException
-	 *             If the driver cannot be found; see {@link #openConnection()}
+	 *             if the work failed
 	 */
-	public ResultSet querySQL(String query) throws SQLException,
-	ClassNotFoundException {
-		if (!checkConnection()) {
-			openConnection();
+	public <T> T write(ConnectionCallback<T> callback) throws SQLException {
+		try (Connection connection = getConnection()) {
+			try {
+				return callback.doInConnection(connection);
+			} catch (SQLException e) {
+				if (isConnectionFailure(e)) {
+					circuitBreaker.recordFailure();
+				}
+				throw e;
+			}
 		}
+	}
 
-		Statement statement = connection.createStatement();
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
 
-		return statement.executeQuery(query);
+	/**
+	 * Replaces the circuit breaker guarding {@link #getConnection()}
+	 *
+	 * @param circuitBreaker
+	 *            Breaker to use
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Gets the connection pool
+	 *
+	 * @return ConnectionPool, null if not initialised
+	 */
+	public ConnectionPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Shuts down the connection pool, closing all connections
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
 	}
 
 	/**
 	 * Executes an Update SQL Query<br>
-	 * See {@link java.sql.Statement#executeUpdate(String)}<br>
-	 * If the connection is closed, it will be opened
+	 * See {@link java.sql.Statement#executeUpdate(String)}
 	 * 
 	 * @param query
 	 *            Query to be run
 	 * @return Result Code, see {@link java.sql.Statement#executeUpdate(String)}
 	 * @throws SQLException
 	 *             If the query cannot be executed
-	 * @throws ClassNotFoundException
-	 *             If the driver cannot be found; see {@link #openConnection()}
 	 */
-	public int updateSQL(String query) throws SQLException,
-	ClassNotFoundException {
-		if (!checkConnection()) {
-			openConnection();
-		}
-
-		Statement statement = connection.createStatement();
-
-		return statement.executeUpdate(query);
+	public int updateSQL(final String query) throws SQLException {
+		return write(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				return statement.executeUpdate(query);
+			}
+		});
 	}
-}
\ No newline at end of file
+}
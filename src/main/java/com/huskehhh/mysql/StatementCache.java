@@ -0,0 +1,231 @@
+package com.huskehhh.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prepared statements of a single pooled connection, keyed by their SQL text.<br>
+ *
+ * Closing a statement handed out by the cache keeps the underlying statement
+ * prepared for the next caller, after closing any result sets it produced
+ * and clearing its parameters. The least recently used statements are closed
+ * once the cache is full.
+ */
+class StatementCache {
+
+	private final ConnectionPool pool;
+	private final Connection physical;
+	private final int maxSize;
+
+	private final Map<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+	private final Set<Handle> open = new HashSet<>();
+
+	/**
+	 * @param pool
+	 *            Pool recording the statement statistics
+	 * @param physical
+	 *            Connection the statements are prepared on
+	 * @param maxSize
+	 *            Maximum amount of cached statements, 0 to disable caching
+	 */
+	StatementCache(ConnectionPool pool, Connection physical, int maxSize) {
+		this.pool = pool;
+		this.physical = physical;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Gets a prepared statement for the SQL, reusing the cached one if it is free
+	 *
+	 * @param owner
+	 *            Connection handle returned by {@link PreparedStatement#getConnection()}
+	 * @param sql
+	 *            SQL text of the statement
+	 * @param autoGeneratedKeys
+	 *            See {@link Connection#prepareStatement(String, int)}, null if not specified
+	 * @return Statement handle, close it to return it to the cache
+	 * @throws SQLException
+	 *             if the statement can not be prepared
+	 */
+	synchronized PreparedStatement prepare(Connection owner, String sql, Integer autoGeneratedKeys) throws SQLException {
+		String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys + ":" + sql;
+		CachedStatement cached = statements.get(key);
+
+		if (cached != null && !cached.inUse) {
+			pool.recordCacheHit();
+			return checkout(cached, owner);
+		}
+
+		PreparedStatement statement = autoGeneratedKeys == null
+				? physical.prepareStatement(sql)
+				: physical.prepareStatement(sql, autoGeneratedKeys);
+		pool.recordPrepare();
+
+		// the cached statement is already in use, so this one is only used once
+		if (cached != null || maxSize <= 0) {
+			return checkout(new CachedStatement(statement, false), owner);
+		}
+
+		cached = new CachedStatement(statement, true);
+		statements.put(key, cached);
+		evict();
+		return checkout(cached, owner);
+	}
+
+	/**
+	 * Closes every statement still open, when the connection is returned to the pool
+	 */
+	synchronized void closeOpenStatements() {
+		for (Handle handle : new ArrayList<>(open)) {
+			handle.close();
+		}
+	}
+
+	synchronized int size() {
+		return statements.size();
+	}
+
+	private PreparedStatement checkout(CachedStatement cached, Connection owner) {
+		cached.inUse = true;
+		Handle handle = new Handle(cached, owner);
+		open.add(handle);
+
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, handle);
+	}
+
+	private void evict() {
+		Iterator<CachedStatement> iterator = statements.values().iterator();
+
+		while (statements.size() > maxSize && iterator.hasNext()) {
+			CachedStatement eldest = iterator.next();
+			iterator.remove();
+			eldest.cached = false;
+
+			if (!eldest.inUse) {
+				closeQuietly(eldest.statement);
+			}
+		}
+	}
+
+	private synchronized void release(Handle handle) {
+		open.remove(handle);
+		CachedStatement cached = handle.cached;
+
+		handle.closeResults();
+
+		if (cached.cached) {
+			try {
+				cached.statement.clearParameters();
+				cached.statement.clearBatch();
+				cached.inUse = false;
+				return;
+			} catch (SQLException e) {
+				statements.values().remove(cached);
+			}
+		}
+		closeQuietly(cached.statement);
+	}
+
+	private static void closeQuietly(AutoCloseable closeable) {
+		try {
+			closeable.close();
+		} catch (Exception ignored) {
+		}
+	}
+
+	private static class CachedStatement {
+
+		private final PreparedStatement statement;
+		private boolean cached;
+		private boolean inUse;
+
+		private CachedStatement(PreparedStatement statement, boolean cached) {
+			this.statement = statement;
+			this.cached = cached;
+		}
+	}
+
+	private class Handle implements InvocationHandler {
+
+		private final CachedStatement cached;
+		private final Connection owner;
+		private final List<ResultSet> results = new ArrayList<>();
+		private boolean closed;
+
+		private Handle(CachedStatement cached, Connection owner) {
+			this.cached = cached;
+			this.owner = owner;
+		}
+
+		private void closeResults() {
+			for (ResultSet resultSet : results) {
+				closeQuietly(resultSet);
+			}
+			results.clear();
+		}
+
+		private void close() {
+			if (!closed) {
+				closed = true;
+				release(this);
+			}
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+
+			switch (name) {
+				case "close":
+					close();
+					return null;
+				case "isClosed":
+					return closed || cached.statement.isClosed();
+				case "getConnection":
+					return owner;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Cached" + cached.statement;
+				default:
+					if (closed) {
+						throw new SQLException("Statement has already been closed");
+					}
+			}
+
+			if (name.startsWith("execute")) {
+				// executing again closes the results of the previous execution
+				closeResults();
+				pool.recordExecution();
+			}
+
+			Object result;
+			try {
+				result = method.invoke(cached.statement, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+
+			if (result instanceof ResultSet) {
+				results.add((ResultSet) result);
+			}
+			return result;
+		}
+	}
+}
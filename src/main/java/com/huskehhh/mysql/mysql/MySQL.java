@@ -2,12 +2,24 @@ package com.huskehhh.mysql.mysql;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import com.huskehhh.mysql.ConnectionPool;
 import com.huskehhh.mysql.Database;
+import me.A5H73Y.Parkour.Utilities.Utils;
 
 /**
- * Connects to and uses a MySQL database
+ * Connects to and uses a MySQL database<br>
+ *
+ * Queries can be served by an optional read replica, while every change is
+ * written to the primary. The replica's lag is checked periodically on its
+ * own thread, and reads which must see a recent change fall back to the
+ * primary until the replica has caught up with it.
  * 
  * @author -_Husky_-
  * @author tips48
@@ -19,6 +31,16 @@ public class MySQL extends Database {
 	private final String port;
 	private final String hostname;
 
+	private Database replica;
+	private long maxReplicaLag;
+	private long lagCheckInterval;
+	private boolean standIn;
+
+	private volatile ConnectionPool replicaPool;
+	private volatile ScheduledExecutorService lagChecker;
+	/** Changes written before this time are known to be on the replica */
+	private volatile long replicaCurrentTo = Long.MIN_VALUE;
+
 	/**
 	 * Creates a new MySQL instance
 	 *
@@ -60,22 +82,157 @@ public class MySQL extends Database {
 	}
 
 	@Override
-	public Connection openConnection() throws SQLException, ClassNotFoundException{
-		if (checkConnection()) {
-			return connection;
-		}
-
+	public Connection openConnection() throws SQLException, ClassNotFoundException {
 		String connectionURL = "jdbc:mysql://" + this.hostname + ":" + this.port;
 		if (database != null) {
 			connectionURL = connectionURL + "/" + this.database;
+		} else {
+			connectionURL = connectionURL + "/";
+		}
+
+		Class.forName("com.mysql.jdbc.Driver");
+		return DriverManager.getConnection(connectionURL, this.user, this.password);
+	}
+
+	/**
+	 * Serve queries from a read replica, set before the pool is initialised<br>
+	 * Any database with the same tables can stand in, such as a second local
+	 * MySQL instance or a copy of the data in SQLite
+	 *
+	 * @param replica
+	 *            Database to read from
+	 * @param maxLagMillis
+	 *            Milliseconds the replica may be behind before reads go to the primary
+	 * @param lagCheckMillis
+	 *            Milliseconds between checks of the replica's lag
+	 * @param standIn
+	 *            True if the replica isn't replicating and is always treated
+	 *            as up to date, otherwise it's only used while replicating
+	 */
+	public void setReplica(Database replica, long maxLagMillis, long lagCheckMillis, boolean standIn) {
+		this.replica = replica;
+		this.maxReplicaLag = Math.max(0, maxLagMillis);
+		this.lagCheckInterval = Math.max(1000, lagCheckMillis);
+		this.standIn = standIn;
+	}
+
+	/**
+	 * Also creates the replica's pool, reads use the primary until the first
+	 * check of its lag and whenever it can't be reached
+	 */
+	@Override
+	public void initialisePool(int maxSize, long connectionTimeout, long idleTimeout, long leakThreshold, int statementCacheSize) throws SQLException {
+		super.initialisePool(maxSize, connectionTimeout, idleTimeout, leakThreshold, statementCacheSize);
+
+		if (replica == null) {
+			return;
+		}
+
+		final ConnectionPool replicas = new ConnectionPool(replica, maxSize, connectionTimeout, idleTimeout, leakThreshold, statementCacheSize);
+		replicaPool = replicas;
+		replicaCurrentTo = Long.MIN_VALUE;
+
+		lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Parkour-Replica-Lag");
+			thread.setDaemon(true);
+			return thread;
+		});
+		lagChecker.scheduleWithFixedDelay(() -> checkReplicaLag(replicas), 0, lagCheckInterval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Connection getReadConnection() throws SQLException {
+		return getReadConnection(Long.MIN_VALUE);
+	}
+
+	@Override
+	public Connection getReadConnection(long writtenSince) throws SQLException {
+		ConnectionPool replicas = replicaPool;
+		if (replicas == null) {
+			return getConnection();
+		}
+
+		if (writtenSince >= replicaCurrentTo) {
+			return getConnection();
 		}
 
 		try {
-			Class.forName("com.mysql.jdbc.Driver");
-			connection = DriverManager.getConnection(connectionURL, this.user, this.password);
-		} catch (ClassNotFoundException | SQLException e) {
-			e.printStackTrace();
+			return replicas.borrow();
+		} catch (SQLException e) {
+			Utils.log("[SQL] Unable to read from the replica, using the primary: " + e.getMessage(), 1);
+			replicaCurrentTo = Long.MIN_VALUE;
+			return getConnection();
+		}
+	}
+
+	/**
+	 * Measures how far behind the replica is, run by the lag checker once per check interval
+	 */
+	private void checkReplicaLag(ConnectionPool replicas) {
+		long now = System.currentTimeMillis();
+		long lag;
+		try (Connection connection = replicas.borrow()) {
+			lag = measureLag(connection);
+		} catch (SQLException | RuntimeException e) {
+			lag = -1;
+		}
+
+		boolean usable = lag >= 0 && lag <= maxReplicaLag;
+		if (usable != (replicaCurrentTo != Long.MIN_VALUE)) {
+			Utils.log(usable ? "[SQL] Reading from the replica." : "[SQL] Replica is unavailable or too far behind, reading from the primary.", usable ? 0 : 1);
+		}
+		// the lag is reported in whole seconds, so allow for one more
+		replicaCurrentTo = usable ? now - lag - 1000 : Long.MIN_VALUE;
+	}
+
+	/**
+	 * @return milliseconds the replica is behind the primary, -1 if it isn't replicating
+	 */
+	private long measureLag(Connection connection) throws SQLException {
+		// a stand-in which isn't replicating is treated as up to date, once it has been reached
+		if (standIn) {
+			return 0;
+		}
+		if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+			return -1;
+		}
+
+		try (Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS;")) {
+			if (!rs.next()) {
+				return -1;
+			}
+			long seconds = rs.getLong("Seconds_Behind_Master");
+			return rs.wasNull() ? -1 : seconds * 1000;
+		}
+	}
+
+	/**
+	 * @return true if reads are currently being served by the replica
+	 */
+	public boolean isReadingFromReplica() {
+		return replicaPool != null && replicaCurrentTo != Long.MIN_VALUE;
+	}
+
+	/**
+	 * Gets the replica's connection pool
+	 *
+	 * @return ConnectionPool, null if there is no replica
+	 */
+	public ConnectionPool getReplicaPool() {
+		return replicaPool;
+	}
+
+	@Override
+	public void shutdown() {
+		if (lagChecker != null) {
+			lagChecker.shutdownNow();
+			lagChecker = null;
+		}
+		if (replicaPool != null) {
+			replicaPool.shutdown();
+			replicaPool = null;
 		}
-        return connection;
+		super.shutdown();
 	}
 }
@@ -5,19 +5,35 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import com.huskehhh.mysql.ConnectionCallback;
+import com.huskehhh.mysql.ConnectionPool;
 import com.huskehhh.mysql.Database;
 import me.A5H73Y.Parkour.Parkour;
 import me.A5H73Y.Parkour.Utilities.Utils;
 
 /**
- * Connects to and uses a SQLite database
+ * Connects to and uses a SQLite database<br>
+ *
+ * In WAL mode every change is made by a single writer thread which owns the
+ * only writable connection, while queries are served concurrently from a
+ * separate pool of read-only connections.
  *
  * @author tips48
  */
 public class SQLite extends Database {
 	private final String dbLocation;
 
+	private volatile ConnectionPool readPool;
+	private volatile ExecutorService writer;
+	private volatile Thread writerThread;
+
 	/**
 	 * Creates a new SQLite instance
 	 *
@@ -28,11 +44,7 @@ public class SQLite extends Database {
 	}
 
 	@Override
-	public Connection openConnection() {
-		if (checkConnection()) {
-			return connection;
-		}
-
+	public Connection openConnection() throws SQLException, ClassNotFoundException {
         String pathOverride = Parkour.getPlugin().getConfig().getString("SQLite.PathOverride");
         String path = pathOverride.isEmpty() ? "plugins/Parkour/sqlite-db" : pathOverride;
 
@@ -50,12 +62,149 @@ public class SQLite extends Database {
             }
         }
 
-        try {
-            Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dataFolder + "/" + dbLocation);
-        } catch (SQLException | ClassNotFoundException ex) {
-            Utils.log("Error occurred: " + ex.getMessage(), 2);
+        Class.forName("org.sqlite.JDBC");
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dataFolder + "/" + dbLocation);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout = 5000;");
+
+            if (isWriteAheadLogging()) {
+                statement.execute("PRAGMA journal_mode = WAL;");
+                statement.execute("PRAGMA synchronous = " + getSynchronous() + ";");
+            }
+            // a negative cache size is measured in KiB rather than pages
+            statement.execute("PRAGMA cache_size = -" + Math.max(0, Parkour.getPlugin().getConfig().getInt("SQLite.CacheSizeKB")) + ";");
+
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
         }
         return connection;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Opens a connection which can only be used for queries
+	 *
+	 * @return Opened connection
+	 * @throws SQLException
+	 *             if the connection can not be opened
+	 * @throws ClassNotFoundException
+	 *             if the driver cannot be found
+	 */
+	private Connection openReadConnection() throws SQLException, ClassNotFoundException {
+		Connection connection = openConnection();
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA query_only = 1;");
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		return connection;
+	}
+
+	@Override
+	public void initialisePool(int maxSize, long connectionTimeout, long idleTimeout, long leakThreshold, int statementCacheSize) throws SQLException {
+		// only one connection may write at a time
+		super.initialisePool(1, connectionTimeout, idleTimeout, leakThreshold, statementCacheSize);
+
+		if (!isWriteAheadLogging()) {
+			return;
+		}
+
+		writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Parkour-SQLite-Writer");
+			thread.setDaemon(true);
+			writerThread = thread;
+			return thread;
+		});
+
+		int readConnections = Math.max(1, Parkour.getPlugin().getConfig().getInt("SQLite.ReadConnections"));
+		readPool = new ConnectionPool(new Database() {
+			@Override
+			public Connection openConnection() throws SQLException, ClassNotFoundException {
+				return openReadConnection();
+			}
+		}, readConnections, connectionTimeout, idleTimeout, leakThreshold, statementCacheSize);
+	}
+
+	@Override
+	public Connection getReadConnection() throws SQLException {
+		return readPool != null ? readPool.borrow() : getConnection();
+	}
+
+	@Override
+	public <T> T write(final ConnectionCallback<T> callback) throws SQLException {
+		if (writer == null || Thread.currentThread() == writerThread) {
+			return super.write(callback);
+		}
+
+		Future<T> result;
+		try {
+			result = writer.submit(() -> SQLite.super.write(callback));
+		} catch (RuntimeException e) {
+			throw new SQLException("Unable to queue database change: " + e.getMessage(), e);
+		}
+
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted waiting for database change", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException) e.getCause();
+			}
+			throw new SQLException("Database change failed: " + e.getCause(), e.getCause());
+		}
+	}
+
+	/**
+	 * Lets the writer finish any queued changes before closing every connection
+	 */
+	@Override
+	public void shutdown() {
+		if (writer != null) {
+			writer.shutdown();
+			try {
+				if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+					Utils.log("[SQL] Timed out waiting for database changes to be written.", 2);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			writer = null;
+			writerThread = null;
+		}
+
+		if (readPool != null) {
+			readPool.shutdown();
+			readPool = null;
+		}
+		super.shutdown();
+	}
+
+	public ConnectionPool getReadPool() {
+		return readPool;
+	}
+
+	/**
+	 * NORMAL is safe from corruption in WAL mode, only the most recent changes can be lost on power failure
+	 */
+	private static String getSynchronous() {
+		String synchronous = Parkour.getPlugin().getConfig().getString("SQLite.Synchronous", "NORMAL").toUpperCase();
+		switch (synchronous) {
+			case "OFF":
+			case "NORMAL":
+			case "FULL":
+			case "EXTRA":
+				return synchronous;
+			default:
+				return "NORMAL";
+		}
+	}
+
+	private static boolean isWriteAheadLogging() {
+		return Parkour.getPlugin().getConfig().getBoolean("SQLite.WAL");
+	}
+}
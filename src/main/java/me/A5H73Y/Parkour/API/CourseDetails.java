@@ -0,0 +1,106 @@
+package me.A5H73Y.Parkour.API;
+
+/**
+ * A course's settings and stats at the time they were looked up.
+ */
+public class CourseDetails {
+
+    private final String name;
+    private final String creator;
+    private final String mode;
+    private final int checkpoints;
+    private final int minimumLevel;
+    private final int maximumDeaths;
+    private final boolean ready;
+    private final int views;
+    private final int completions;
+    private final double likePercent;
+    private final int rankedPlayers;
+
+    CourseDetails(String name, String creator, String mode, int checkpoints, int minimumLevel, int maximumDeaths,
+                  boolean ready, int views, int completions) {
+        this(name, creator, mode, checkpoints, minimumLevel, maximumDeaths, ready, views, completions, 0, 0);
+    }
+
+    private CourseDetails(String name, String creator, String mode, int checkpoints, int minimumLevel, int maximumDeaths,
+                          boolean ready, int views, int completions, double likePercent, int rankedPlayers) {
+        this.name = name;
+        this.creator = creator;
+        this.mode = mode;
+        this.checkpoints = checkpoints;
+        this.minimumLevel = minimumLevel;
+        this.maximumDeaths = maximumDeaths;
+        this.ready = ready;
+        this.views = views;
+        this.completions = completions;
+        this.likePercent = likePercent;
+        this.rankedPlayers = rankedPlayers;
+    }
+
+    /**
+     * @return a copy including the stats kept in storage
+     */
+    CourseDetails withStats(double likePercent, int rankedPlayers) {
+        return new CourseDetails(name, creator, mode, checkpoints, minimumLevel, maximumDeaths, ready, views, completions,
+                likePercent, rankedPlayers);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    /**
+     * @return the course's ParkourMode name, null if it has none
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    public int getCheckpoints() {
+        return checkpoints;
+    }
+
+    public int getMinimumLevel() {
+        return minimumLevel;
+    }
+
+    /**
+     * @return deaths allowed before the player fails the course, 0 if there is no limit
+     */
+    public int getMaximumDeaths() {
+        return maximumDeaths;
+    }
+
+    /**
+     * @return true if the course has been marked as finished and can be joined
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getViews() {
+        return views;
+    }
+
+    public int getCompletions() {
+        return completions;
+    }
+
+    /**
+     * @return percentage of votes which liked the course
+     */
+    public double getLikePercent() {
+        return likePercent;
+    }
+
+    /**
+     * @return amount of players who have a time on the course
+     */
+    public int getRankedPlayers() {
+        return rankedPlayers;
+    }
+}
@@ -0,0 +1,249 @@
+package me.A5H73Y.Parkour.API;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Course.CourseInfo;
+import me.A5H73Y.Parkour.Course.CourseMethods;
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
+import me.A5H73Y.Parkour.Other.TimeObject;
+import me.A5H73Y.Parkour.Player.PlayerInfo;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+
+/**
+ * Asynchronous access to Parkour's leaderboards, player stats and course details for other plugins.
+ * Nothing here blocks the calling thread, each result is completed on the executor passed in,
+ * use {@link #mainThread()} to have it completed on the server thread.
+ *
+ * Times are looked up through the plugin's storage on a small pool of API threads, answered from its caches where possible.
+ * Player and course details are read from the config files on the server thread, as Bukkit's configs aren't thread safe.
+ *
+ * Example: {@code ParkourAPI.getTopCourseResults("tutorial", 10, ParkourAPI.mainThread()).thenAccept(times -> ...);}
+ */
+public class ParkourAPI {
+
+    private static final Executor MAIN_THREAD = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            if (Bukkit.isPrimaryThread())
+                command.run();
+            else
+                Bukkit.getScheduler().runTask(Parkour.getPlugin(), command);
+        }
+    };
+
+    private static volatile ExecutorService executor;
+
+    /**
+     * Start the API threads, called when the plugin is enabled.
+     * @param threads
+     */
+    public static void start(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Parkour-API-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Stop the API threads, called when the plugin is disabled.
+     * Lookups which haven't started are abandoned.
+     */
+    public static void shutdown() {
+        ExecutorService stopping = executor;
+        executor = null;
+        if (stopping == null)
+            return;
+
+        stopping.shutdown();
+        try {
+            stopping.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return executor which runs tasks on the server thread
+     */
+    public static Executor mainThread() {
+        return MAIN_THREAD;
+    }
+
+    /**
+     * @param courseName
+     * @param limit amount of times, at most 20
+     * @param callbackExecutor where the result is completed
+     * @return the fastest times for the course
+     */
+    public static CompletableFuture<List<TimeObject>> getTopCourseResults(final String courseName, final int limit, Executor callbackExecutor) {
+        return fromStorage(new Supplier<List<TimeObject>>() {
+            @Override
+            public List<TimeObject> get() {
+                return Parkour.getStorage().getTopCourseResults(courseName.toLowerCase(), limit);
+            }
+        }, callbackExecutor);
+    }
+
+    /**
+     * @param courseName
+     * @param period
+     * @param limit amount of times, at most 20
+     * @param callbackExecutor where the result is completed
+     * @return the fastest players during the current period, one time per player
+     */
+    public static CompletableFuture<List<TimeObject>> getTopPeriodResults(final String courseName, final LeaderboardPeriod period, final int limit, Executor callbackExecutor) {
+        return fromStorage(new Supplier<List<TimeObject>>() {
+            @Override
+            public List<TimeObject> get() {
+                return Parkour.getStorage().getTopPeriodResults(courseName.toLowerCase(), period, limit);
+            }
+        }, callbackExecutor);
+    }
+
+    /**
+     * @param courseName
+     * @param playerName
+     * @param callbackExecutor where the result is completed
+     * @return the player's best time, null if they haven't completed the course
+     */
+    public static CompletableFuture<TimeObject> getPlayerBestTime(final String courseName, final String playerName, Executor callbackExecutor) {
+        return fromStorage(new Supplier<TimeObject>() {
+            @Override
+            public TimeObject get() {
+                return Parkour.getStorage().getPlayerBestTime(courseName.toLowerCase(), playerName);
+            }
+        }, callbackExecutor);
+    }
+
+    /**
+     * @param courseName
+     * @param playerName
+     * @param callbackExecutor where the result is completed
+     * @return the player's rank starting at 1, 0 if they haven't completed the course
+     */
+    public static CompletableFuture<Integer> getPlayerRank(final String courseName, final String playerName, Executor callbackExecutor) {
+        return fromStorage(new Supplier<Integer>() {
+            @Override
+            public Integer get() {
+                return Parkour.getStorage().getPlayerRank(courseName.toLowerCase(), playerName);
+            }
+        }, callbackExecutor);
+    }
+
+    /**
+     * @param player
+     * @param callbackExecutor where the result is completed
+     * @return the player's stats, null if they have never used Parkour
+     */
+    public static CompletableFuture<PlayerStats> getPlayerStats(final OfflinePlayer player, Executor callbackExecutor) {
+        return completeOn(fromConfig(new Supplier<PlayerStats>() {
+            @Override
+            public PlayerStats get() {
+                if (!PlayerInfo.hasPlayerInfo(player))
+                    return null;
+
+                return new PlayerStats(player.getName(), PlayerInfo.getParkourLevel(player), PlayerInfo.getParkoins(player),
+                        PlayerInfo.getRank(player), PlayerInfo.getLastPlayedCourse(player), PlayerInfo.getLastCompletedCourse(player));
+            }
+        }), callbackExecutor);
+    }
+
+    /**
+     * @param courseName
+     * @param callbackExecutor where the result is completed
+     * @return the course's details, null if the course doesn't exist
+     */
+    public static CompletableFuture<CourseDetails> getCourseDetails(String courseName, Executor callbackExecutor) {
+        final String name = courseName.toLowerCase();
+
+        CompletableFuture<CourseDetails> details = fromConfig(new Supplier<CourseDetails>() {
+            @Override
+            public CourseDetails get() {
+                if (!CourseMethods.exist(name))
+                    return null;
+
+                return new CourseDetails(name, CourseInfo.getCreator(name), CourseInfo.getMode(name), CourseInfo.getCheckpointAmount(name),
+                        CourseInfo.getMinimumLevel(name), CourseInfo.getMaximumDeaths(name), CourseInfo.getFinished(name),
+                        CourseInfo.getViews(name), CourseInfo.getCompletions(name));
+            }
+        });
+
+        CompletableFuture<CourseDetails> withVotes = details.thenCompose(found -> found == null
+                ? CompletableFuture.<CourseDetails>completedFuture(null)
+                : fromStorage(new Supplier<CourseDetails>() {
+                    @Override
+                    public CourseDetails get() {
+                        return found.withStats(Parkour.getStorage().getVotePercent(name), Parkour.getStorage().getRankedPlayerCount(name));
+                    }
+                }, null));
+
+        return completeOn(withVotes, callbackExecutor);
+    }
+
+    /**
+     * Run the lookup on an API thread.
+     * @param callbackExecutor where the result is completed, null to leave it on the API thread
+     */
+    private static <T> CompletableFuture<T> fromStorage(Supplier<T> lookup, Executor callbackExecutor) {
+        ExecutorService current = executor;
+        if (current == null) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Parkour is not enabled"));
+            return failed;
+        }
+
+        CompletableFuture<T> result = CompletableFuture.supplyAsync(lookup, current);
+        return callbackExecutor == null ? result : completeOn(result, callbackExecutor);
+    }
+
+    /**
+     * Run the lookup on the server thread, straight away if already on it.
+     */
+    private static <T> CompletableFuture<T> fromConfig(final Supplier<T> lookup) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        MAIN_THREAD.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.complete(lookup.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Complete a new future on the executor once the source has completed, successfully or not.
+     */
+    private static <T> CompletableFuture<T> completeOn(CompletableFuture<T> source, Executor callbackExecutor) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        source.whenCompleteAsync((value, error) -> {
+            if (error != null)
+                result.completeExceptionally(error);
+            else
+                result.complete(value);
+        }, callbackExecutor);
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package me.A5H73Y.Parkour.API;
+
+/**
+ * A player's Parkour stats at the time they were looked up.
+ */
+public class PlayerStats {
+
+    private final String playerName;
+    private final int parkourLevel;
+    private final int parkoins;
+    private final String rank;
+    private final String lastPlayedCourse;
+    private final String lastCompletedCourse;
+
+    PlayerStats(String playerName, int parkourLevel, int parkoins, String rank, String lastPlayedCourse, String lastCompletedCourse) {
+        this.playerName = playerName;
+        this.parkourLevel = parkourLevel;
+        this.parkoins = parkoins;
+        this.rank = rank;
+        this.lastPlayedCourse = lastPlayedCourse;
+        this.lastCompletedCourse = lastCompletedCourse;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public int getParkourLevel() {
+        return parkourLevel;
+    }
+
+    public int getParkoins() {
+        return parkoins;
+    }
+
+    /**
+     * @return the player's Parkour rank, null if they haven't earned one
+     */
+    public String getRank() {
+        return rank;
+    }
+
+    public String getLastPlayedCourse() {
+        return lastPlayedCourse;
+    }
+
+    public String getLastCompletedCourse() {
+        return lastCompletedCourse;
+    }
+}
@@ -1,7 +1,6 @@
 package me.A5H73Y.Parkour.Conversation;
 
 import me.A5H73Y.Parkour.Parkour;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
 
@@ -89,9 +88,9 @@ public class LeaderboardConversation extends StringPrompt {
 				@Override
 				public void run() {
 					if (leaderboardType.equals("personal")) {
-						Utils.displayLeaderboard(player, DatabaseMethods.getTopPlayerCourseResults(player.getName(), courseName, amount), courseName);
+						Utils.displayLeaderboard(player, Parkour.getStorage().getTopPlayerCourseResults(player.getName(), courseName, amount), courseName);
 					} else if (leaderboardType.equals("global")) {
-						Utils.displayLeaderboard(player, DatabaseMethods.getTopCourseResults(courseName, amount), courseName);
+						Utils.displayLeaderboard(player, Parkour.getStorage().getTopCourseResults(courseName, amount), courseName);
 					}
 				}
 			}, 3);
@@ -26,24 +26,23 @@ public class CheckpointMethods {
 	 * @return Checkpoint
 	 */
 	public static Checkpoint getNextCheckpoint(String courseName, int currentPoint){
-		FileConfiguration courseData = Parkour.getParkourConfig().getCourseData();
-		FileConfiguration checkData = Parkour.getParkourConfig().getCheckData();
+		FileConfiguration courseData = Parkour.getParkourConfig().getCourseData(courseName);
 
-		String path = courseName + "." + currentPoint + ".";
+		String path = currentPoint + ".";
 
 		double x = courseData.getDouble(path + "X");
 		double y = courseData.getDouble(path + "Y");
 		double z = courseData.getDouble(path + "Z");
 		float yaw = (float) courseData.getDouble(path + "Yaw");
 		float pitch = (float) courseData.getDouble(path + "Pitch");
-		World world = Bukkit.getWorld(courseData.getString(courseName + "." + "World"));
+		World world = Bukkit.getWorld(courseData.getString("World"));
 		Location location = new Location(world, x, y, z, yaw, pitch);
 
-		path = courseName + "." + (currentPoint + 1) + ".";
+		path = "Checkpoints." + (currentPoint + 1) + ".";
 
-		double nCheckX = checkData.getDouble(path + "X");
-		double nCheckY = checkData.getDouble(path + "Y");
-		double nCheckZ = checkData.getDouble(path + "Z");
+		double nCheckX = courseData.getDouble(path + "X");
+		double nCheckY = courseData.getDouble(path + "Y");
+		double nCheckZ = courseData.getDouble(path + "Z");
 
 		return new Checkpoint(location, nCheckX, nCheckY, nCheckZ);
 	}
@@ -102,25 +101,24 @@ public class CheckpointMethods {
 	 * @param checkpoint
 	 */
 	private static void createCheckpointData(String selected, Location location, int checkpoint){
-		FileConfiguration courseData = Parkour.getParkourConfig().getCourseData();
-		FileConfiguration checkData = Parkour.getParkourConfig().getCheckData();
+		FileConfiguration courseData = Parkour.getParkourConfig().getCourseData(selected);
 
-		int points = courseData.getInt(selected + ".Points");
+		int points = courseData.getInt("Points");
 		int pointmax = points >= checkpoint ? points : checkpoint;
 
-		courseData.set(selected + ".Points", pointmax);
-		courseData.set(selected + "." + checkpoint + ".X", location.getBlockX() + 0.5);
-		courseData.set(selected + "." + checkpoint + ".Y", location.getBlockY() + 0.5);
-		courseData.set(selected + "." + checkpoint + ".Z", location.getBlockZ() + 0.5);
-		courseData.set(selected + "." + checkpoint + ".Yaw", location.getYaw());
-		courseData.set(selected + "." + checkpoint + ".Pitch", location.getPitch());
+		courseData.set("Points", pointmax);
+		courseData.set(checkpoint + ".X", location.getBlockX() + 0.5);
+		courseData.set(checkpoint + ".Y", location.getBlockY() + 0.5);
+		courseData.set(checkpoint + ".Z", location.getBlockZ() + 0.5);
+		courseData.set(checkpoint + ".Yaw", location.getYaw());
+		courseData.set(checkpoint + ".Pitch", location.getPitch());
 
-		checkData.set(selected + "." + checkpoint + ".X", location.getBlockX());
-		checkData.set(selected + "." + checkpoint + ".Y", location.getBlockY() - 1);
-		checkData.set(selected + "." + checkpoint + ".Z", location.getBlockZ());
+		courseData.set("Checkpoints." + checkpoint + ".X", location.getBlockX());
+		courseData.set("Checkpoints." + checkpoint + ".Y", location.getBlockY() - 1);
+		courseData.set("Checkpoints." + checkpoint + ".Z", location.getBlockZ());
 
-		Parkour.getParkourConfig().saveCheck();
-		Parkour.getParkourConfig().saveCourses();
+		Parkour.getParkourConfig().saveCourse(selected);
+		CourseInfo.reloadDefinition(selected);
 	}
 
 	/**
@@ -139,10 +137,10 @@ public class CheckpointMethods {
 		}
 
 		String courseName = args[1].toLowerCase();
-		FileConfiguration courseData = Parkour.getParkourConfig().getCourseData();
-		String path = checkpoint ? courseName + "." + args[2] : courseName + ".0";
+		FileConfiguration courseData = Parkour.getParkourConfig().getCourseData(courseName);
+		String path = checkpoint ? args[2] : "0";
 
-		World world = Bukkit.getWorld(courseData.getString(courseName + ".World"));
+		World world = Bukkit.getWorld(courseData.getString("World"));
 		double x = courseData.getDouble(path + ".X");
 		double y = courseData.getDouble(path + ".Y");
 		double z = courseData.getDouble(path + ".Z");
@@ -177,11 +175,12 @@ public class CheckpointMethods {
 			return;
 		}
 
-		Parkour.getParkourConfig().getCourseData().set(courseName + "." + point, null);
-		Parkour.getParkourConfig().getCourseData().set(courseName + ".Points", point - 1);
-		Parkour.getParkourConfig().getCheckData().set(courseName + "." + point, null);
-		Parkour.getParkourConfig().saveCourses();
-		Parkour.getParkourConfig().saveCheck();
+		FileConfiguration courseData = Parkour.getParkourConfig().getCourseData(courseName);
+		courseData.set(String.valueOf(point), null);
+		courseData.set("Points", point - 1);
+		courseData.set("Checkpoints." + point, null);
+		Parkour.getParkourConfig().saveCourse(courseName);
+		CourseInfo.reloadDefinition(courseName);
 
 		player.sendMessage(Utils.getTranslation("Parkour.DeleteCheckpoint")
 				.replace("%CHECKPOINT%", String.valueOf(point))
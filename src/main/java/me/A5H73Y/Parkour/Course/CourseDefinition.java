@@ -0,0 +1,215 @@
+package me.A5H73Y.Parkour.Course;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+
+/**
+ * The settings of a course, read once from its file.
+ * Definitions are never changed, {@link CourseInfo} replaces the course's definition whenever its settings are changed.
+ */
+public class CourseDefinition {
+
+    private final String name;
+    private final boolean exists;
+
+    private final String creator;
+    private final String world;
+    private final String mode;
+    private final String parkourKit;
+    private final String linkedCourse;
+    private final String linkedLobby;
+    private final int checkpoints;
+    private final int views;
+    private final int completions;
+    private final int minimumLevel;
+    private final int maximumDeaths;
+    private final boolean finished;
+
+    private final int xp;
+    private final int xpPrize;
+    private final String commandPrize;
+    private final String materialPrizeName;
+    private final Material materialPrize;
+    private final int materialPrizeAmount;
+    private final int rewardLevel;
+    private final int rewardLevelAdd;
+    private final boolean rewardOnce;
+    private final int rewardDelay;
+    private final int rewardParkoins;
+
+    private final String joinItemName;
+    private final Material joinItem;
+    private final int joinItemAmount;
+    private final String joinItemLabel;
+
+    /**
+     * @param name lowercase course name
+     * @param section the course's data, null if the course doesn't exist
+     */
+    public CourseDefinition(String name, ConfigurationSection section) {
+        this.name = name;
+        this.exists = section != null;
+
+        if (section == null)
+            section = new MemoryConfiguration();
+
+        creator = section.getString("Creator");
+        world = section.getString("World");
+        mode = section.getString("Mode");
+        parkourKit = section.getString("ParkourKit");
+        linkedCourse = section.getString("LinkedCourse");
+        linkedLobby = section.getString("LinkedLobby");
+        checkpoints = section.getInt("Points");
+        views = section.getInt("Views");
+        completions = section.getInt("Completed");
+        minimumLevel = section.getInt("MinimumLevel");
+        maximumDeaths = section.getInt("MaxDeaths", 0);
+        finished = section.getBoolean("Finished");
+
+        xp = section.getInt("XP");
+        xpPrize = section.getInt("Prize.XP");
+        commandPrize = section.getString("Prize.CMD");
+        materialPrizeName = section.getString("Prize.Material");
+        materialPrize = materialPrizeName == null ? null : Material.getMaterial(materialPrizeName);
+        materialPrizeAmount = section.getInt("Prize.Amount", 0);
+        rewardLevel = section.getInt("Level");
+        rewardLevelAdd = section.getInt("LevelAdd");
+        rewardOnce = section.getBoolean("RewardOnce");
+        rewardDelay = section.getInt("RewardDelay", 0);
+        rewardParkoins = section.getInt("Parkoins");
+
+        joinItemName = section.getString("JoinItemMaterial");
+        joinItem = joinItemName == null ? null : Material.getMaterial(joinItemName);
+        joinItemAmount = section.getInt("JoinItemAmount", 1);
+        joinItemLabel = section.getString("JoinItemLabel");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return false if the course has no settings saved
+     */
+    public boolean exists() {
+        return exists;
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public String getParkourKit() {
+        return parkourKit;
+    }
+
+    public String getLinkedCourse() {
+        return linkedCourse;
+    }
+
+    public String getLinkedLobby() {
+        return linkedLobby;
+    }
+
+    public int getCheckpoints() {
+        return checkpoints;
+    }
+
+    public int getViews() {
+        return views;
+    }
+
+    public int getCompletions() {
+        return completions;
+    }
+
+    public int getMinimumLevel() {
+        return minimumLevel;
+    }
+
+    public int getMaximumDeaths() {
+        return maximumDeaths;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return XP shown in the course's stats, the XP prize is {@link #getXPPrize()}
+     */
+    public int getXP() {
+        return xp;
+    }
+
+    public int getXPPrize() {
+        return xpPrize;
+    }
+
+    public String getCommandPrize() {
+        return commandPrize;
+    }
+
+    public boolean hasMaterialPrize() {
+        return materialPrizeName != null;
+    }
+
+    /**
+     * @return the material, null if it isn't set or isn't a valid material
+     */
+    public Material getMaterialPrize() {
+        return materialPrize;
+    }
+
+    public int getMaterialPrizeAmount() {
+        return materialPrizeAmount;
+    }
+
+    public int getRewardLevel() {
+        return rewardLevel;
+    }
+
+    public int getRewardLevelAdd() {
+        return rewardLevelAdd;
+    }
+
+    public boolean isRewardOnce() {
+        return rewardOnce;
+    }
+
+    public int getRewardDelay() {
+        return rewardDelay;
+    }
+
+    public int getRewardParkoins() {
+        return rewardParkoins;
+    }
+
+    public boolean hasJoinItem() {
+        return joinItemName != null;
+    }
+
+    /**
+     * @return the material, null if it isn't set or isn't a valid material
+     */
+    public Material getJoinItem() {
+        return joinItem;
+    }
+
+    public int getJoinItemAmount() {
+        return joinItemAmount;
+    }
+
+    public String getJoinItemLabel() {
+        return joinItemLabel;
+    }
+}
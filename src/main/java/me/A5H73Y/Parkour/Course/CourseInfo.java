@@ -1,12 +1,84 @@
 package me.A5H73Y.Parkour.Course;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import me.A5H73Y.Parkour.Parkour;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
 import me.A5H73Y.Parkour.Utilities.Static;
 import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
 
+/**
+ * Course settings, read from each course's {@link CourseDefinition} rather than from its file.
+ * Definitions are read when the course is first used and the most recently used are kept.
+ * Changing a setting writes it to the course's file and replaces the course's definition.
+ */
 public class CourseInfo {
 
+    private static final Map<String, CourseDefinition> definitions = Collections.synchronizedMap(
+            new LinkedHashMap<String, CourseDefinition>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CourseDefinition> eldest) {
+                    return size() > Parkour.getParkourConfig().getCourseCacheSize();
+                }
+            });
+
+    /**
+     * Forget the loaded definitions, each is read again when next used.
+     */
+    public static void clearDefinitions() {
+        definitions.clear();
+    }
+
+    /**
+     * Get the course's settings.
+     * @param courseName
+     * @return definition, with default settings if the course doesn't exist
+     */
+    public static CourseDefinition getDefinition(String courseName) {
+        CourseDefinition definition = definitions.get(courseName);
+
+        if (definition == null) {
+            courseName = courseName.toLowerCase();
+            definition = definitions.get(courseName);
+            if (definition == null)
+                definition = reloadDefinition(courseName);
+        }
+        return definition;
+    }
+
+    /**
+     * Read the course's definition from its file again.
+     * Needed after its data is changed directly, rather than through the setters here.
+     * @param courseName
+     * @return the new definition
+     */
+    public static CourseDefinition reloadDefinition(String courseName) {
+        courseName = courseName.toLowerCase();
+        FileConfiguration data = Parkour.getParkourConfig().getCourseData(courseName);
+        CourseDefinition definition = new CourseDefinition(courseName, data.getKeys(false).isEmpty() ? null : data);
+
+        if (definition.exists())
+            definitions.put(courseName, definition);
+        else
+            definitions.remove(courseName);
+
+        return definition;
+    }
+
+    /**
+     * Change a setting of the course, then replace its definition.
+     * @param courseName
+     * @param path of the setting within the course's data
+     * @param value null to remove the setting
+     */
+    private static void set(String courseName, String path, Object value) {
+        Parkour.getParkourConfig().getCourseData(courseName).set(path, value);
+        Parkour.getParkourConfig().saveCourse(courseName);
+        reloadDefinition(courseName);
+    }
+
     /**
      * Return the linked course of the specified course
      * Will validate it's a valid course before returning
@@ -14,7 +86,7 @@ public class CourseInfo {
      * @return linkedCourse
      */
     public static String getLinkedCourse(String courseName) {
-        String linkedCourse = Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".LinkedCourse");
+        String linkedCourse = getDefinition(courseName).getLinkedCourse();
 
         if (linkedCourse != null && CourseMethods.exist(linkedCourse))
             return linkedCourse;
@@ -23,12 +95,11 @@ public class CourseInfo {
     }
 
     public static boolean hasLinkedCourse(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().contains(courseName.toLowerCase() + ".LinkedCourse");
+        return getDefinition(courseName).getLinkedCourse() != null;
     }
 
     public static void setLinkedCourse(String courseName, String linkedCourse) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".LinkedCourse", linkedCourse.toLowerCase());
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "LinkedCourse", linkedCourse.toLowerCase());
     }
 
     /**
@@ -38,7 +109,7 @@ public class CourseInfo {
      * @return linkedLobby
      */
     public static String getLinkedLobby(String courseName) {
-        String linkedLobby = Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".LinkedLobby");
+        String linkedLobby = getDefinition(courseName).getLinkedLobby();
 
         if (linkedLobby != null && Static.getLobbyList().contains(linkedLobby))
             return linkedLobby;
@@ -47,12 +118,11 @@ public class CourseInfo {
     }
 
     public static boolean hasLinkedLobby(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().contains(courseName.toLowerCase() + ".LinkedLobby");
+        return getDefinition(courseName).getLinkedLobby() != null;
     }
 
     public static void setLinkedLobby(String courseName, String lobbyName) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".LinkedLobby", lobbyName);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "LinkedLobby", lobbyName);
     }
 
     /**
@@ -61,56 +131,51 @@ public class CourseInfo {
      * @return mode
      */
     public static String getMode(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".Mode");
+        return getDefinition(courseName).getMode();
     }
 
     public static void setMode(String courseName, String mode) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Mode", mode);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Mode", mode);
     }
 
     public static int getCheckpointAmount(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".Points");
+        return getDefinition(courseName).getCheckpoints();
     }
 
     public static String getCreator(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".Creator");
+        return getDefinition(courseName).getCreator();
     }
 
     public static void setCreator(String courseName, String playerName) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Creator", playerName);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Creator", playerName);
     }
 
     public static int getMinimumLevel(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".MinimumLevel");
+        return getDefinition(courseName).getMinimumLevel();
     }
 
     public static void setMinimumLevel(String courseName, int level) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".MinimumLevel", level);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "MinimumLevel", level);
     }
 
     public static String getParkourKit(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".ParkourKit");
+        return getDefinition(courseName).getParkourKit();
     }
 
     public static boolean hasParkourKit(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().contains(courseName.toLowerCase() + ".ParkourKit");
+        return getDefinition(courseName).getParkourKit() != null;
     }
 
     public static void setParkourKit(String courseName, String parkourKitName) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".ParkourKit", parkourKitName.toLowerCase());
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "ParkourKit", parkourKitName.toLowerCase());
     }
 
     public static int getMaximumDeaths(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".MaxDeaths", 0);
+        return getDefinition(courseName).getMaximumDeaths();
     }
 
     public static void setMaximumDeaths(String courseName, int amount) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".MaxDeaths", amount);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "MaxDeaths", amount);
     }
 
     /**
@@ -120,43 +185,45 @@ public class CourseInfo {
      * @return boolean
      */
     public static boolean getFinished(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getBoolean(courseName.toLowerCase() + ".Finished");
+        return getDefinition(courseName).isFinished();
     }
 
     public static void setFinished(String courseName, boolean finished) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Finished", finished);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Finished", finished);
     }
 
     public static String getCommandPrize(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".Prize.CMD");
+        return getDefinition(courseName).getCommandPrize();
     }
 
     public static boolean hasCommandPrize(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().contains(courseName.toLowerCase() + ".Prize.CMD");
+        return getDefinition(courseName).getCommandPrize() != null;
     }
 
     public static void setCommandPrize(String courseName, String command) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Prize.CMD", command);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Prize.CMD", command);
     }
 
     public static void setMaterialPrize(String courseName, String material, int amount) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Prize.Material", material);
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Prize.Amount", amount);
-        Parkour.getParkourConfig().saveCourses();
+        Parkour.getParkourConfig().getCourseData(courseName).set("Prize.Material", material);
+        set(courseName, "Prize.Amount", amount);
     }
 
     public static int getXPPrize(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".Prize.XP");
+        return getDefinition(courseName).getXPPrize();
     }
 
     public static void setXPPrize(String courseName, int amount) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Prize.XP", amount);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Prize.XP", amount);
     }
 
+    public static int getCompletions(String courseName) {
+        return getDefinition(courseName).getCompletions();
+    }
 
+    public static int getViews(String courseName) {
+        return getDefinition(courseName).getViews();
+    }
 
     /**
      * Increase the Complete count of the course
@@ -164,9 +231,7 @@ public class CourseInfo {
      * @param courseName
      */
     public static void increaseComplete(String courseName) {
-        int completed = Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".Completed");
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Completed", completed + 1);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Completed", getDefinition(courseName).getCompletions() + 1);
     }
 
     /**
@@ -175,36 +240,31 @@ public class CourseInfo {
      * @param courseName
      */
     public static void increaseView(String courseName) {
-        int views = Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".Views");
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Views", views + 1);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Views", getDefinition(courseName).getViews() + 1);
     }
 
     public static int getRewardLevel(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".Level");
+        return getDefinition(courseName).getRewardLevel();
     }
 
     public static void setRewardLevel(String courseName, int level) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Level", level);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Level", level);
     }
 
     public static int getRewardLevelAdd(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".LevelAdd");
+        return getDefinition(courseName).getRewardLevelAdd();
     }
 
     public static void setRewardLevelAdd(String courseName, String amount) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".LevelAdd", Integer.parseInt(amount));
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "LevelAdd", Integer.parseInt(amount));
     }
 
     public static boolean getRewardOnce(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getBoolean(courseName.toLowerCase() + ".RewardOnce");
+        return getDefinition(courseName).isRewardOnce();
     }
 
     public static void setRewardOnce(String courseName, boolean enabled) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".RewardOnce", enabled);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "RewardOnce", enabled);
     }
 
     public static String getRewardRank(int level) {
@@ -221,43 +281,40 @@ public class CourseInfo {
     }
 
     public static int getRewardDelay(String courseName) {
-    	return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".RewardDelay", 0);
+    	return getDefinition(courseName).getRewardDelay();
     }
     
     public static void setRewardDelay(String courseName, int rewardDelay) {
-    	Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".RewardDelay", rewardDelay);
-        Parkour.getParkourConfig().saveCourses();
+    	set(courseName, "RewardDelay", rewardDelay);
     }
 
     public static int getRewardParkoins(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".Parkoins");
+        return getDefinition(courseName).getRewardParkoins();
     }
 
     public static void setRewardParkoins(String courseName, int parkoins) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".Parkoins", parkoins);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Parkoins", parkoins);
     }
 
     public static Material getJoinItem(String courseName) {
-        return Material.getMaterial(Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".JoinItemMaterial"));
+        return getDefinition(courseName).getJoinItem();
     }
 
     public static int getJoinItemAmount(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".JoinItemAmount", 1);
+        return getDefinition(courseName).getJoinItemAmount();
     }
 
     public static String getJoinItemLabel(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".JoinItemLabel");
+        return getDefinition(courseName).getJoinItemLabel();
     }
 
     public static boolean hasJoinItem(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().contains(courseName.toLowerCase() + ".JoinItemMaterial");
+        return getDefinition(courseName).hasJoinItem();
     }
 
     public static void setJoinItem(String courseName, String material, int amount) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".JoinItemMaterial", material.toUpperCase());
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".JoinItemAmount", amount);
-        Parkour.getParkourConfig().saveCourses();
+        Parkour.getParkourConfig().getCourseData(courseName).set("JoinItemMaterial", material.toUpperCase());
+        set(courseName, "JoinItemAmount", amount);
     }
 
 
@@ -270,41 +327,38 @@ public class CourseInfo {
     }
 
     public static String getWorld(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".World");
+        return getDefinition(courseName).getWorld();
     }
 
     public static Material getMaterialPrize(String courseName) {
-        return Material.getMaterial(Parkour.getParkourConfig().getCourseData().getString(courseName.toLowerCase() + ".Prize.Material"));
+        return getDefinition(courseName).getMaterialPrize();
     }
 
     public static int getMaterialPrizeAmount(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().getInt(courseName.toLowerCase() + ".Prize.Amount", 0);
+        return getDefinition(courseName).getMaterialPrizeAmount();
     }
 
     public static boolean hasMaterialPrize(String courseName) {
-        return Parkour.getParkourConfig().getCourseData().contains(courseName.toLowerCase() + ".Prize.Material");
+        return getDefinition(courseName).hasMaterialPrize();
     }
 
     public static void resetLinks(String courseName) {
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".LinkedLobby", null);
-        Parkour.getParkourConfig().getCourseData().set(courseName.toLowerCase() + ".LinkedCourse", null);
-        Parkour.getParkourConfig().saveCourses();
+        Parkour.getParkourConfig().getCourseData(courseName).set("LinkedLobby", null);
+        set(courseName, "LinkedCourse", null);
     }
 
     public static void deleteCourse(String courseName) {
         courseName = courseName.toLowerCase();
 
         Static.getCourses().remove(courseName);
-        Parkour.getParkourConfig().getCourseData().set(courseName, null);
         Parkour.getParkourConfig().getCourseData().set("Courses", Static.getCourses());
         Parkour.getParkourConfig().saveCourses();
-        DatabaseMethods.deleteCourseAndReferences(courseName);
+        Parkour.getParkourConfig().deleteCourseData(courseName);
+        definitions.remove(courseName);
+        Parkour.getStorage().deleteCourse(courseName);
     }
 
     public static void resetPrizes(String courseName) {
-        courseName = courseName.toLowerCase();
-
-        Parkour.getParkourConfig().getCourseData().set(courseName + ".Prize", null);
-        Parkour.getParkourConfig().saveCourses();
+        set(courseName, "Prize", null);
     }
 }
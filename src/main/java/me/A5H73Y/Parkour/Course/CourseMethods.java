@@ -6,14 +6,15 @@ import java.util.Map;
 import me.A5H73Y.Parkour.Parkour;
 import me.A5H73Y.Parkour.Conversation.ParkourConversation;
 import me.A5H73Y.Parkour.Enums.ConversationType;
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
 import me.A5H73Y.Parkour.Enums.ParkourMode;
 import me.A5H73Y.Parkour.Other.Challenge;
 import me.A5H73Y.Parkour.Other.ParkourKit;
+import me.A5H73Y.Parkour.Other.TimeObject;
 import me.A5H73Y.Parkour.Other.ValidationMethods;
 import me.A5H73Y.Parkour.Player.PlayerInfo;
 import me.A5H73Y.Parkour.Player.ParkourSession;
 import me.A5H73Y.Parkour.Player.PlayerMethods;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
 
@@ -27,6 +28,8 @@ import org.bukkit.entity.Player;
 
 public class CourseMethods {
 
+    private static final int LEADERBOARD_PAGE_SIZE = 10;
+
     /**
      * Check if a course exists on the server
      *
@@ -109,7 +112,7 @@ public class CourseMethods {
 
     /**
      * Create a new Parkour course, given a unique name.
-     * The start of the course is located in courses.yml as checkpoint '0'.
+     * The start of the course is located in the course's file as checkpoint '0'.
      * The world is assumed once the course is joined, so having 2 different checkpoints in 2 different worlds is not an option.
      * All course names are stored in a string list, which is also held in memory.
      * Course is entered into the database so leaderboards can be associated with it.
@@ -123,28 +126,30 @@ public class CourseMethods {
 
         String name = args[1].toLowerCase();
         Location location = player.getLocation();
-        FileConfiguration courseData = Parkour.getParkourConfig().getCourseData();
-
-        courseData.set(name + ".Creator", player.getName());
-        courseData.set(name + ".Views", 0);
-        courseData.set(name + ".Completed", 0);
-        courseData.set(name + ".XP", 0);
-        courseData.set(name + ".Points", 0);
-        courseData.set(name + ".World", location.getWorld().getName());
-        courseData.set(name + ".0.X", location.getBlockX() + 0.5);
-        courseData.set(name + ".0.Y", location.getBlockY() + 0.5);
-        courseData.set(name + ".0.Z", location.getBlockZ() + 0.5);
-        courseData.set(name + ".0.Yaw", location.getYaw());
-        courseData.set(name + ".0.Pitch", location.getPitch());
+        FileConfiguration courseData = Parkour.getParkourConfig().getCourseData(name);
+
+        courseData.set("Creator", player.getName());
+        courseData.set("Views", 0);
+        courseData.set("Completed", 0);
+        courseData.set("XP", 0);
+        courseData.set("Points", 0);
+        courseData.set("World", location.getWorld().getName());
+        courseData.set("0.X", location.getBlockX() + 0.5);
+        courseData.set("0.Y", location.getBlockY() + 0.5);
+        courseData.set("0.Z", location.getBlockZ() + 0.5);
+        courseData.set("0.Yaw", location.getYaw());
+        courseData.set("0.Pitch", location.getPitch());
+        Parkour.getParkourConfig().saveCourse(name);
 
         Static.getCourses().add(name);
-        courseData.set("Courses", Static.getCourses());
+        Parkour.getParkourConfig().getCourseData().set("Courses", Static.getCourses());
         Parkour.getParkourConfig().saveCourses();
+        CourseInfo.reloadDefinition(name);
 
         PlayerInfo.setSelected(player, name);
 
         player.sendMessage(Utils.getTranslation("Parkour.Created").replace("%COURSE%", args[1]));
-        DatabaseMethods.insertCourse(name, player.getName());
+        Parkour.getStorage().insertCourse(name, player.getName());
     }
 
     /**
@@ -186,26 +191,26 @@ public class CourseMethods {
         }
 
         courseName = courseName.toLowerCase();
-        FileConfiguration config = Parkour.getParkourConfig().getCourseData();
+        CourseDefinition course = CourseInfo.getDefinition(courseName);
         FileConfiguration econ = Parkour.getParkourConfig().getEconData();
         ChatColor aqua = ChatColor.AQUA;
 
-        int views = config.getInt(courseName + ".Views");
-        int completed = config.getInt(courseName + ".Completed");
-        int checkpoints = config.getInt(courseName + ".Points");
-        int maxDeaths = config.getInt(courseName + ".MaxDeaths");
-        int minLevel = config.getInt(courseName + ".MinimumLevel");
-        int rewardLevel = config.getInt(courseName + ".Level");
-        int rewardLevelAdd = config.getInt(courseName + ".LevelAdd");
-        int XP = config.getInt(courseName + ".XP");
-        int parkoins = config.getInt(courseName + ".Parkoins");
-
-        String linkedLobby = config.getString(courseName + ".LinkedLobby");
-        String linkedCourse = config.getString(courseName + ".LinkedCourse");
-        String creator = config.getString(courseName + ".Creator");
-        boolean finished = config.getBoolean(courseName + ".Finished");
-        String parkourKit = config.getString(courseName + ".ParkourKit");
-        String mode = config.getString(courseName + ".Mode");
+        int views = course.getViews();
+        int completed = course.getCompletions();
+        int checkpoints = course.getCheckpoints();
+        int maxDeaths = course.getMaximumDeaths();
+        int minLevel = course.getMinimumLevel();
+        int rewardLevel = course.getRewardLevel();
+        int rewardLevelAdd = course.getRewardLevelAdd();
+        int XP = course.getXP();
+        int parkoins = course.getRewardParkoins();
+
+        String linkedLobby = course.getLinkedLobby();
+        String linkedCourse = course.getLinkedCourse();
+        String creator = course.getCreator();
+        boolean finished = course.isFinished();
+        String parkourKit = course.getParkourKit();
+        String mode = course.getMode();
 
         double completePercent = Math.round(((completed * 1.0 / views) * 100));
 
@@ -254,7 +259,7 @@ public class CourseMethods {
             }
         }
 
-        double likePercent = Math.round(DatabaseMethods.getVotePercent(courseName));
+        double likePercent = Math.round(Parkour.getStorage().getVotePercent(courseName));
 
         if (likePercent > 0)
             player.sendMessage("Liked: " + aqua + likePercent + "%");
@@ -437,11 +442,13 @@ public class CourseMethods {
         }
 
         selected = selected.toLowerCase();
-        Parkour.getParkourConfig().getCourseData().set(selected + ".0.X", player.getLocation().getX());
-        Parkour.getParkourConfig().getCourseData().set(selected + ".0.Y", player.getLocation().getY());
-        Parkour.getParkourConfig().getCourseData().set(selected + ".0.Z", player.getLocation().getZ());
-        Parkour.getParkourConfig().getCourseData().set(selected + ".0.Yaw", player.getLocation().getYaw());
-        Parkour.getParkourConfig().getCourseData().set(selected + ".0.Pitch", player.getLocation().getPitch());
+        FileConfiguration courseData = Parkour.getParkourConfig().getCourseData(selected);
+        courseData.set("0.X", player.getLocation().getX());
+        courseData.set("0.Y", player.getLocation().getY());
+        courseData.set("0.Z", player.getLocation().getZ());
+        courseData.set("0.Yaw", player.getLocation().getYaw());
+        courseData.set("0.Pitch", player.getLocation().getPitch());
+        Parkour.getParkourConfig().saveCourse(selected);
         Utils.logToFile(selected + " spawn was reset by " + player.getName());
         player.sendMessage(Static.getParkourString() + "Spawn for " + ChatColor.AQUA + selected + ChatColor.WHITE + " has been set to your position");
     }
@@ -722,23 +729,24 @@ public class CourseMethods {
             return;
 
         courseName = courseName.toLowerCase();
-        FileConfiguration config = Parkour.getParkourConfig().getCourseData();
-
-        config.set(courseName + ".Views", 0);
-        config.set(courseName + ".Completed", 0);
-        config.set(courseName + ".Finished", false);
-        config.set(courseName + ".XP", null);
-        config.set(courseName + ".Level", null);
-        config.set(courseName + ".MinimumLevel", null);
-        config.set(courseName + ".LevelAdd", null);
-        config.set(courseName + ".MaxDeaths", null);
-        config.set(courseName + ".Parkoins", null);
-        config.set(courseName + ".LinkedLobby", null);
-        config.set(courseName + ".LinkedCourse", null);
-        config.set(courseName + ".ParkourKit", null);
-        config.set(courseName + ".Mode", null);
-        Parkour.getParkourConfig().saveCourses();
-        DatabaseMethods.deleteCourseTimes(courseName);
+        FileConfiguration config = Parkour.getParkourConfig().getCourseData(courseName);
+
+        config.set("Views", 0);
+        config.set("Completed", 0);
+        config.set("Finished", false);
+        config.set("XP", null);
+        config.set("Level", null);
+        config.set("MinimumLevel", null);
+        config.set("LevelAdd", null);
+        config.set("MaxDeaths", null);
+        config.set("Parkoins", null);
+        config.set("LinkedLobby", null);
+        config.set("LinkedCourse", null);
+        config.set("ParkourKit", null);
+        config.set("Mode", null);
+        Parkour.getParkourConfig().saveCourse(courseName);
+        CourseInfo.reloadDefinition(courseName);
+        Parkour.getStorage().deleteCourseTimes(courseName);
     }
 
     /**
@@ -763,18 +771,18 @@ public class CourseMethods {
             return;
         }
 
-        if (!DatabaseMethods.hasPlayerCompleted(player.getName(), courseName)) {
+        if (!Parkour.getStorage().hasPlayerCompleted(player.getName(), courseName)) {
             player.sendMessage(Utils.getTranslation("Error.NotCompleted").replace("%COURSE%", courseName));
             return;
         }
 
-        if (DatabaseMethods.hasVoted(courseName, player.getName())) {
+        if (Parkour.getStorage().hasVoted(courseName, player.getName())) {
             player.sendMessage(Utils.getTranslation("Error.AlreadyVoted").replace("%COURSE%", courseName));
             return;
         }
 
         boolean liked = args[0].equalsIgnoreCase("like");
-        DatabaseMethods.insertVote(courseName, player.getName(), liked);
+        Parkour.getStorage().insertVote(courseName, player.getName(), liked);
 
         if (liked) {
             player.sendMessage(Static.getParkourString() + "You " + ChatColor.GREEN + "liked " + ChatColor.WHITE + courseName);
@@ -883,6 +891,16 @@ public class CourseMethods {
             return;
         }
 
+        if (args.length >= 3 && args[2].equalsIgnoreCase("page")) {
+            displayLeaderboardPage(args, player);
+            return;
+        }
+
+        if (args.length >= 3 && LeaderboardPeriod.fromName(args[2]) != null) {
+            displayPeriodLeaderboard(args, player);
+            return;
+        }
+
         int limit = 5;
         boolean personal = true;
 
@@ -903,10 +921,104 @@ public class CourseMethods {
         }
 
         if (personal) {
-            Utils.displayLeaderboard(player, DatabaseMethods.getTopPlayerCourseResults(player.getName(), args[1], limit), args[1]);
+            Utils.displayLeaderboard(player, Parkour.getStorage().getTopPlayerCourseResults(player.getName(), args[1], limit), args[1]);
         } else {
-            Utils.displayLeaderboard(player, DatabaseMethods.getTopCourseResults(args[1], limit), args[1]);
+            Utils.displayLeaderboard(player, Parkour.getStorage().getTopCourseResults(args[1], limit), args[1]);
+        }
+    }
+
+    /**
+     * Display the fastest players on the course today, this week or this month.
+     *
+     * @param args
+     * @param player
+     */
+    private static void displayPeriodLeaderboard(String[] args, Player player) {
+        LeaderboardPeriod period = LeaderboardPeriod.fromName(args[2]);
+        int limit = 5;
+
+        if (args.length >= 4) {
+            if (!Utils.isNumber(args[3])) {
+                player.sendMessage(Static.getParkourString() + "Amount of results needs to be numeric.");
+                return;
+            }
+            limit = Integer.parseInt(args[3]);
+        }
+
+        Utils.displayLeaderboard(player, Parkour.getStorage().getTopPeriodResults(args[1], period, limit),
+                args[1] + " (" + period.getDisplayName() + ")");
+    }
+
+    /**
+     * Display a page of the course's leaderboard, containing the best time of each player.
+     *
+     * @param args
+     * @param player
+     */
+    private static void displayLeaderboardPage(String[] args, Player player) {
+        if (args.length < 4 || !Utils.isNumber(args[3])) {
+            player.sendMessage(Static.getParkourString() + "Page number needs to be numeric.");
+            return;
         }
+
+        int page = Math.max(1, Integer.parseInt(args[3]));
+        int pages = (Parkour.getStorage().getRankedPlayerCount(args[1]) + LEADERBOARD_PAGE_SIZE - 1) / LEADERBOARD_PAGE_SIZE;
+
+        if (pages > 0 && page > pages) {
+            player.sendMessage(Static.getParkourString() + "There are only " + pages + " pages of results.");
+            return;
+        }
+
+        Utils.displayLeaderboard(player, Parkour.getStorage().getLeaderboardPage(args[1], page, LEADERBOARD_PAGE_SIZE),
+                args[1], (page - 1) * LEADERBOARD_PAGE_SIZE + 1);
+
+        if (pages > 1)
+            player.sendMessage(Static.getParkourString() + "Page " + ChatColor.AQUA + page + ChatColor.WHITE + " of " + ChatColor.AQUA + pages);
+    }
+
+    /**
+     * Display the player's position on the course, out of every player who has completed it.
+     *
+     * @param args
+     * @param player
+     */
+    public static void displayRank(String[] args, Player player) {
+        if (!Utils.delayPlayer(player, 3, true))
+            return;
+
+        if (!CourseMethods.exist(args[1])) {
+            player.sendMessage(Utils.getTranslation("Error.NoExist").replace("%COURSE%", args[1]));
+            return;
+        }
+
+        if (!Parkour.getStorage().isRankingLoaded()) {
+            player.sendMessage(Static.getParkourString() + "Course ranks are still being loaded, please try again shortly.");
+            return;
+        }
+
+        String courseName = args[1].toLowerCase();
+        String playerName = args.length >= 3 ? args[2] : player.getName();
+        int players = Parkour.getStorage().getRankedPlayerCount(courseName);
+        int rank = Parkour.getStorage().getPlayerRank(courseName, playerName);
+
+        player.sendMessage(Utils.getStandardHeading(courseName + " rank"));
+
+        if (rank == 0) {
+            player.sendMessage(ChatColor.AQUA + playerName + ChatColor.WHITE + " has not completed " + courseName);
+        } else {
+            TimeObject best = Parkour.getStorage().getPlayerBestTime(courseName, playerName);
+            player.sendMessage(ChatColor.AQUA + playerName + ChatColor.WHITE + " is ranked " + ChatColor.AQUA + rank + ChatColor.WHITE + " of " + ChatColor.AQUA + players);
+            player.sendMessage("Best time: " + ChatColor.AQUA + Utils.displayCurrentTime(best.getTime()) + ChatColor.WHITE
+                    + " (top " + ChatColor.AQUA + (int) Math.ceil(rank * 100.0 / players) + "%" + ChatColor.WHITE + ")");
+        }
+
+        TimeObject topTenth = Parkour.getStorage().getPercentileTime(courseName, 10);
+        TimeObject median = Parkour.getStorage().getPercentileTime(courseName, 50);
+
+        if (topTenth != null)
+            player.sendMessage("Top 10%: " + ChatColor.AQUA + Utils.displayCurrentTime(topTenth.getTime()));
+        if (median != null)
+            player.sendMessage("Top 50%: " + ChatColor.AQUA + Utils.displayCurrentTime(median.getTime()));
     }
 
     /**
@@ -0,0 +1,60 @@
+package me.A5H73Y.Parkour.Enums;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Periods a leaderboard can be limited to, measured in the server's time zone.
+ */
+public enum LeaderboardPeriod {
+	DAILY("Daily"),
+	WEEKLY("Weekly"),
+	MONTHLY("Monthly");
+
+	private final String displayName;
+
+	LeaderboardPeriod(String displayName) {
+		this.displayName = displayName;
+	}
+
+	public String getDisplayName() {
+		return displayName;
+	}
+
+	/**
+	 * Weeks start on Monday.
+	 * @param now epoch milliseconds
+	 * @return the start of the period containing now, in epoch milliseconds
+	 */
+	public long getStart(long now) {
+		ZoneId zone = ZoneId.systemDefault();
+		LocalDate date = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+
+		switch (this) {
+			case WEEKLY:
+				date = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+				break;
+			case MONTHLY:
+				date = date.withDayOfMonth(1);
+				break;
+			default:
+				break;
+		}
+		return date.atStartOfDay(zone).toInstant().toEpochMilli();
+	}
+
+	/**
+	 * @param name
+	 * @return the matching period, null if there is none
+	 */
+	public static LeaderboardPeriod fromName(String name) {
+		for (LeaderboardPeriod period : values()) {
+			if (period.name().equalsIgnoreCase(name))
+				return period;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,25 @@
+package me.A5H73Y.Parkour.Enums;
+
+/**
+ * Engines which can store courses, times and votes, chosen by Storage.Engine in the config.
+ */
+public enum StorageEngine {
+	/** SQLite, or MySQL if it has been configured */
+	SQL,
+	/** Kept in memory only, lost when the server stops */
+	MEMORY,
+	/** Kept in memory and appended to a file in the plugin folder */
+	FILE;
+
+	/**
+	 * @param name
+	 * @return the matching engine, SQL if there is none
+	 */
+	public static StorageEngine fromName(String name) {
+		for (StorageEngine engine : values()) {
+			if (engine.name().equalsIgnoreCase(name))
+				return engine;
+		}
+		return SQL;
+	}
+}
@@ -30,6 +30,7 @@ public class Backup {
 	public static void backupNow(boolean message){
 		if (message)
 			Utils.log("Beginning backup...");
+		Parkour.getParkourConfig().flush();
 		fileList = new ArrayList<>();
 
 		generateFileList(new File(SOURCE_FOLDER));
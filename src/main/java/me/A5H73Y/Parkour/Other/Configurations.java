@@ -2,20 +2,39 @@ package me.A5H73Y.Parkour.Other;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Storage.YamlWriter;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
 
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 public class Configurations {
 
-    private File dataFolder, courseFile, stringFile, usersFile, invFile, checkFile, econFile, kitFile;
-    private FileConfiguration courseData, stringData, usersData, invData, checkData, econData, kitData;
+    private File dataFolder, courseFile, stringFile, usersFile, invFile, econFile, kitFile;
+    private FileConfiguration courseData, stringData, usersData, invData, econData, kitData;
+    private File playersFolder, coursesFolder;
+    // read from async chat as well as the main thread
+    private final Map<String, FileConfiguration> playerData = new ConcurrentHashMap<>();
+    private int courseCacheSize;
+    private final Map<String, FileConfiguration> courseCache = new LinkedHashMap<String, FileConfiguration>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileConfiguration> eldest) {
+            return size() > Math.max(1, courseCacheSize);
+        }
+    };
+    private YamlWriter writer;
 
     /**
      * This no longer generates the default config.yml to allow the ability of creating a backup of the existing config.
@@ -32,10 +51,11 @@ public class Configurations {
         stringData = new YamlConfiguration();
         usersFile = new File(dataFolder, "players.yml");
         usersData = new YamlConfiguration();
+        playersFolder = new File(dataFolder, "players");
         invFile = new File(dataFolder, "inventory.yml");
         invData = new YamlConfiguration();
-        checkFile = new File(dataFolder, "checkpoints.yml");
-        checkData = new YamlConfiguration();
+        coursesFolder = new File(dataFolder, "courses");
+        courseCacheSize = Parkour.getPlugin().getConfig().getInt("Other.Save.CourseCacheSize", 200);
         kitFile = new File(dataFolder, "parkourkit.yml");
         kitData = new YamlConfiguration();
 
@@ -84,17 +104,6 @@ public class Configurations {
             }
         }
 
-        // checkpoints
-        if (!checkFile.exists()) {
-            try {
-                checkFile.createNewFile();
-                Utils.log("Created checkpoints.yml");
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                Utils.log("Failed!");
-            }
-        }
-
         // parkourkit
         if (!kitFile.exists()) {
             try {
@@ -111,7 +120,6 @@ public class Configurations {
             stringData.load(stringFile);
             usersData.load(usersFile);
             invData.load(invFile);
-            checkData.load(checkFile);
             kitData.load(kitFile);
 
         } catch (Exception ex){
@@ -122,38 +130,114 @@ public class Configurations {
         saveAll();
     }
 
+    /**
+     * One-time move of players.yml and courses.yml into a file per player and per course.
+     * Run once the files have been backed up and converted, so the backup holds them as they were before the move.
+     */
+    public void splitLegacyFiles() {
+        splitUsersFile();
+        splitCoursesFile();
+        saveUsers();
+        saveCourses();
+    }
+
     public void saveAll(){
-        saveCheck();
         saveCourses();
         //saveEcon();
         saveInv();
         saveStrings();
         saveUsers();
         saveParkourKit();
+        flush();
         Parkour.getPlugin().saveConfig();
     }
 
+    /**
+     * Start saving the files in the background, rather than each time they're saved.
+     * @param intervalSeconds seconds between writing changed files, 0 to keep writing them straight away
+     */
+    public void startWriter(int intervalSeconds) {
+        if (intervalSeconds > 0)
+            writer = new YamlWriter(intervalSeconds * 20L);
+    }
+
+    /**
+     * Write any changed files and stop saving in the background.
+     */
+    public void stopWriter() {
+        if (writer != null) {
+            writer.shutdown();
+            writer = null;
+        }
+    }
+
+    /**
+     * Write any changed files now.
+     */
+    public void flush() {
+        if (writer != null)
+            writer.flush();
+    }
+
     public void reload(){
+        flush();
         Parkour.getPlugin().reloadConfig();
 
         courseData = YamlConfiguration.loadConfiguration(courseFile);
         stringData = YamlConfiguration.loadConfiguration(stringFile);
         usersData = YamlConfiguration.loadConfiguration(usersFile);
+        playerData.clear();
         invData = YamlConfiguration.loadConfiguration(invFile);
-        checkData = YamlConfiguration.loadConfiguration(checkFile);
+        courseCache.clear();
+        courseCacheSize = Parkour.getPlugin().getConfig().getInt("Other.Save.CourseCacheSize", 200);
         kitData = YamlConfiguration.loadConfiguration(kitFile);
         if (Static.getEconomy())
             econData = YamlConfiguration.loadConfiguration(econFile);
     }
 
-    public FileConfiguration getCheckData() {
-        return checkData;
-    }
-
+    /**
+     * @return courses.yml, which only holds the list of course names
+     */
     public FileConfiguration getCourseData() {
         return courseData;
     }
 
+    /**
+     * Get the course's data, read from its file if it isn't one of the recently used courses.
+     * Changes must be saved with {@link #saveCourse(String)}, as the data may be dropped from memory once saved.
+     * @param courseName
+     * @return the course's data, empty if it doesn't have any
+     */
+    public FileConfiguration getCourseData(String courseName) {
+        String key = courseName.toLowerCase();
+        FileConfiguration data = courseCache.get(key);
+
+        if (data == null) {
+            data = load(getCourseFile(key));
+            courseCache.put(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Delete the course's file.
+     * @param courseName
+     */
+    public void deleteCourseData(String courseName) {
+        String key = courseName.toLowerCase();
+        File file = getCourseFile(key);
+        courseCache.remove(key);
+
+        if (writer != null)
+            writer.delete(file);
+        else
+            file.delete();
+    }
+
+    public int getCourseCacheSize() {
+        return courseCacheSize;
+    }
+
     public FileConfiguration getStringData() {
         return stringData;
     }
@@ -162,6 +246,63 @@ public class Configurations {
         return usersData;
     }
 
+    /**
+     * Get the player's data, read from their file if it isn't loaded.
+     * @param playerName
+     * @return the player's data, null if they don't have any
+     */
+    public FileConfiguration getPlayerData(String playerName) {
+        FileConfiguration data = playerData.get(playerName.toLowerCase());
+        if (data == null)
+            data = load(getPlayerFile(playerName));
+
+        return data.getKeys(false).isEmpty() ? null : data;
+    }
+
+    /**
+     * Load the player's data and keep it until it's unloaded, used for online players.
+     * @param playerName
+     * @return the player's data, empty if they don't have any
+     */
+    public FileConfiguration loadPlayerData(String playerName) {
+        String key = playerName.toLowerCase();
+        FileConfiguration data = playerData.get(key);
+
+        if (data == null) {
+            data = load(getPlayerFile(playerName));
+            playerData.put(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Read the player's data without holding it, safe to call off the main thread such as before the player has joined.
+     * @param playerName
+     * @return the player's data, empty if they don't have any
+     */
+    public FileConfiguration readPlayerData(String playerName) {
+        return load(getPlayerFile(playerName));
+    }
+
+    /**
+     * Hold data read by {@link #readPlayerData(String)}, unless the player's data is already held.
+     * @param playerName
+     * @param data
+     * @return the player's data which is now held
+     */
+    public FileConfiguration holdPlayerData(String playerName, FileConfiguration data) {
+        FileConfiguration existing = playerData.putIfAbsent(playerName.toLowerCase(), data);
+        return existing != null ? existing : data;
+    }
+
+    /**
+     * Stop holding the player's data, any changes are still written.
+     * @param playerName
+     */
+    public void unloadPlayerData(String playerName) {
+        playerData.remove(playerName.toLowerCase());
+    }
+
     public FileConfiguration getInvData() {
         return invData;
     }
@@ -179,56 +320,192 @@ public class Configurations {
     }
 
     public void saveCourses() {
-        try {
-            courseData.addDefault("Courses", new ArrayList<String>());
-            courseData.options().copyDefaults(true);
-            courseData.save(courseFile);
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
+        courseData.addDefault("Courses", new ArrayList<String>());
+        courseData.options().copyDefaults(true);
+        save(courseData, courseFile);
     }
 
     public void saveUsers() {
-        try {
-            usersData.save(usersFile);
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
+        save(usersData, usersFile);
+    }
+
+    /**
+     * Change the player's data and save it, the data held for an online player is changed
+     * while an offline player's is read, changed and saved without being held.
+     * @param playerName
+     * @param change
+     */
+    public void editPlayerData(String playerName, Consumer<FileConfiguration> change) {
+        File file = getPlayerFile(playerName);
+        FileConfiguration data = playerData.get(playerName.toLowerCase());
+        if (data == null)
+            data = load(file);
+
+        change.accept(data);
+        file.getParentFile().mkdirs();
+        save(data, file);
     }
 
     public void saveInv() {
-        try {
-            invData.save(invFile);
-        } catch (IOException ex) {
-            ex.printStackTrace();
+        save(invData, invFile);
+    }
+
+    public void saveCourse(String courseName) {
+        coursesFolder.mkdirs();
+        save(getCourseData(courseName), getCourseFile(courseName));
+    }
+
+    public void saveEcon() {
+        save(econData, econFile);
+    }
+
+    public void saveParkourKit() {
+        if (!kitData.contains("ParkourKit.default")) {
+            ParkourKit.createStandardKit(kitData, "default");
         }
+        save(kitData, kitFile);
     }
 
-    public void saveCheck() {
+    /**
+     * Write the file, or mark it to be written in the background when the writer has been started.
+     */
+    private void save(FileConfiguration data, File file) {
+        if (writer != null) {
+            writer.markDirty(file, data);
+            return;
+        }
+
         try {
-            checkData.save(checkFile);
+            data.save(file);
         } catch (IOException ex) {
             ex.printStackTrace();
         }
     }
 
-    public void saveEcon() {
+    /**
+     * Read the file, waiting for any changes to it to be written first.
+     */
+    private FileConfiguration load(File file) {
+        return writer != null ? writer.read(file) : YamlWriter.load(file);
+    }
+
+    /**
+     * Players are spread across 256 folders by the hash of their name, so no folder grows too large to list.
+     */
+    private File getPlayerFile(String playerName) {
+        String key = playerName.toLowerCase();
+        String bucket = String.format("%02x", key.hashCode() & 0xff);
+        return new File(new File(playersFolder, bucket), key + ".yml");
+    }
+
+    private File getCourseFile(String courseName) {
+        return new File(coursesFolder, courseName.toLowerCase() + ".yml");
+    }
+
+    /**
+     * One-time move of each course's section of courses.yml, and its pressure plates from checkpoints.yml, into the course's own file.
+     * The originals are kept as courses.yml.old and checkpoints.yml.old, and nothing is removed if any course can't be moved.
+     */
+    private void splitCoursesFile() {
+        File checkFile = new File(dataFolder, "checkpoints.yml");
+        List<String> courseNames = new ArrayList<>(courseData.getKeys(false));
+        courseNames.remove("Courses");
+
+        if (courseNames.isEmpty() && !checkFile.exists())
+            return;
+
+        long start = System.currentTimeMillis();
+        Utils.log("Moving courses.yml and checkpoints.yml into a file per course...");
+        FileConfiguration checkData = YamlConfiguration.loadConfiguration(checkFile);
+
         try {
-            econData.save(econFile);
+            Files.copy(courseFile.toPath(), new File(dataFolder, "courses.yml.old").toPath(), StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException ex) {
             ex.printStackTrace();
+            Utils.log("Failed!");
+            return;
         }
+
+        coursesFolder.mkdirs();
+        for (String courseName : courseNames) {
+            ConfigurationSection section = courseData.getConfigurationSection(courseName);
+            if (section == null)
+                continue;
+
+            FileConfiguration data = new YamlConfiguration();
+            copyValues(section, data, "");
+            ConfigurationSection plates = checkData.getConfigurationSection(courseName);
+            if (plates != null)
+                copyValues(plates, data, "Checkpoints.");
+
+            try {
+                data.save(getCourseFile(courseName));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                Utils.log("Failed!");
+                return;
+            }
+        }
+
+        for (String courseName : courseNames) {
+            courseData.set(courseName, null);
+        }
+        if (checkFile.exists() && !checkFile.renameTo(new File(dataFolder, "checkpoints.yml.old")))
+            checkFile.delete();
+
+        Utils.log("Moved " + courseNames.size() + " courses in " + (System.currentTimeMillis() - start) + "ms.");
     }
 
-    public void saveParkourKit() {
+    private static void copyValues(ConfigurationSection from, FileConfiguration to, String prefix) {
+        for (Map.Entry<String, Object> value : from.getValues(true).entrySet()) {
+            if (!(value.getValue() instanceof ConfigurationSection))
+                to.set(prefix + value.getKey(), value.getValue());
+        }
+    }
+
+    /**
+     * One-time move of each player's section of players.yml into their own file.
+     * The original is kept as players.yml.old, and players.yml is left untouched if any player can't be moved.
+     */
+    private void splitUsersFile() {
+        ConfigurationSection players = usersData.getConfigurationSection("PlayerInfo");
+        if (players == null)
+            return;
+
+        long start = System.currentTimeMillis();
+        Utils.log("Moving players.yml into a file per player...");
+
         try {
-            if (!kitData.contains("ParkourKit.default")) {
-                ParkourKit.createStandardKit(kitData, "default");
-            }
-            kitData.save(kitFile);
+            Files.copy(usersFile.toPath(), new File(dataFolder, "players.yml.old").toPath(), StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException ex) {
             ex.printStackTrace();
+            Utils.log("Failed!");
+            return;
         }
+
+        int moved = 0;
+        for (String playerName : players.getKeys(false)) {
+            ConfigurationSection section = players.getConfigurationSection(playerName);
+            if (section == null)
+                continue;
+
+            FileConfiguration data = new YamlConfiguration();
+            copyValues(section, data, "");
+
+            File file = getPlayerFile(playerName);
+            file.getParentFile().mkdirs();
+            try {
+                data.save(file);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                Utils.log("Failed!");
+                return;
+            }
+            moved++;
+        }
+
+        usersData.set("PlayerInfo", null);
+        Utils.log("Moved " + moved + " players in " + (System.currentTimeMillis() - start) + "ms.");
     }
 
     public List<String> getAllCourses() {
@@ -483,8 +760,17 @@ public class Configurations {
         config.addDefault("Other.Display.ShowMilliseconds", false);
         config.addDefault("Other.Display.PrizeCooldown", true);
         config.addDefault("Other.EnforceSafeCheckpoints", true);
+        config.addDefault("Other.Save.IntervalSeconds", 10);
+        config.addDefault("Other.Save.CourseCacheSize", 200);
+        config.addDefault("Other.API.Threads", 2);
 
+        config.addDefault("Storage.Engine", "SQL");
+        config.addDefault("Storage.File", "storage/parkour.log");
         config.addDefault("SQLite.PathOverride", "");
+        config.addDefault("SQLite.WAL", true);
+        config.addDefault("SQLite.Synchronous", "NORMAL");
+        config.addDefault("SQLite.CacheSizeKB", 8192);
+        config.addDefault("SQLite.ReadConnections", 4);
         config.addDefault("MySQL.Use", false);
         config.addDefault("MySQL.Host", "Host");
         config.addDefault("MySQL.Port", 3306);
@@ -492,6 +778,32 @@ public class Configurations {
         config.addDefault("MySQL.Password", "Password");
         config.addDefault("MySQL.Database", "Database");
         config.addDefault("MySQL.Table", "Table");
+        config.addDefault("MySQL.Replica.Use", false);
+        config.addDefault("MySQL.Replica.Host", "Host");
+        config.addDefault("MySQL.Replica.Port", 3306);
+        config.addDefault("MySQL.Replica.User", "Username");
+        config.addDefault("MySQL.Replica.Password", "Password");
+        config.addDefault("MySQL.Replica.Database", "Database");
+        config.addDefault("MySQL.Replica.SQLiteFile", "");
+        config.addDefault("MySQL.Replica.StandIn", false);
+        config.addDefault("MySQL.Replica.MaxLagSeconds", 5);
+        config.addDefault("MySQL.Replica.LagCheckSeconds", 10);
+        config.addDefault("SQL.Pool.MaxSize", 10);
+        config.addDefault("SQL.Pool.ConnectionTimeoutSeconds", 5);
+        config.addDefault("SQL.Pool.IdleTimeoutSeconds", 600);
+        config.addDefault("SQL.Pool.LeakDetectionSeconds", 30);
+        config.addDefault("SQL.Pool.StatementCacheSize", 50);
+        config.addDefault("SQL.TimeWriter.QueueSize", 1000);
+        config.addDefault("SQL.TimeWriter.BatchSize", 100);
+        config.addDefault("SQL.Compaction.Enabled", false);
+        config.addDefault("SQL.Compaction.KeepRunsPerPlayer", 5);
+        config.addDefault("SQL.Compaction.ChunkSize", 500);
+        config.addDefault("SQL.Compaction.IntervalMinutes", 360);
+        config.addDefault("SQL.Compaction.Archive", true);
+        config.addDefault("SQL.CircuitBreaker.FailureThreshold", 3);
+        config.addDefault("SQL.CircuitBreaker.OpenSeconds", 30);
+        config.addDefault("SQL.Transfer.FetchSize", 1000);
+        config.addDefault("SQL.Transfer.BatchSize", 1000);
 
         config.addDefault("Version", Double.parseDouble(Parkour.getPlugin().getDescription().getVersion()));
 
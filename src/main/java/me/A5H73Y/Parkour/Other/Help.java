@@ -14,6 +14,10 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
+import com.huskehhh.mysql.ConnectionPool;
+import com.huskehhh.mysql.mysql.MySQL;
+import com.huskehhh.mysql.sqlite.SQLite;
+
 public final class Help {
 
 	/**
@@ -119,7 +123,11 @@ public final class Help {
 
 		} else if (args[1].equalsIgnoreCase("leaderboard")){	
 			displayHelpMessage(sender, "Display course leaderboards", "/pa leaderboard [[course] [amount] [scope]]", "/pa leaderboard tutorial 10 global",
-					" A conversation will be started to display the leaderboards you want, whether it's the best global or personal times. If you do not wish to use the converation, you can provide the required arguments for instant results.");
+					" A conversation will be started to display the leaderboards you want, whether it's the best global or personal times. If you do not wish to use the converation, you can provide the required arguments for instant results. To browse every player's best time, use '/pa leaderboard (course) page (number)'. The fastest players today, this week or this month can be shown with '/pa leaderboard (course) (daily / weekly / monthly) [amount]'.");
+
+		} else if (args[1].equalsIgnoreCase("rank")){	
+			displayHelpMessage(sender, "Display course rank", "/pa rank (course) [player]", "/pa rank tutorial A5H73Y",
+					" Display the position of the player's best time on the course, out of every player who has completed it. The times needed to reach the top 10% and the top half of players are also shown. If a player isn't specified, your own rank will be shown.");
 
 		} else if (args[1].equalsIgnoreCase("tutorial")){	
 			displayHelpMessage(sender, "Display links to tutorials", "/pa tutorial", null,
@@ -217,6 +225,14 @@ public final class Help {
 			displayHelpMessage(sender, "Validate ParkourKit", "/pa validateKit [Kit]", "/pa validateKit firekit",
 					" If you have manually created a ParkourKit, or something has gone wrong. You can validate a ParkourKit to find out where the problem has originated.");
 
+		} else if (args[1].equalsIgnoreCase("export")){
+			displayHelpMessage(sender, "Export course times", "/pa export times (course / all) [csv / ndjson]", "/pa export times tutorial ndjson",
+					" Write the times of the course, or every course, to a file in the exports folder. CSV is used unless NDJSON is chosen.");
+
+		} else if (args[1].equalsIgnoreCase("import")){
+			displayHelpMessage(sender, "Import course times", "/pa import times (file)", "/pa import times times-all-20180101-120000.csv",
+					" Insert the times from a file in the exports folder. Times already in the database and times of missing courses are skipped.");
+
 		} else if (args[1].equalsIgnoreCase("sql")){	
 			displayHelpMessage(sender, "Display SQL information", "/pa SQL", null,
 					" Display the SQL information of the server connected to the database.");
@@ -350,6 +366,7 @@ public final class Help {
 		displayCommandUsage(player, "leave", null, "Leave the course");
 		displayCommandUsage(player, "info", "[Player]", "Display your players Parkour information");
 		displayCommandUsage(player, "stats", "(course)", "Display the course information");
+		displayCommandUsage(player, "rank", "(course) [player]", "Display rank on the course");
 		displayCommandUsage(player, "lobby", "[lobby]", "Teleport to the specified lobby");
 		displayCommandUsage(player, "perms", null, "Display your Parkour permissions");
 		displayCommandUsage(player, "like / dislike", null, "Vote for course you finished");
@@ -424,6 +441,8 @@ public final class Help {
 		displayCommandUsage(player, "setlevel", "(player) (level)", "Set ParkourLevel");
 		displayCommandUsage(player, "setrank", "(player) (rank)", "Set Parkour Rank");
 		displayCommandUsage(player, "sql", null, "Display SQL menu");
+		displayCommandUsage(player, "export", "times (course / all)", "Export course times");
+		displayCommandUsage(player, "import", "times (file)", "Import course times");
 		displayCommandUsage(player, "settings", null, "Display Parkour Settings");
 		displayCommandUsage(player, "request / bug", null, "Display relevant info");
 	}
@@ -543,8 +562,31 @@ public final class Help {
 
 	public static void displaySQL(Player player) {
 		player.sendMessage(Utils.getStandardHeading("SQL Details"));
+		if (Parkour.getDatabaseObj() == null) {
+			player.sendMessage("Storage: " + Parkour.getPlugin().getConfig().getString("Storage.Engine").toLowerCase());
+			return;
+		}
 		player.sendMessage("Type: " + DatabaseMethods.type);
-		player.sendMessage("Connected: " + (Parkour.getDatabaseObj().getConnection() != null));
+		ConnectionPool pool = Parkour.getDatabaseObj().getPool();
+		player.sendMessage("Connected: " + (pool != null));
+		if (pool != null) {
+			player.sendMessage("Connections: " + pool.getActiveConnections() + " active, " + pool.getIdleConnections() + " idle, " + pool.getMaxSize() + " max");
+			player.sendMessage("Statements: " + pool.getStatementsPrepared() + " prepared, " + pool.getStatementCacheHits() + " reused, " + pool.getStatementsExecuted() + " executed");
+		}
+		player.sendMessage("Times waiting to be saved: " + Parkour.getTimeWriter().getQueueDepth());
+		player.sendMessage("Available: " + !Parkour.getDatabaseObj().getCircuitBreaker().isOpen());
+		if (DatabaseMethods.getJournal() != null && DatabaseMethods.getJournal().hasEntries()) {
+			player.sendMessage("Journal: waiting to be written to the database");
+		}
+		if (Parkour.getDatabaseObj() instanceof MySQL && ((MySQL) Parkour.getDatabaseObj()).getReplicaPool() != null) {
+			MySQL mysql = (MySQL) Parkour.getDatabaseObj();
+			ConnectionPool replicaPool = mysql.getReplicaPool();
+			player.sendMessage("Replica: " + (mysql.isReadingFromReplica() ? "reading" : "behind, reading from primary") + ", " + replicaPool.getActiveConnections() + " active, " + replicaPool.getIdleConnections() + " idle");
+		}
+		if (Parkour.getDatabaseObj() instanceof SQLite && ((SQLite) Parkour.getDatabaseObj()).getReadPool() != null) {
+			ConnectionPool readPool = ((SQLite) Parkour.getDatabaseObj()).getReadPool();
+			player.sendMessage("Read connections: " + readPool.getActiveConnections() + " active, " + readPool.getIdleConnections() + " idle, " + readPool.getMaxSize() + " max");
+		}
 		if (DatabaseMethods.type == DatabaseType.SQLite) {
 			player.sendMessage("Database location: " + Parkour.getPlugin().getDataFolder() + File.separator + "sqlite-db" + File.separator + "parkour.db"); 
 		}
@@ -7,7 +7,6 @@ import me.A5H73Y.Parkour.Course.CheckpointMethods;
 import me.A5H73Y.Parkour.Course.CourseMethods;
 import me.A5H73Y.Parkour.Enums.QuestionType;
 import me.A5H73Y.Parkour.Player.PlayerInfo;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
 
@@ -175,7 +174,7 @@ public class QuestionManager {
                     return;
 
                 case RESET_LEADERBOARD:
-                    DatabaseMethods.deleteCourseTimes(argument);
+                    Parkour.getStorage().deleteCourseTimes(argument);
                     player.sendMessage(Static.getParkourString() + ChatColor.AQUA + argument + ChatColor.WHITE + " leaderboards have been reset.");
                     Utils.logToFile(argument + " leaderboards were reset by " + player.getName());
                     return;
@@ -1,6 +1,7 @@
 package me.A5H73Y.Parkour.Other;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -11,24 +12,34 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
 
-import me.A5H73Y.Parkour.Course.CourseInfo;
+import me.A5H73Y.Parkour.API.ParkourAPI;
 import me.A5H73Y.Parkour.Parkour;
 import me.A5H73Y.Parkour.Enums.DatabaseType;
+import me.A5H73Y.Parkour.Enums.StorageEngine;
 import me.A5H73Y.Parkour.ParkourPlaceholders;
 import me.A5H73Y.Parkour.Player.ParkourSession;
+import me.A5H73Y.Parkour.Player.PlayerInfo;
 import me.A5H73Y.Parkour.Player.PlayerMethods;
+import me.A5H73Y.Parkour.Storage.DatabaseJournal;
+import me.A5H73Y.Parkour.Storage.FileStorage;
+import me.A5H73Y.Parkour.Storage.MemoryStorage;
+import me.A5H73Y.Parkour.Storage.SqlStorage;
+import me.A5H73Y.Parkour.Storage.TimeCompactor;
+import me.A5H73Y.Parkour.Storage.TimeWriter;
 import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
 import me.A5H73Y.Parkour.Utilities.Settings;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
 import net.milkbowl.vault.economy.Economy;
 
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.RegisteredServiceProvider;
 
+import com.huskehhh.mysql.CircuitBreaker;
 import com.huskehhh.mysql.Database;
 import com.huskehhh.mysql.mysql.MySQL;
 import com.huskehhh.mysql.sqlite.SQLite;
@@ -40,9 +51,13 @@ public class StartPlugin {
 
     public static void run() {
         checkConvertToLatest();
+        Parkour.getParkourConfig().splitLegacyFiles();
         Parkour.getParkourConfig().setupConfig();
+        Parkour.getParkourConfig().startWriter(Parkour.getPlugin().getConfig().getInt("Other.Save.IntervalSeconds"));
         Static.initiate();
-        initiateSQL();
+        PlayerInfo.loadProfiles();
+        initiateStorage();
+        ParkourAPI.start(Parkour.getPlugin().getConfig().getInt("Other.API.Threads"));
         setupExternalPlugins();
         populatePlayers();
         Utils.log("Enabled Parkour v" + Static.getVersion() + "!");
@@ -90,8 +105,31 @@ public class StartPlugin {
         }
     }
 
-    private static void initiateSQL() {
-        initiateSQL(false);
+    private static void initiateStorage() {
+        FileConfiguration config = Parkour.getPlugin().getConfig();
+        StorageEngine engine = StorageEngine.fromName(config.getString("Storage.Engine"));
+
+        if (engine == StorageEngine.FILE) {
+            File file = new File(Parkour.getPlugin().getDataFolder(), config.getString("Storage.File"));
+            try {
+                Parkour.setStorage(new FileStorage(file));
+            } catch (IOException ex) {
+                Utils.log("[Storage] Unable to load " + file + ": " + ex.getMessage(), 2);
+                Utils.log("[Storage] Defaulting to SQL...", 1);
+                engine = StorageEngine.SQL;
+            }
+        } else if (engine == StorageEngine.MEMORY) {
+            Parkour.setStorage(new MemoryStorage());
+        }
+
+        if (engine == StorageEngine.SQL) {
+            initiateSQL(false);
+        } else {
+            Utils.log("[Storage] Using " + engine.name().toLowerCase() + " storage.");
+            Parkour.getStorage().recreateAllCourses();
+        }
+
+        Parkour.setTimeWriter(new TimeWriter(config.getInt("SQL.TimeWriter.QueueSize"), config.getInt("SQL.TimeWriter.BatchSize")));
     }
 
     private static void initiateSQL(boolean forceSQLite) {
@@ -101,25 +139,55 @@ public class StartPlugin {
         // Only use MySQL if they have enabled it, configured it, and we aren't
         // forcing SQLite (MySQL failed)
         if (!forceSQLite && config.getBoolean("MySQL.Use") && !config.getString("MySQL.Host").equals("Host") ) {
-            database = new MySQL(config.getString("MySQL.Host"), config.getString("MySQL.Port"), config.getString("MySQL.Database"), config.getString("MySQL.User"), config.getString("MySQL.Password"));
+            MySQL mysql = new MySQL(config.getString("MySQL.Host"), config.getString("MySQL.Port"), config.getString("MySQL.Database"), config.getString("MySQL.User"), config.getString("MySQL.Password"));
+            if (config.getBoolean("MySQL.Replica.Use")) {
+                // a copy of the database in SQLite can stand in for a replica when testing
+                String sqliteFile = config.getString("MySQL.Replica.SQLiteFile");
+                Database replica = !sqliteFile.isEmpty() ? new SQLite(sqliteFile) :
+                        new MySQL(config.getString("MySQL.Replica.Host"), config.getString("MySQL.Replica.Port"), config.getString("MySQL.Replica.Database"), config.getString("MySQL.Replica.User"), config.getString("MySQL.Replica.Password"));
+                // a stand-in isn't replicating, so it's always treated as up to date rather than checked
+                boolean standIn = !sqliteFile.isEmpty() || config.getBoolean("MySQL.Replica.StandIn");
+                mysql.setReplica(replica, config.getLong("MySQL.Replica.MaxLagSeconds") * 1000, config.getLong("MySQL.Replica.LagCheckSeconds") * 1000, standIn);
+            }
+            database = mysql;
             DatabaseMethods.type = DatabaseType.MySQL;
         } else {
             database = new SQLite("parkour.db");
             DatabaseMethods.type = DatabaseType.SQLite;
         }
+        database.setCircuitBreaker(new CircuitBreaker(config.getInt("SQL.CircuitBreaker.FailureThreshold"),
+                config.getLong("SQL.CircuitBreaker.OpenSeconds") * 1000));
 
         try {
-            database.openConnection();
+            int maxSize = DatabaseMethods.type == DatabaseType.SQLite ? 1 : config.getInt("SQL.Pool.MaxSize");
+            database.initialisePool(maxSize,
+                    config.getLong("SQL.Pool.ConnectionTimeoutSeconds") * 1000,
+                    config.getLong("SQL.Pool.IdleTimeoutSeconds") * 1000,
+                    config.getLong("SQL.Pool.LeakDetectionSeconds") * 1000,
+                    config.getInt("SQL.Pool.StatementCacheSize"));
             Parkour.setDatabaseObj(database);
+            Parkour.setStorage(new SqlStorage());
             DatabaseMethods.setupTables();
-
-            if (updateExisting){
-                for (String courseName : Static.getCourses()){
-                    if (DatabaseMethods.getCourseId(courseName, false) == 0) {
-                        DatabaseMethods.insertCourse(courseName, CourseInfo.getCreator(courseName));
-                    }
-                }
+            DatabaseMethods.loadCourseIds();
+            DatabaseMethods.loadRankIndex();
+            for (Player player : Parkour.getPlugin().getServer().getOnlinePlayers()) {
+                DatabaseMethods.loadPlayer(player.getUniqueId(), player.getName());
+            }
+            DatabaseMethods.setJournal(new DatabaseJournal(new File(Parkour.getPlugin().getDataFolder(), "journal")));
+            // write anything saved while the database was unavailable, every 30 seconds
+            Bukkit.getScheduler().runTaskTimerAsynchronously(Parkour.getPlugin(), DatabaseMethods::recoverJournal, 100, 600);
+            // check once a minute whether a new day, week or month has started
+            Bukkit.getScheduler().runTaskTimerAsynchronously(Parkour.getPlugin(), DatabaseMethods::rollLeaderboards, 1200, 1200);
+
+            if (config.getBoolean("SQL.Compaction.Enabled")) {
+                long interval = Math.max(1, config.getLong("SQL.Compaction.IntervalMinutes")) * 1200;
+                Bukkit.getScheduler().runTaskTimerAsynchronously(Parkour.getPlugin(),
+                        new TimeCompactor(config.getInt("SQL.Compaction.KeepRunsPerPlayer"), config.getInt("SQL.Compaction.ChunkSize"), config.getBoolean("SQL.Compaction.Archive")),
+                        6000, interval);
             }
+
+            if (updateExisting)
+                DatabaseMethods.reconcileCourses(DatabaseMethods.getCourseCreators());
         } catch (Exception ex) {
             failedSQL(ex);
         }
@@ -234,22 +302,14 @@ public class StartPlugin {
 
     private static void convertToLatest() {
         try {
-            // Update existing checkpoints to use lowercase course names
-            Path path = Paths.get(Parkour.getPlugin().getDataFolder().getPath(), "checkpoints.yml");
+            // Update the existing courses to use lowercase course names, each course's own file is already lowercase
+            Path path = Paths.get(Parkour.getPlugin().getDataFolder().getPath(), "courses.yml");
             String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
             for (String course : Parkour.getParkourConfig().getAllCourses()) {
                 content = content.replace(course, course.toLowerCase());
             }
             Files.write(path, content.getBytes(StandardCharsets.UTF_8));
 
-            // Update the existing courses to use lowercase course names
-            path = Paths.get(Parkour.getPlugin().getDataFolder().getPath(), "courses.yml");
-            content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
-            for (String course : Parkour.getParkourConfig().getAllCourses()) {
-                content = content.replace(course, course.toLowerCase());
-            }
-            Files.write(path, content.getBytes(StandardCharsets.UTF_8));
-
             String[] lobbyData = getLobbyData("Lobby");
             List<String> linkedLobbyData = getLinkedLobbyData();
 
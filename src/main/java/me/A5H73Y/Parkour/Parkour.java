@@ -1,9 +1,12 @@
 package me.A5H73Y.Parkour;
 
+import me.A5H73Y.Parkour.API.ParkourAPI;
 import me.A5H73Y.Parkour.Other.Configurations;
 import me.A5H73Y.Parkour.Other.StartPlugin;
 import me.A5H73Y.Parkour.Other.Updater;
 import me.A5H73Y.Parkour.Player.PlayerMethods;
+import me.A5H73Y.Parkour.Storage.ParkourStorage;
+import me.A5H73Y.Parkour.Storage.TimeWriter;
 import me.A5H73Y.Parkour.Utilities.Settings;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
@@ -19,6 +22,8 @@ public class Parkour extends JavaPlugin {
 	private static Parkour instance;
 	private Configurations config;
 	private static Database database;
+	private static ParkourStorage storage;
+	private static TimeWriter timeWriter;
 	private static Economy economy;
 	private static Settings settings;
 
@@ -40,8 +45,11 @@ public class Parkour extends JavaPlugin {
 	public void onDisable() {
 		Utils.saveAllPlaying(PlayerMethods.getPlaying(), Static.PATH);
 		config.saveAll();
+		config.stopWriter();
 		getParkourConfig().reload();
-		database.closeConnection();
+		ParkourAPI.shutdown();
+		timeWriter.shutdown();
+		storage.shutdown();
 		Utils.log("Disabled Parkour v" + Static.getVersion());
 		instance = null;
 	}
@@ -50,6 +58,14 @@ public class Parkour extends JavaPlugin {
 		database = databaseObj;
 	}
 
+	public static void setStorage(ParkourStorage newStorage) {
+		storage = newStorage;
+	}
+
+	public static void setTimeWriter(TimeWriter newTimeWriter) {
+		timeWriter = newTimeWriter;
+	}
+
 	public static void setEconomy(Economy newEconomy) {
 		economy = newEconomy;
 	}
@@ -75,6 +91,14 @@ public class Parkour extends JavaPlugin {
 		return database;
 	}
 
+	public static ParkourStorage getStorage() {
+		return storage;
+	}
+
+	public static TimeWriter getTimeWriter() {
+		return timeWriter;
+	}
+
 	public static Economy getEconomy() {
 		return economy;
 	}
@@ -9,7 +9,7 @@ import me.A5H73Y.Parkour.Enums.ConversationType;
 import me.A5H73Y.Parkour.Other.Help;
 import me.A5H73Y.Parkour.Player.PlayerInfo;
 import me.A5H73Y.Parkour.Player.PlayerMethods;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+import me.A5H73Y.Parkour.Storage.TimeTransfer;
 import me.A5H73Y.Parkour.Utilities.Settings;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
@@ -346,18 +346,39 @@ class ParkourCommands implements CommandExecutor {
 
 						CourseMethods.getLeaderboards(args, player);
 
+					} else if (args[0].equalsIgnoreCase("rank")) {
+						if (!Utils.hasPermission(player, "Parkour.Basic", "Leaderboard"))
+							return false;
+
+						if (!Utils.validateArgs(player, args, 2))
+							return false;
+
+						CourseMethods.displayRank(args, player);
+
 					} else if (args[0].equalsIgnoreCase("sql")) {
 						if (!Utils.hasPermission(player, "Parkour.Admin"))
 							return false;
 
 						Help.displaySQL(player);
 
+					} else if (args[0].equalsIgnoreCase("export")) {
+						if (!Utils.hasPermission(player, "Parkour.Admin"))
+							return false;
+
+						TimeTransfer.exportCommand(args, player);
+
+					} else if (args[0].equalsIgnoreCase("import")) {
+						if (!Utils.hasPermission(player, "Parkour.Admin"))
+							return false;
+
+						TimeTransfer.importCommand(args, player);
+
 					} else if (args[0].equalsIgnoreCase("recreate")) {
 						if (!Utils.hasPermission(player, "Parkour.Admin"))
 							return false;
 
 						player.sendMessage(Static.getParkourString() + "Recreating courses...");
-						DatabaseMethods.recreateAllCourses();
+						Parkour.getStorage().recreateAllCourses();
 
 					} else if (args[0].equalsIgnoreCase("whitelist")) {
                         if (!Utils.hasPermission(player, "Parkour.Admin"))
@@ -502,6 +523,12 @@ class ParkourCommands implements CommandExecutor {
 					} else if (args[0].equalsIgnoreCase("backup")) {
 						ParkourConsoleCommands.startBackup();
 
+					} else if (args[0].equalsIgnoreCase("export")) {
+						TimeTransfer.exportCommand(args, sender);
+
+					} else if (args[0].equalsIgnoreCase("import")) {
+						TimeTransfer.importCommand(args, sender);
+
 					} else {
 						Utils.log("Unknown Command. Enter 'pa cmds' to display all console commands.");
 					}
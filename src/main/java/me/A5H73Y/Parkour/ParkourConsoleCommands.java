@@ -6,7 +6,6 @@ import org.bukkit.command.CommandSender;
 import me.A5H73Y.Parkour.Course.CourseMethods;
 import me.A5H73Y.Parkour.Other.Backup;
 import me.A5H73Y.Parkour.Other.Help;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
 import me.A5H73Y.Parkour.Utilities.Settings;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
@@ -23,7 +22,7 @@ class ParkourConsoleCommands {
 	}
 
 	public static void recreateCourses() {
-		DatabaseMethods.recreateAllCourses();
+		Parkour.getStorage().recreateAllCourses();
 	}
 
 	public static void setCourseMinimumlevel(String[] args, CommandSender sender) {
@@ -115,6 +114,8 @@ class ParkourConsoleCommands {
 		Utils.log("pa settings");
 		Utils.log("pa help (command)");
 		Utils.log("pa backup : Create a backup zip of the Parkour config folder");	
+		Utils.log("pa export times (course / all) [csv / ndjson]");
+		Utils.log("pa import times (file)");
 	}
 
     public static void setPlayerLevel(String[] args, CommandSender sender) {
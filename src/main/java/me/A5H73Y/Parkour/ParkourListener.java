@@ -332,8 +332,23 @@ public class ParkourListener implements Listener {
             event.setCancelled(true);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED)
+            PlayerInfo.preloadProfile(event.getUniqueId(), event.getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED)
+            PlayerInfo.discardPreload(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
+        PlayerInfo.loadProfile(event.getPlayer());
+        Parkour.getStorage().loadPlayer(event.getPlayer().getUniqueId(), event.getPlayer().getName());
+
         if (Parkour.getSettings().isDisplayWelcome())
             event.getPlayer().sendMessage(Utils.getTranslation("Event.Join")
                     .replace("%VERSION%", Static.getVersion().toString()));
@@ -353,6 +368,12 @@ public class ParkourListener implements Listener {
             PlayerMethods.playerLeave(event.getPlayer());
     }
 
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        Parkour.getStorage().evictPlayer(event.getPlayer().getName());
+        PlayerInfo.evictProfile(event.getPlayer());
+    }
+
     @EventHandler
     public void onTeleport(PlayerTeleportEvent event) {
         if (!PlayerMethods.isPlaying(event.getPlayer().getName()))
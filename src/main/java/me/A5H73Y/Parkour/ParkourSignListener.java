@@ -2,9 +2,9 @@ package me.A5H73Y.Parkour;
 
 import me.A5H73Y.Parkour.Course.CourseMethods;
 import me.A5H73Y.Parkour.Course.LobbyMethods;
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
 import me.A5H73Y.Parkour.Player.ParkourSession;
 import me.A5H73Y.Parkour.Player.PlayerMethods;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
 import me.A5H73Y.Parkour.Utilities.SignMethods;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
@@ -188,10 +188,17 @@ public class ParkourSignListener implements Listener {
 				event.getPlayer().sendMessage(Utils.getTranslation("Error.Unknown"));
 
 			} else if (Utils.delayPlayer(event.getPlayer(), 4, true)) {
-			    int amount = lines[3].isEmpty() ? 5 : Integer.valueOf(lines[3]);
+			    LeaderboardPeriod period = LeaderboardPeriod.fromName(lines[3]);
 
-                Utils.displayLeaderboard(event.getPlayer(),
-                        DatabaseMethods.getTopCourseResults(lines[2], amount), lines[2]);
+			    if (period != null) {
+			        Utils.displayLeaderboard(event.getPlayer(),
+			                Parkour.getStorage().getTopPeriodResults(lines[2], period, 5), lines[2] + " (" + period.getDisplayName() + ")");
+			    } else {
+			        int amount = lines[3].isEmpty() ? 5 : Integer.valueOf(lines[3]);
+
+			        Utils.displayLeaderboard(event.getPlayer(),
+			                Parkour.getStorage().getTopCourseResults(lines[2], amount), lines[2]);
+			    }
             }
 
 		} else {
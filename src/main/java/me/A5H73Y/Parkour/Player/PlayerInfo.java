@@ -1,27 +1,116 @@
 package me.A5H73Y.Parkour.Player;
 
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 import me.A5H73Y.Parkour.Events.PlayerParkourLevelEvent;
 import me.A5H73Y.Parkour.Parkour;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
 import me.A5H73Y.Parkour.Utilities.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
 /**
  * Centralize player's information retrieval and modifications
  * Massive thanks to horgeon for the inspiration of this change
+ *
+ * Online players' information is read from their {@link PlayerProfile}, changes are written to both the profile and the player's file.
  */
 public class PlayerInfo {
 
+    private static final Map<UUID, PlayerProfile> profiles = new ConcurrentHashMap<>();
+    private static final Map<UUID, FileConfiguration> preloaded = new ConcurrentHashMap<>();
+
+    /**
+     * Read the player's file before they join, so it isn't read on the main thread.
+     * Run asynchronously while the player is logging in.
+     * @param uuid
+     * @param playerName
+     */
+    public static void preloadProfile(UUID uuid, String playerName) {
+        preloaded.put(uuid, Parkour.getParkourConfig().readPlayerData(playerName));
+    }
+
+    /**
+     * The player was refused after their file was read, forget it.
+     * @param uuid
+     */
+    public static void discardPreload(UUID uuid) {
+        preloaded.remove(uuid);
+    }
+
+    /**
+     * Read the player's profile from their file and hold it until they quit.
+     * Run on the main thread when the player joins, the file is only read here if it wasn't preloaded, such as after a reload.
+     * @param player
+     */
+    public static void loadProfile(OfflinePlayer player) {
+        FileConfiguration data = preloaded.remove(player.getUniqueId());
+        if (data != null) {
+            Parkour.getParkourConfig().holdPlayerData(player.getName(), data);
+        } else {
+            Parkour.getParkourConfig().loadPlayerData(player.getName());
+        }
+        profiles.put(player.getUniqueId(), readProfile(player));
+    }
+
+    /**
+     * Load the profile of every online player, replacing any already held.
+     * Each profile is replaced in place, so a profile read meanwhile, such as from async chat, is never missing.
+     */
+    public static void loadProfiles() {
+        Set<UUID> online = new HashSet<>();
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadProfile(player);
+            online.add(player.getUniqueId());
+        }
+        profiles.keySet().retainAll(online);
+    }
+
+    /**
+     * Forget the player's profile once they quit, their changes have already been saved.
+     * @param player
+     */
+    public static void evictProfile(OfflinePlayer player) {
+        profiles.remove(player.getUniqueId());
+        Parkour.getParkourConfig().unloadPlayerData(player.getName());
+    }
+
+    /**
+     * Get the player's profile, read from their file if they're offline.
+     * @param player
+     * @return profile
+     */
+    public static PlayerProfile getProfile(OfflinePlayer player) {
+        PlayerProfile profile = profiles.get(player.getUniqueId());
+        return profile != null ? profile : readProfile(player);
+    }
+
+    private static PlayerProfile readProfile(OfflinePlayer player) {
+        return new PlayerProfile(player.getUniqueId(), player.getName(),
+                Parkour.getParkourConfig().getPlayerData(player.getName()));
+    }
+
+    /**
+     * Write a change to the player's file, saved in the background.
+     */
+    private static void set(OfflinePlayer player, String path, Object value) {
+        Parkour.getParkourConfig().editPlayerData(player.getName(), data -> data.set(path, value));
+    }
+
     /**
      * Retrieve the player's selected course.
      * @param player
      * @return selected course
      */
     public static String getSelected(OfflinePlayer player) {
-        return Parkour.getParkourConfig().getUsersData().getString("PlayerInfo." + player.getName() + ".Selected");
+        return getProfile(player).getSelected();
     }
 
     /**
@@ -30,13 +119,13 @@ public class PlayerInfo {
      * @param courseName
      */
     public static void setSelected(OfflinePlayer player, String courseName) {
-        Parkour.getParkourConfig().getUsersData().set("PlayerInfo." + player.getName() + ".Selected", courseName.toLowerCase());
-        Parkour.getParkourConfig().saveUsers();
+        getProfile(player).setSelected(courseName.toLowerCase());
+        set(player, "Selected", courseName.toLowerCase());
     }
 
     public static void setDelected(OfflinePlayer player) {
-        Parkour.getParkourConfig().getUsersData().set("PlayerInfo." + player.getName() + ".Selected", null);
-        Parkour.getParkourConfig().saveUsers();
+        getProfile(player).setSelected(null);
+        set(player, "Selected", null);
     }
 
     /**
@@ -63,7 +152,7 @@ public class PlayerInfo {
      * @return int
      */
     public static int getParkoins(OfflinePlayer player) {
-        return Parkour.getParkourConfig().getUsersData().getInt("PlayerInfo." + player.getName() + ".Parkoins");
+        return getProfile(player).getParkoins();
     }
 
     /**
@@ -72,8 +161,8 @@ public class PlayerInfo {
      * @param amount
      */
     public static void setParkoins(OfflinePlayer player, int amount) {
-        Parkour.getParkourConfig().getUsersData().set("PlayerInfo." + player.getName() + ".Parkoins", amount);
-        Parkour.getParkourConfig().saveUsers();
+        getProfile(player).setParkoins(amount);
+        set(player, "Parkoins", amount);
     }
 
     /**
@@ -82,7 +171,7 @@ public class PlayerInfo {
      * @return courseName
      */
     public static String getLastCompletedCourse(OfflinePlayer player) {
-        return Parkour.getParkourConfig().getUsersData().getString("PlayerInfo." + player.getName() + ".LastCompleted");
+        return getProfile(player).getLastCompleted();
     }
 
     /**
@@ -91,7 +180,7 @@ public class PlayerInfo {
      * @return courseName
      */
     public static String getLastPlayedCourse(OfflinePlayer player) {
-        return Parkour.getParkourConfig().getUsersData().getString("PlayerInfo." + player.getName() + ".LastPlayed");
+        return getProfile(player).getLastPlayed();
     }
 
     /**
@@ -100,7 +189,7 @@ public class PlayerInfo {
      * @return parkourLevel
      */
     public static int getParkourLevel(OfflinePlayer player) {
-        return Parkour.getParkourConfig().getUsersData().getInt("PlayerInfo." + player.getName() + ".Level");
+        return getProfile(player).getLevel();
     }
 
     /**
@@ -109,8 +198,8 @@ public class PlayerInfo {
      * @param level
      */
     public static void setParkourLevel(OfflinePlayer player, int level) {
-        Parkour.getParkourConfig().getUsersData().set("PlayerInfo." + player.getName() + ".Level", level);
-        Parkour.getParkourConfig().saveUsers();
+        getProfile(player).setLevel(level);
+        set(player, "Level", level);
 
         Bukkit.getServer().getPluginManager().callEvent(new PlayerParkourLevelEvent((Player) player, null, level));
     }
@@ -121,8 +210,8 @@ public class PlayerInfo {
      * @param courseName
      */
     public static void setLastCompletedCourse(OfflinePlayer player, String courseName) {
-        Parkour.getParkourConfig().getUsersData().set("PlayerInfo." + player.getName() + ".LastCompleted", courseName.toLowerCase());
-        Parkour.getParkourConfig().saveUsers();
+        getProfile(player).setLastCompleted(courseName.toLowerCase());
+        set(player, "LastCompleted", courseName.toLowerCase());
     }
 
     /**
@@ -131,8 +220,8 @@ public class PlayerInfo {
      * @param courseName
      */
     public static void setLastPlayedCourse(OfflinePlayer player, String courseName) {
-        Parkour.getParkourConfig().getUsersData().set("PlayerInfo." + player.getName() + ".LastPlayed", courseName.toLowerCase());
-        Parkour.getParkourConfig().saveUsers();
+        getProfile(player).setLastPlayed(courseName.toLowerCase());
+        set(player, "LastPlayed", courseName.toLowerCase());
     }
 
     /**
@@ -143,7 +232,7 @@ public class PlayerInfo {
      * @return
      */
     public static String getRank(OfflinePlayer player) {
-        String rank = Parkour.getParkourConfig().getUsersData().getString("PlayerInfo." + player.getName() + ".Rank");
+        String rank = getProfile(player).getRank();
         return rank == null ? Utils.getTranslation("Event.DefaultRank", false) : rank;
     }
 
@@ -153,8 +242,8 @@ public class PlayerInfo {
      * @param rank
      */
     public static void setRank(OfflinePlayer player, String rank) {
-        Parkour.getParkourConfig().getUsersData().set("PlayerInfo." + player.getName() + ".Rank", rank);
-        Parkour.getParkourConfig().saveUsers();
+        getProfile(player).setRank(rank);
+        set(player, "Rank", rank);
     }
     
     /**
@@ -164,8 +253,7 @@ public class PlayerInfo {
      * @return
      */
     public static long getLastRewardedTime(OfflinePlayer player, String courseName) {
-    	return Parkour.getParkourConfig().getUsersData()
-                .getLong("PlayerInfo." + player.getName() + ".LastRewarded." + courseName.toLowerCase(), 0);
+        return getProfile(player).getLastRewarded(courseName.toLowerCase());
     }
     
     /**
@@ -175,9 +263,8 @@ public class PlayerInfo {
      * @param rewardTime
      */
     public static void setLastRewardedTime(OfflinePlayer player, String courseName, long rewardTime) {
-    	Parkour.getParkourConfig().getUsersData()
-                .set("PlayerInfo." + player.getName() + ".LastRewarded." + courseName.toLowerCase(), rewardTime);
-    	Parkour.getParkourConfig().saveUsers();
+        getProfile(player).setLastRewarded(courseName.toLowerCase(), rewardTime);
+        set(player, "LastRewarded." + courseName.toLowerCase(), rewardTime);
     }
 
     /**
@@ -186,7 +273,7 @@ public class PlayerInfo {
      * @return
      */
     public static boolean hasPlayerInfo(OfflinePlayer player) {
-        return Parkour.getParkourConfig().getUsersData().contains("PlayerInfo." + player.getName());
+        return getProfile(player).isSaved();
     }
 
     /**
@@ -197,8 +284,13 @@ public class PlayerInfo {
      * @param player
      */
     public static void resetPlayer(OfflinePlayer player) {
-        Parkour.getParkourConfig().getUsersData().set("PlayerInfo." + player.getName(), null);
-        Parkour.getParkourConfig().saveUsers();
-        DatabaseMethods.deleteAllTimesForPlayer(player.getName());
+        Parkour.getParkourConfig().editPlayerData(player.getName(), data -> {
+            for (String key : data.getKeys(false)) {
+                data.set(key, null);
+            }
+        });
+        if (profiles.containsKey(player.getUniqueId()))
+            profiles.put(player.getUniqueId(), new PlayerProfile(player.getUniqueId(), player.getName(), null));
+        Parkour.getStorage().deleteAllTimesForPlayer(player.getName());
     }
 }
@@ -2,6 +2,7 @@ package me.A5H73Y.Parkour.Player;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Consumer;
 
 import me.A5H73Y.Parkour.Course.*;
 import me.A5H73Y.Parkour.Events.*;
@@ -10,7 +11,7 @@ import me.A5H73Y.Parkour.Enums.ParkourMode;
 import me.A5H73Y.Parkour.Other.Challenge;
 import me.A5H73Y.Parkour.Other.Constants;
 import me.A5H73Y.Parkour.Other.ParkourKit;
-import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+import me.A5H73Y.Parkour.Storage.FinishRecord;
 import me.A5H73Y.Parkour.Utilities.Static;
 import me.A5H73Y.Parkour.Utilities.Utils;
 
@@ -203,12 +204,18 @@ public class PlayerMethods {
         if (Parkour.getPlugin().getConfig().getBoolean("OnDie.SetXPBarToDeathCount"))
             player.setLevel(0);
         
+        // decided now, as the player's time may be saved before a delayed prize is given
+        final boolean completedBefore = Parkour.getPlugin().getConfig().getBoolean("OnFinish.Prize.Enabled")
+                && CourseInfo.getRewardOnce(courseName)
+                && Parkour.getStorage().hasPlayerCompleted(player.getName(), courseName);
+        Parkour.getStorage().markCompleted(player.getName(), courseName);
+
         final long delay = Parkour.getPlugin().getConfig().getLong("OnFinish.TeleportDelay");
         final boolean teleportAway = Parkour.getPlugin().getConfig().getBoolean("OnFinish.TeleportAway");
 
         if (delay <= 0) {
             loadInventory(player);
-            givePrize(player, courseName);
+            givePrize(player, courseName, completedBefore);
             if (teleportAway) {
                 courseCompleteLocation(player, courseName);
             }
@@ -216,7 +223,7 @@ public class PlayerMethods {
             Bukkit.getScheduler().scheduleSyncDelayedTask(Parkour.getPlugin(), new Runnable() {
                 public void run() {
                     loadInventory(player);
-                    givePrize(player, courseName);
+                    givePrize(player, courseName, completedBefore);
                     if (teleportAway) {
                         courseCompleteLocation(player, courseName);
                     }
@@ -224,11 +231,16 @@ public class PlayerMethods {
             }, delay);
         }
 
-        if (Parkour.getPlugin().getConfig().getBoolean("OnFinish.UpdatePlayerDatabaseTime")) {
-            DatabaseMethods.updateTime(courseName, player, timeTaken, session.getDeaths());
-        } else {
-            DatabaseMethods.insertTime(courseName, player.getName(), timeTaken, session.getDeaths());
-        }
+        FinishRecord record = new FinishRecord(courseName, player.getName(), timeTaken, session.getDeaths(),
+                Parkour.getPlugin().getConfig().getBoolean("OnFinish.UpdatePlayerDatabaseTime"));
+
+        Parkour.getTimeWriter().submit(record, new Consumer<Boolean>() {
+            @Override
+            public void accept(Boolean personalBest) {
+                if (personalBest && player.isOnline())
+                    player.sendMessage(Utils.getTranslation("Parkour.BestTime"));
+            }
+        });
 
         PlayerInfo.setLastCompletedCourse(player, courseName);
 
@@ -332,13 +344,13 @@ public class PlayerMethods {
      *
      * @param player
      * @param courseName
+     * @param completedBefore the player had completed the course before this finish
      */
-    private static void givePrize(Player player, String courseName) {
+    private static void givePrize(Player player, String courseName, boolean completedBefore) {
         if (!Parkour.getPlugin().getConfig().getBoolean("OnFinish.Prize.Enabled"))
             return;
 
-        if (CourseInfo.getRewardOnce(courseName) &&
-                DatabaseMethods.hasPlayerCompleted(player.getName(), courseName))
+        if (CourseInfo.getRewardOnce(courseName) && completedBefore)
             return;
 
         // Check how often prize can be rewarded
@@ -426,7 +438,6 @@ public class PlayerMethods {
         giveEconomyPrize(player, courseName);
 
         player.updateInventory();
-        Parkour.getParkourConfig().saveUsers();
     }
 
     /**
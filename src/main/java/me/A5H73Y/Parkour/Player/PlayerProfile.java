@@ -0,0 +1,140 @@
+package me.A5H73Y.Parkour.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * A player's Parkour information, read once from their file.
+ * Held by {@link PlayerInfo} while the player is online, so it can be read from any thread, including async chat.
+ */
+public class PlayerProfile {
+
+    private final UUID uuid;
+    private final String name;
+    private final Map<String, Long> lastRewarded = new ConcurrentHashMap<>();
+
+    private volatile boolean saved;
+    private volatile int level;
+    private volatile String rank;
+    private volatile int parkoins;
+    private volatile String selected;
+    private volatile String lastPlayed;
+    private volatile String lastCompleted;
+
+    /**
+     * @param uuid
+     * @param name
+     * @param section the player's data, null if they have none
+     */
+    public PlayerProfile(UUID uuid, String name, ConfigurationSection section) {
+        this.uuid = uuid;
+        this.name = name;
+
+        if (section == null)
+            return;
+
+        saved = true;
+        level = section.getInt("Level");
+        rank = section.getString("Rank");
+        parkoins = section.getInt("Parkoins");
+        selected = section.getString("Selected");
+        lastPlayed = section.getString("LastPlayed");
+        lastCompleted = section.getString("LastCompleted");
+
+        ConfigurationSection rewarded = section.getConfigurationSection("LastRewarded");
+        if (rewarded != null) {
+            for (String courseName : rewarded.getKeys(false)) {
+                lastRewarded.put(courseName, rewarded.getLong(courseName));
+            }
+        }
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if anything about the player has been saved
+     */
+    public boolean isSaved() {
+        return saved;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    void setLevel(int level) {
+        this.level = level;
+        saved = true;
+    }
+
+    /**
+     * @return the player's ParkourRank, null if they haven't achieved one
+     */
+    public String getRank() {
+        return rank;
+    }
+
+    void setRank(String rank) {
+        this.rank = rank;
+        saved = true;
+    }
+
+    public int getParkoins() {
+        return parkoins;
+    }
+
+    void setParkoins(int parkoins) {
+        this.parkoins = parkoins;
+        saved = true;
+    }
+
+    public String getSelected() {
+        return selected;
+    }
+
+    void setSelected(String selected) {
+        this.selected = selected;
+        saved = true;
+    }
+
+    public String getLastPlayed() {
+        return lastPlayed;
+    }
+
+    void setLastPlayed(String lastPlayed) {
+        this.lastPlayed = lastPlayed;
+        saved = true;
+    }
+
+    public String getLastCompleted() {
+        return lastCompleted;
+    }
+
+    void setLastCompleted(String lastCompleted) {
+        this.lastCompleted = lastCompleted;
+        saved = true;
+    }
+
+    /**
+     * @param courseName lowercase course name
+     * @return time the player was last rewarded for the course, 0 if never
+     */
+    public long getLastRewarded(String courseName) {
+        Long time = lastRewarded.get(courseName);
+        return time == null ? 0 : time;
+    }
+
+    void setLastRewarded(String courseName, long time) {
+        lastRewarded.put(courseName, time);
+        saved = true;
+    }
+}
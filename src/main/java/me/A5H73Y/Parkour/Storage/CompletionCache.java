@@ -0,0 +1,139 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The courses each online player has completed, as a bitset indexed by courseId.
+ * Loaded asynchronously when the player joins and evicted when they quit.
+ * Completions recorded before the load finishes are kept and merged with it.
+ */
+public class CompletionCache {
+
+    private final Map<String, Completions> players = new ConcurrentHashMap<>();
+
+    /**
+     * Track the player, call before loading their completions.
+     * @param playerName
+     */
+    public void track(String playerName) {
+        players.computeIfAbsent(playerName, name -> new Completions());
+    }
+
+    /**
+     * Merge the completions read from the database.
+     * Ignored if the player has quit since.
+     * @param playerName
+     * @param courseIds
+     */
+    public void load(String playerName, BitSet courseIds) {
+        Completions completions = players.get(playerName);
+        if (completions == null)
+            return;
+
+        synchronized (completions) {
+            completions.courses.or(courseIds);
+            completions.loaded = true;
+        }
+    }
+
+    /**
+     * @param playerName
+     * @return true if the player is tracked but their completions are still being read
+     */
+    public boolean isLoading(String playerName) {
+        Completions completions = players.get(playerName);
+        if (completions == null)
+            return false;
+
+        synchronized (completions) {
+            return !completions.loaded;
+        }
+    }
+
+    public void evict(String playerName) {
+        players.remove(playerName);
+    }
+
+    /**
+     * Check whether the player has completed the course.
+     * @param playerName
+     * @param courseId
+     * @return true or false, null if the player's completions haven't been loaded
+     */
+    public Boolean hasCompleted(String playerName, int courseId) {
+        Completions completions = players.get(playerName);
+        if (completions == null)
+            return null;
+
+        synchronized (completions) {
+            if (completions.courses.get(courseId))
+                return true;
+
+            return completions.loaded ? false : null;
+        }
+    }
+
+    /**
+     * Record a completion for a tracked player.
+     * @param playerName
+     * @param courseId
+     */
+    public void markCompleted(String playerName, int courseId) {
+        Completions completions = players.get(playerName);
+        if (completions == null)
+            return;
+
+        synchronized (completions) {
+            completions.courses.set(courseId);
+        }
+    }
+
+    /**
+     * The player's times on the course have been deleted.
+     * @param playerName
+     * @param courseId
+     */
+    public void clear(String playerName, int courseId) {
+        Completions completions = players.get(playerName);
+        if (completions == null)
+            return;
+
+        synchronized (completions) {
+            completions.courses.clear(courseId);
+        }
+    }
+
+    /**
+     * The player's times on every course have been deleted.
+     * @param playerName
+     */
+    public void clearPlayer(String playerName) {
+        Completions completions = players.get(playerName);
+        if (completions == null)
+            return;
+
+        synchronized (completions) {
+            completions.courses.clear();
+        }
+    }
+
+    /**
+     * Every time on the course has been deleted.
+     * @param courseId
+     */
+    public void clearCourse(int courseId) {
+        for (Completions completions : players.values()) {
+            synchronized (completions) {
+                completions.courses.clear(courseId);
+            }
+        }
+    }
+
+    private static class Completions {
+
+        private final BitSet courses = new BitSet();
+        private boolean loaded;
+    }
+}
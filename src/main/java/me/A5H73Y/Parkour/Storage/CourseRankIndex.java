@@ -0,0 +1,247 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import me.A5H73Y.Parkour.Other.TimeObject;
+
+/**
+ * Order-statistic index of each player's best time on a course.
+ * Backed by an indexable skip list, where every link also records how many entries it skips,
+ * so the rank of a player and the entry at any position are both found in O(log n).
+ */
+public class CourseRankIndex {
+
+    private static final int MAX_LEVEL = 32;
+
+    private final Node head = new Node(null, MAX_LEVEL);
+    private final Map<String, Node> players = new HashMap<>();
+
+    private int level = 1;
+    private int size;
+
+    /**
+     * Record a time for the player, kept only if it beats their current best.
+     * @param time
+     * @return true if this is now the player's best time
+     */
+    public synchronized boolean offer(TimeObject time) {
+        Node existing = players.get(time.getPlayer());
+
+        if (existing != null) {
+            if (existing.value.getTime() <= time.getTime())
+                return false;
+
+            delete(existing.value);
+        }
+
+        players.put(time.getPlayer(), insert(time));
+        return true;
+    }
+
+    /**
+     * Remove the player's time from the index.
+     * @param playerName
+     */
+    public synchronized void remove(String playerName) {
+        Node existing = players.remove(playerName);
+
+        if (existing != null)
+            delete(existing.value);
+    }
+
+    /**
+     * Get the player's position on the course.
+     * @param playerName
+     * @return rank starting at 1, 0 if the player hasn't completed the course
+     */
+    public synchronized int getRank(String playerName) {
+        Node existing = players.get(playerName);
+        if (existing == null)
+            return 0;
+
+        int rank = 0;
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && compare(node.next[i].value, existing.value) <= 0) {
+                rank += node.width[i];
+                node = node.next[i];
+            }
+            if (node == existing)
+                return rank;
+        }
+        return 0;
+    }
+
+    /**
+     * Get the player's best time.
+     * @param playerName
+     * @return best time, null if the player hasn't completed the course
+     */
+    public synchronized TimeObject getTime(String playerName) {
+        Node existing = players.get(playerName);
+        return existing == null ? null : existing.value;
+    }
+
+    /**
+     * Get the time at the given position.
+     * @param rank starting at 1
+     * @return time, null if out of range
+     */
+    public synchronized TimeObject getByRank(int rank) {
+        Node node = findByRank(rank);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Get the time at the given percentile, 0 being the fastest and 100 the slowest.
+     * @param percentile
+     * @return time, null if nobody has completed the course
+     */
+    public synchronized TimeObject getPercentile(double percentile) {
+        if (size == 0)
+            return null;
+
+        percentile = Math.max(0, Math.min(100, percentile));
+        int rank = Math.max(1, (int) Math.ceil(percentile / 100 * size));
+        return getByRank(rank);
+    }
+
+    /**
+     * Get a page of the leaderboard.
+     * @param page starting at 1
+     * @param pageSize
+     * @return times on the page, ordered by time
+     */
+    public synchronized List<TimeObject> getPage(int page, int pageSize) {
+        List<TimeObject> times = new ArrayList<>(pageSize);
+        Node node = findByRank((page - 1) * pageSize + 1);
+
+        while (node != null && times.size() < pageSize) {
+            times.add(node.value);
+            node = node.next[0];
+        }
+        return times;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private Node findByRank(int rank) {
+        if (rank < 1 || rank > size)
+            return null;
+
+        int traversed = 0;
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && traversed + node.width[i] <= rank) {
+                traversed += node.width[i];
+                node = node.next[i];
+            }
+            if (traversed == rank)
+                return node;
+        }
+        return null;
+    }
+
+    private Node insert(TimeObject value) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (node.next[i] != null && compare(node.next[i].value, value) < 0) {
+                rank[i] += node.width[i];
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                update[i].width[i] = size;
+            }
+            level = nodeLevel;
+        }
+
+        Node created = new Node(value, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            created.next[i] = update[i].next[i];
+            update[i].next[i] = created;
+
+            created.width[i] = update[i].width[i] - (rank[0] - rank[i]);
+            update[i].width[i] = (rank[0] - rank[i]) + 1;
+        }
+
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].width[i]++;
+        }
+
+        size++;
+        return created;
+    }
+
+    private void delete(TimeObject value) {
+        Node[] update = new Node[MAX_LEVEL];
+
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && compare(node.next[i].value, value) < 0) {
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        Node target = node.next[0];
+        if (target == null || compare(target.value, value) != 0)
+            return;
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].width[i] += target.width[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].width[i]--;
+            }
+        }
+
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+    }
+
+    private static int compare(TimeObject first, TimeObject second) {
+        int result = Long.compare(first.getTime(), second.getTime());
+        return result != 0 ? result : first.getPlayer().compareTo(second.getPlayer());
+    }
+
+    private static int randomLevel() {
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && ThreadLocalRandom.current().nextInt(4) == 0) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+
+    private static class Node {
+
+        private final TimeObject value;
+        private final Node[] next;
+        private final int[] width;
+
+        private Node(TimeObject value, int level) {
+            this.value = value;
+            this.next = new Node[level];
+            this.width = new int[level];
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory mapping between course names and their database courseId.
+ * Loaded once from the course table, then kept in sync as courses are inserted and deleted.
+ * Names which aren't in the database are remembered as misses, so they don't have to be looked up again.
+ */
+public class CourseRegistry {
+
+    private static final int MISSING = 0;
+
+    private final Map<String, Integer> courseIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> courseNames = new ConcurrentHashMap<>();
+
+    /**
+     * Replace the contents of the registry with the courses from the database.
+     * @param courses courseName to courseId
+     */
+    public void load(Map<String, Integer> courses) {
+        courseIds.clear();
+        courseNames.clear();
+
+        for (Map.Entry<String, Integer> entry : courses.entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Find the courseId of a course.
+     * @param courseName
+     * @return the courseId, 0 if the course is known to be missing, null if it hasn't been looked up
+     */
+    public Integer getCourseId(String courseName) {
+        return courseIds.get(courseName.toLowerCase());
+    }
+
+    /**
+     * Find the name of a course from its courseId.
+     * @param courseId
+     * @return courseName, null if unknown
+     */
+    public String getCourseName(int courseId) {
+        return courseNames.get(courseId);
+    }
+
+    public void register(String courseName, int courseId) {
+        if (courseId == MISSING) {
+            markMissing(courseName);
+            return;
+        }
+
+        courseName = courseName.toLowerCase();
+        courseIds.put(courseName, courseId);
+        courseNames.put(courseId, courseName);
+    }
+
+    public void markMissing(String courseName) {
+        Integer previous = courseIds.put(courseName.toLowerCase(), MISSING);
+
+        if (previous != null && previous != MISSING) {
+            courseNames.remove(previous);
+        }
+    }
+
+    /**
+     * Forget what is known about a course, so the next lookup goes to the database.
+     * @param courseName
+     */
+    public void forget(String courseName) {
+        Integer previous = courseIds.remove(courseName.toLowerCase());
+
+        if (previous != null && previous != MISSING) {
+            courseNames.remove(previous);
+        }
+    }
+
+    public int size() {
+        return courseNames.size();
+    }
+}
@@ -0,0 +1,199 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+/**
+ * Append-only file of the finishes and votes which couldn't be written while the database was unavailable.
+ * Each entry is a line prefixed with the CRC32 of its contents, so a partly written entry is detected and skipped.
+ *
+ * Replaying moves the journal aside first, so entries appended in the meantime go to a new file.
+ * The moved file is only deleted once every entry in it has been written, entries carry a unique id
+ * so an entry replayed twice is only recorded once.
+ */
+public class DatabaseJournal {
+
+    private static final String FINISH = "F";
+    private static final String VOTE = "V";
+
+    private final File journal;
+    private final File replaying;
+
+    /**
+     * @param folder where the journal is kept
+     */
+    public DatabaseJournal(File folder) {
+        if (!folder.exists())
+            folder.mkdirs();
+
+        this.journal = new File(folder, "journal.log");
+        this.replaying = new File(folder, "journal.replaying");
+    }
+
+    public void appendFinishes(List<FinishRecord> records) throws IOException {
+        List<String> entries = new ArrayList<>(records.size());
+
+        for (FinishRecord record : records) {
+            entries.add(join(FINISH, record.getRecordId(), record.getCourseName(), record.getPlayerName(), String.valueOf(record.getTime()),
+                    String.valueOf(record.getDeaths()), record.isUpdateTime() ? "1" : "0", String.valueOf(record.getCompletedAt())));
+        }
+        append(entries);
+    }
+
+    public void appendVote(String courseName, String playerName, boolean liked) throws IOException {
+        List<String> entries = new ArrayList<>(1);
+        entries.add(join(VOTE, UUID.randomUUID().toString(), courseName, playerName, liked ? "1" : "0"));
+        append(entries);
+    }
+
+    /**
+     * @return true if there are entries waiting to be replayed
+     */
+    public synchronized boolean hasEntries() {
+        return replaying.exists() || journal.length() > 0;
+    }
+
+    /**
+     * Read the entries to be replayed.
+     * A previous replay which didn't complete is read again, otherwise the journal is moved aside.
+     * @return the entries, null if there are none
+     * @throws IOException
+     */
+    public synchronized Entries beginReplay() throws IOException {
+        if (!replaying.exists()) {
+            if (journal.length() == 0)
+                return null;
+
+            if (!journal.renameTo(replaying))
+                throw new IOException("Unable to move " + journal + " for replay");
+        }
+
+        Entries entries = new Entries();
+        int corrupt = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(replaying), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+
+                if (!readEntry(line, entries))
+                    corrupt++;
+            }
+        }
+
+        if (corrupt > 0)
+            Utils.log("[SQL] Skipped " + corrupt + " damaged entries in " + replaying.getName() + ".", 1);
+
+        return entries;
+    }
+
+    /**
+     * Every entry read by {@link #beginReplay()} has been written to the database.
+     */
+    public synchronized void completeReplay() {
+        if (!replaying.delete() && replaying.exists())
+            Utils.log("[SQL] Unable to delete " + replaying + ", its entries will be replayed again.", 1);
+    }
+
+    private synchronized void append(List<String> entries) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (String entry : entries) {
+            lines.append(checksum(entry)).append(' ').append(entry).append('\n');
+        }
+
+        try (FileOutputStream out = new FileOutputStream(journal, true)) {
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+    }
+
+    private static boolean readEntry(String line, Entries entries) {
+        int separator = line.indexOf(' ');
+        if (separator < 0)
+            return false;
+
+        String entry = line.substring(separator + 1);
+        if (!line.substring(0, separator).equals(checksum(entry)))
+            return false;
+
+        String[] fields = entry.split("\t", -1);
+        try {
+            if (FINISH.equals(fields[0]) && fields.length == 8) {
+                entries.finishes.add(new FinishRecord(fields[1], fields[2], fields[3], Long.parseLong(fields[4]),
+                        Integer.parseInt(fields[5]), "1".equals(fields[6]), Long.parseLong(fields[7])));
+                return true;
+            }
+            if (VOTE.equals(fields[0]) && fields.length == 5) {
+                entries.votes.add(new Vote(fields[2], fields[3], "1".equals(fields[4])));
+                return true;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        return false;
+    }
+
+    private static String join(String... fields) {
+        return String.join("\t", fields);
+    }
+
+    private static String checksum(String entry) {
+        CRC32 crc = new CRC32();
+        crc.update(entry.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+
+    public static class Entries {
+
+        private final List<FinishRecord> finishes = new ArrayList<>();
+        private final List<Vote> votes = new ArrayList<>();
+
+        public List<FinishRecord> getFinishes() {
+            return finishes;
+        }
+
+        public List<Vote> getVotes() {
+            return votes;
+        }
+
+        public int size() {
+            return finishes.size() + votes.size();
+        }
+    }
+
+    public static class Vote {
+
+        private final String courseName;
+        private final String playerName;
+        private final boolean liked;
+
+        private Vote(String courseName, String playerName, boolean liked) {
+            this.courseName = courseName;
+            this.playerName = playerName;
+            this.liked = liked;
+        }
+
+        public String getCourseName() {
+            return courseName;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public boolean isLiked() {
+            return liked;
+        }
+    }
+}
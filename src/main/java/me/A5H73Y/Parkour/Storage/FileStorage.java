@@ -0,0 +1,266 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+/**
+ * {@link MemoryStorage} which keeps a log of every change, for servers without a database.
+ * Each change is a line prefixed with the CRC32 of its contents, in the same way as the {@link DatabaseJournal}.
+ *
+ * The changes themselves are logged rather than their effects, so replaying the log on start up recreates the same state.
+ * Once replayed, the log is rewritten to a snapshot of what is held and swapped in place of the old one,
+ * so deleted times and replaced personal bests don't build up.
+ */
+public class FileStorage extends MemoryStorage {
+
+    private static final String COURSE = "C";
+    private static final String DELETE_COURSE = "DC";
+    private static final String TIME = "T";
+    private static final String DELETE_TIMES = "DT";
+    private static final String DELETE_PLAYER_TIMES = "DP";
+    private static final String DELETE_ALL_PLAYER_TIMES = "DA";
+    private static final String VOTE = "V";
+
+    private final File file;
+    private FileOutputStream out;
+
+    /**
+     * Replay and compact the log, creating it if it doesn't exist.
+     * @param file where the changes are logged
+     * @throws IOException if the log couldn't be read or rewritten
+     */
+    public FileStorage(File file) throws IOException {
+        this.file = file;
+
+        File folder = file.getAbsoluteFile().getParentFile();
+        if (!folder.exists())
+            folder.mkdirs();
+
+        if (file.exists())
+            replay();
+
+        compact();
+        out = new FileOutputStream(file, true);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (out == null)
+            return;
+
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        out = null;
+    }
+
+    @Override
+    public synchronized void insertCourse(String courseName, String playerName) {
+        super.insertCourse(courseName, playerName);
+        append(join(COURSE, courseName, playerName == null ? "" : playerName));
+    }
+
+    @Override
+    public synchronized void deleteCourse(String courseName) {
+        super.deleteCourse(courseName);
+        append(join(DELETE_COURSE, courseName));
+    }
+
+    @Override
+    public synchronized Set<FinishRecord> insertTimes(List<FinishRecord> records) {
+        Set<FinishRecord> personalBests = super.insertTimes(records);
+        append(records);
+        return personalBests;
+    }
+
+    @Override
+    public synchronized int importTimes(List<FinishRecord> records) {
+        int imported = super.importTimes(records);
+        append(records);
+        return imported;
+    }
+
+    @Override
+    public synchronized void deleteCourseTimes(String courseName) {
+        super.deleteCourseTimes(courseName);
+        append(join(DELETE_TIMES, courseName));
+    }
+
+    @Override
+    public synchronized void deletePlayerCourseTimes(String playerName, String courseName) {
+        super.deletePlayerCourseTimes(playerName, courseName);
+        append(join(DELETE_PLAYER_TIMES, courseName, playerName));
+    }
+
+    @Override
+    public synchronized void deleteAllTimesForPlayer(String playerName) {
+        super.deleteAllTimesForPlayer(playerName);
+        append(join(DELETE_ALL_PLAYER_TIMES, playerName));
+    }
+
+    @Override
+    public synchronized void insertVote(String courseName, String playerName, boolean liked) {
+        super.insertVote(courseName, playerName, liked);
+        append(join(VOTE, courseName, playerName, liked ? "1" : "0"));
+    }
+
+    private void append(List<FinishRecord> records) {
+        String[] entries = new String[records.size()];
+
+        for (int i = 0; i < records.size(); i++) {
+            entries[i] = toEntry(records.get(i));
+        }
+        append(entries);
+    }
+
+    /**
+     * Changes made before the log is open are being replayed, so aren't logged again.
+     */
+    private void append(String... entries) {
+        if (out == null || entries.length == 0)
+            return;
+
+        try {
+            out.write(toLines(entries).getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            Utils.log("[Storage] Unable to write to " + file + ": " + e.getMessage(), 2);
+        }
+    }
+
+    private void replay() throws IOException {
+        int corrupt = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty())
+                    continue;
+
+                if (!replayEntry(line))
+                    corrupt++;
+            }
+        }
+
+        if (corrupt > 0)
+            Utils.log("[Storage] Skipped " + corrupt + " damaged entries in " + file.getName() + ".", 1);
+    }
+
+    private boolean replayEntry(String line) {
+        int separator = line.indexOf(' ');
+        if (separator < 0)
+            return false;
+
+        String entry = line.substring(separator + 1);
+        if (!line.substring(0, separator).equals(checksum(entry)))
+            return false;
+
+        String[] fields = entry.split("\t", -1);
+        try {
+            switch (fields[0]) {
+                case COURSE:
+                    super.insertCourse(fields[1], fields[2].isEmpty() ? null : fields[2]);
+                    return true;
+                case DELETE_COURSE:
+                    super.deleteCourse(fields[1]);
+                    return true;
+                case TIME:
+                    if (fields.length != 8)
+                        return false;
+
+                    List<FinishRecord> records = new ArrayList<>(1);
+                    records.add(new FinishRecord(fields[1], fields[2], fields[3], Long.parseLong(fields[4]),
+                            Integer.parseInt(fields[5]), "1".equals(fields[6]), Long.parseLong(fields[7])));
+                    super.insertTimes(records);
+                    return true;
+                case DELETE_TIMES:
+                    super.deleteCourseTimes(fields[1]);
+                    return true;
+                case DELETE_PLAYER_TIMES:
+                    super.deletePlayerCourseTimes(fields[2], fields[1]);
+                    return true;
+                case DELETE_ALL_PLAYER_TIMES:
+                    super.deleteAllTimesForPlayer(fields[1]);
+                    return true;
+                case VOTE:
+                    super.insertVote(fields[1], fields[2], "1".equals(fields[3]));
+                    return true;
+                default:
+                    return false;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ignored) {
+        }
+        return false;
+    }
+
+    /**
+     * Write what is held to a new file, then move it over the log.
+     */
+    private void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".tmp");
+
+        try (final FileOutputStream snapshotOut = new FileOutputStream(compacted)) {
+            writeSnapshot(new Snapshot() {
+                @Override
+                public void course(String courseName, String author) throws IOException {
+                    write(join(COURSE, courseName, author == null ? "" : author));
+                }
+
+                @Override
+                public void time(FinishRecord record) throws IOException {
+                    write(toEntry(record));
+                }
+
+                @Override
+                public void vote(String courseName, String playerName, boolean liked) throws IOException {
+                    write(join(VOTE, courseName, playerName, liked ? "1" : "0"));
+                }
+
+                private void write(String entry) throws IOException {
+                    snapshotOut.write(toLines(entry).getBytes(StandardCharsets.UTF_8));
+                }
+            });
+            snapshotOut.getFD().sync();
+        }
+
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String toEntry(FinishRecord record) {
+        return join(TIME, record.getRecordId(), record.getCourseName(), record.getPlayerName(), String.valueOf(record.getTime()),
+                String.valueOf(record.getDeaths()), record.isUpdateTime() ? "1" : "0", String.valueOf(record.getCompletedAt()));
+    }
+
+    private static String toLines(String... entries) {
+        StringBuilder lines = new StringBuilder();
+        for (String entry : entries) {
+            lines.append(checksum(entry)).append(' ').append(entry).append('\n');
+        }
+        return lines.toString();
+    }
+
+    private static String join(String... fields) {
+        return String.join("\t", fields);
+    }
+
+    private static String checksum(String entry) {
+        CRC32 crc = new CRC32();
+        crc.update(entry.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+}
@@ -0,0 +1,79 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.UUID;
+
+/**
+ * A completed course run waiting to be written to the database.
+ */
+public class FinishRecord {
+
+    private final String recordId;
+    private final String courseName;
+    private final String playerName;
+    private final long time;
+    private final int deaths;
+    private final boolean updateTime;
+    private final long completedAt;
+
+    /**
+     * @param courseName
+     * @param playerName
+     * @param time milliseconds taken
+     * @param deaths
+     * @param updateTime only keep the player's best time for the course
+     */
+    public FinishRecord(String courseName, String playerName, long time, int deaths, boolean updateTime) {
+        this(UUID.randomUUID().toString(), courseName, playerName, time, deaths, updateTime, System.currentTimeMillis());
+    }
+
+    /**
+     * Recreate a finish which has already been recorded, such as one read back from the {@link DatabaseJournal}.
+     * @param recordId unique id of the finish, so it's only ever inserted once
+     * @param courseName
+     * @param playerName
+     * @param time milliseconds taken
+     * @param deaths
+     * @param updateTime only keep the player's best time for the course
+     * @param completedAt epoch milliseconds
+     */
+    public FinishRecord(String recordId, String courseName, String playerName, long time, int deaths, boolean updateTime, long completedAt) {
+        this.recordId = recordId;
+        this.courseName = courseName;
+        this.playerName = playerName;
+        this.time = time;
+        this.deaths = deaths;
+        this.updateTime = updateTime;
+        this.completedAt = completedAt;
+    }
+
+    public String getRecordId() {
+        return recordId;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public int getDeaths() {
+        return deaths;
+    }
+
+    public boolean isUpdateTime() {
+        return updateTime;
+    }
+
+    /**
+     * @return when the course was finished, in epoch milliseconds
+     */
+    public long getCompletedAt() {
+        return completedAt;
+    }
+}
@@ -0,0 +1,170 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import me.A5H73Y.Parkour.Other.TimeObject;
+
+/**
+ * Write-through cache of the fastest times for each course.
+ * A course's leaderboard is loaded from the database the first time it's requested,
+ * then kept up to date as new times are inserted. Deleting times invalidates the course,
+ * so it's loaded again on the next request.
+ *
+ * Every change to a course moves its generation on, so a leaderboard read from the database
+ * while times were being written is never trusted.
+ */
+public class LeaderboardCache {
+
+    public static final int MAX_RESULTS = 20;
+
+    private final Map<Integer, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Get the fastest times for a course.
+     * @param courseId
+     * @param limit
+     * @return up to limit times, null if the course hasn't been loaded
+     */
+    public List<TimeObject> getTopResults(int courseId, int limit) {
+        Leaderboard leaderboard = leaderboards.get(courseId);
+        if (leaderboard == null)
+            return null;
+
+        synchronized (leaderboard) {
+            return new ArrayList<>(leaderboard.times.subList(0, Math.min(limit, leaderboard.times.size())));
+        }
+    }
+
+    /**
+     * Take the generation before reading the leaderboard from the database,
+     * then pass it to {@link #load(int, List, long)}.
+     * @param courseId
+     * @return generation
+     */
+    public long getGeneration(int courseId) {
+        return generation(courseId).get();
+    }
+
+    /**
+     * Populate the course's leaderboard from the database.
+     * Ignored if the course's times have changed since the generation was taken.
+     * @param courseId
+     * @param times the fastest times, ordered by time
+     * @param generation the generation before the times were read
+     */
+    public void load(int courseId, List<TimeObject> times, long generation) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            if (current.get() == generation) {
+                leaderboards.put(courseId, new Leaderboard(times, generation));
+            }
+        }
+    }
+
+    /**
+     * Announce that times are about to be written for the course.
+     * @param courseId
+     * @return the write generation, to be passed to {@link #insert(int, TimeObject, boolean, long)}
+     */
+    public long beginWrite(int courseId) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            return current.incrementAndGet();
+        }
+    }
+
+    /**
+     * Add a newly committed time to the course's leaderboard.
+     * If the leaderboard was read while the time was being written it may already contain it, so it's discarded instead.
+     * @param courseId
+     * @param time
+     * @param replacePlayer the player's previous times have been replaced by this one
+     * @param writeGeneration from {@link #beginWrite(int)}
+     */
+    public void insert(int courseId, TimeObject time, boolean replacePlayer, long writeGeneration) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            current.incrementAndGet();
+
+            Leaderboard leaderboard = leaderboards.get(courseId);
+            if (leaderboard == null)
+                return;
+
+            if (leaderboard.loadedGeneration >= writeGeneration) {
+                leaderboards.remove(courseId);
+                return;
+            }
+
+            synchronized (leaderboard) {
+                leaderboard.insert(time, replacePlayer);
+            }
+        }
+    }
+
+    /**
+     * Discard the course's leaderboard, it will be loaded again when next requested.
+     * @param courseId
+     */
+    public void invalidate(int courseId) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            current.incrementAndGet();
+            leaderboards.remove(courseId);
+        }
+    }
+
+    /**
+     * Discard every leaderboard.
+     */
+    public void invalidateAll() {
+        for (Integer courseId : generations.keySet()) {
+            invalidate(courseId);
+        }
+    }
+
+    private AtomicLong generation(int courseId) {
+        return generations.computeIfAbsent(courseId, id -> new AtomicLong());
+    }
+
+    private static class Leaderboard {
+
+        private final List<TimeObject> times;
+        private final long loadedGeneration;
+
+        private Leaderboard(List<TimeObject> times, long loadedGeneration) {
+            this.times = new ArrayList<>(times.subList(0, Math.min(MAX_RESULTS, times.size())));
+            this.loadedGeneration = loadedGeneration;
+        }
+
+        private void insert(TimeObject time, boolean replacePlayer) {
+            if (replacePlayer) {
+                Iterator<TimeObject> iterator = times.iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().getPlayer().equals(time.getPlayer()))
+                        iterator.remove();
+                }
+            }
+
+            int position = times.size();
+            while (position > 0 && times.get(position - 1).getTime() > time.getTime()) {
+                position--;
+            }
+
+            if (position < MAX_RESULTS) {
+                times.add(position, time);
+                if (times.size() > MAX_RESULTS)
+                    times.remove(times.size() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import me.A5H73Y.Parkour.Course.CourseInfo;
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
+import me.A5H73Y.Parkour.Other.TimeObject;
+import me.A5H73Y.Parkour.Utilities.Static;
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+/**
+ * Storage held entirely in memory, for testing and small servers.
+ * Everything is lost when the server stops, unless it's also written elsewhere as {@link FileStorage} does.
+ *
+ * Leaderboards are sorted when requested, which is fine for the amount of times a small server records.
+ */
+public class MemoryStorage implements ParkourStorage {
+
+    private static final Comparator<Run> FASTEST = new Comparator<Run>() {
+        @Override
+        public int compare(Run first, Run second) {
+            return Long.compare(first.time, second.time);
+        }
+    };
+
+    private final Map<String, CourseData> courses = new HashMap<>();
+    private final Set<String> recordIds = new HashSet<>();
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public void loadPlayer(UUID uuid, String playerName) {
+    }
+
+    @Override
+    public void evictPlayer(String playerName) {
+    }
+
+    @Override
+    public synchronized void insertCourse(String courseName, String playerName) {
+        if (!courses.containsKey(courseName))
+            courses.put(courseName, new CourseData(playerName));
+    }
+
+    @Override
+    public synchronized boolean hasCourse(String courseName) {
+        return courses.containsKey(courseName);
+    }
+
+    @Override
+    public synchronized void deleteCourse(String courseName) {
+        CourseData course = courses.remove(courseName);
+        if (course != null)
+            forgetRecords(course.runs);
+    }
+
+    @Override
+    public void recreateAllCourses() {
+        int changes = 0;
+        for (String courseName : Static.getCourses()) {
+            if (!hasCourse(courseName)) {
+                insertCourse(courseName, CourseInfo.getCreator(courseName));
+                changes++;
+            }
+        }
+        Utils.log("Process complete. Courses recreated: " + changes);
+    }
+
+    @Override
+    public synchronized Set<FinishRecord> insertTimes(List<FinishRecord> records) {
+        Set<FinishRecord> personalBests = new HashSet<>();
+
+        for (FinishRecord record : records) {
+            insertTime(record, personalBests);
+        }
+        return personalBests;
+    }
+
+    @Override
+    public synchronized int importTimes(List<FinishRecord> records) {
+        int imported = 0;
+
+        for (FinishRecord record : records) {
+            if (insertTime(record, new HashSet<FinishRecord>()))
+                imported++;
+        }
+        return imported;
+    }
+
+    /**
+     * @param personalBests populated with the finish if it beat the player's previous best time and only their best is kept
+     * @return true if the time was recorded
+     */
+    private boolean insertTime(FinishRecord record, Set<FinishRecord> personalBests) {
+        CourseData course = courses.get(record.getCourseName());
+        if (course == null || recordIds.contains(record.getRecordId()))
+            return false;
+
+        boolean previousBest = course.bests.getTime(record.getPlayerName()) != null;
+        boolean personalBest = course.bests.offer(new TimeObject(record.getPlayerName(), record.getTime(), record.getDeaths()));
+        course.completed.add(record.getPlayerName());
+
+        if (record.isUpdateTime()) {
+            if (!personalBest)
+                return false;
+
+            if (previousBest)
+                personalBests.add(record);
+            removeRuns(course, record.getPlayerName());
+        }
+
+        recordIds.add(record.getRecordId());
+        course.runs.add(new Run(record));
+        return true;
+    }
+
+    @Override
+    public synchronized void markCompleted(String playerName, String courseName) {
+        CourseData course = courses.get(courseName);
+        if (course != null)
+            course.completed.add(playerName);
+    }
+
+    @Override
+    public synchronized List<TimeObject> getTopCourseResults(String courseName, int limit) {
+        limit = limit < 1 ? 1 : limit > LeaderboardCache.MAX_RESULTS ? LeaderboardCache.MAX_RESULTS : limit;
+        CourseData course = courses.get(courseName);
+
+        return course == null ? new ArrayList<TimeObject>() : getFastest(course.runs, null, 0, false, limit);
+    }
+
+    @Override
+    public synchronized List<TimeObject> getTopPeriodResults(String courseName, LeaderboardPeriod period, int limit) {
+        limit = limit < 1 ? 1 : limit > PeriodLeaderboards.MAX_RESULTS ? PeriodLeaderboards.MAX_RESULTS : limit;
+        CourseData course = courses.get(courseName);
+
+        return course == null ? new ArrayList<TimeObject>() :
+                getFastest(course.runs, null, period.getStart(System.currentTimeMillis()), true, limit);
+    }
+
+    @Override
+    public synchronized List<TimeObject> getTopPlayerCourseResults(String playerName, String courseName, int limit) {
+        limit = limit < 1 ? 1 : limit > 20 ? 20 : limit;
+        CourseData course = courses.get(courseName);
+
+        return course == null ? new ArrayList<TimeObject>() : getFastest(course.runs, playerName, 0, false, limit);
+    }
+
+    /**
+     * @param playerName only include the player's times, null for everyone
+     * @param completedSince only include times completed since, in epoch milliseconds
+     * @param bestPerPlayer only include each player's fastest time
+     */
+    private static List<TimeObject> getFastest(List<Run> runs, String playerName, long completedSince, boolean bestPerPlayer, int limit) {
+        List<Run> matching = new ArrayList<>();
+        for (Run run : runs) {
+            if ((playerName == null || run.player.equals(playerName)) && run.completedAt >= completedSince)
+                matching.add(run);
+        }
+        Collections.sort(matching, FASTEST);
+
+        Set<String> players = new HashSet<>();
+        List<TimeObject> times = new ArrayList<>();
+        for (Run run : matching) {
+            if (times.size() >= limit)
+                break;
+
+            if (!bestPerPlayer || players.add(run.player))
+                times.add(new TimeObject(run.player, run.time, run.deaths));
+        }
+        return times;
+    }
+
+    @Override
+    public synchronized void deleteCourseTimes(String courseName) {
+        CourseData course = courses.get(courseName);
+        if (course == null)
+            return;
+
+        forgetRecords(course.runs);
+        course.runs.clear();
+        course.bests = new CourseRankIndex();
+        course.completed.clear();
+    }
+
+    @Override
+    public synchronized void deletePlayerCourseTimes(String playerName, String courseName) {
+        CourseData course = courses.get(courseName);
+        if (course == null)
+            return;
+
+        removeRuns(course, playerName);
+        course.bests.remove(playerName);
+        course.completed.remove(playerName);
+    }
+
+    @Override
+    public synchronized void deleteAllTimesForPlayer(String playerName) {
+        for (CourseData course : courses.values()) {
+            removeRuns(course, playerName);
+            course.bests.remove(playerName);
+            course.completed.remove(playerName);
+        }
+    }
+
+    private void removeRuns(CourseData course, String playerName) {
+        Iterator<Run> runs = course.runs.iterator();
+        while (runs.hasNext()) {
+            Run run = runs.next();
+            if (run.player.equals(playerName)) {
+                recordIds.remove(run.recordId);
+                runs.remove();
+            }
+        }
+    }
+
+    private void forgetRecords(List<Run> runs) {
+        for (Run run : runs) {
+            recordIds.remove(run.recordId);
+        }
+    }
+
+    @Override
+    public boolean isRankingLoaded() {
+        return true;
+    }
+
+    @Override
+    public synchronized TimeObject getPlayerBestTime(String courseName, String playerName) {
+        CourseData course = courses.get(courseName);
+        return course == null ? null : course.bests.getTime(playerName);
+    }
+
+    @Override
+    public synchronized int getPlayerRank(String courseName, String playerName) {
+        CourseData course = courses.get(courseName);
+        return course == null ? 0 : course.bests.getRank(playerName);
+    }
+
+    @Override
+    public synchronized int getRankedPlayerCount(String courseName) {
+        CourseData course = courses.get(courseName);
+        return course == null ? 0 : course.bests.size();
+    }
+
+    @Override
+    public synchronized TimeObject getPercentileTime(String courseName, double percentile) {
+        CourseData course = courses.get(courseName);
+        return course == null ? null : course.bests.getPercentile(percentile);
+    }
+
+    @Override
+    public synchronized List<TimeObject> getLeaderboardPage(String courseName, int page, int pageSize) {
+        CourseData course = courses.get(courseName);
+        return course == null ? new ArrayList<TimeObject>() : course.bests.getPage(Math.max(1, page), pageSize);
+    }
+
+    @Override
+    public synchronized boolean hasPlayerCompleted(String playerName, String courseName) {
+        CourseData course = courses.get(courseName);
+        return course == null || course.completed.contains(playerName);
+    }
+
+    @Override
+    public synchronized void insertVote(String courseName, String playerName, boolean liked) {
+        CourseData course = courses.get(courseName);
+        if (course != null && !course.votes.containsKey(playerName))
+            course.votes.put(playerName, liked);
+    }
+
+    @Override
+    public synchronized double getVotePercent(String courseName) {
+        CourseData course = courses.get(courseName);
+        if (course == null || course.votes.isEmpty())
+            return 0;
+
+        int likes = 0;
+        for (boolean liked : course.votes.values()) {
+            if (liked)
+                likes++;
+        }
+        return (likes * 1.0 / course.votes.size()) * 100;
+    }
+
+    @Override
+    public synchronized boolean hasVoted(String courseName, String playerName) {
+        CourseData course = courses.get(courseName);
+        return course == null || course.votes.containsKey(playerName);
+    }
+
+    /**
+     * Describe everything held, in an order which recreates it when passed back in.
+     * @param snapshot
+     */
+    protected synchronized void writeSnapshot(Snapshot snapshot) throws IOException {
+        for (Map.Entry<String, CourseData> entry : courses.entrySet()) {
+            CourseData course = entry.getValue();
+            snapshot.course(entry.getKey(), course.author);
+
+            for (Run run : course.runs) {
+                snapshot.time(new FinishRecord(run.recordId, entry.getKey(), run.player, run.time, run.deaths, false, run.completedAt));
+            }
+            for (Map.Entry<String, Boolean> vote : course.votes.entrySet()) {
+                snapshot.vote(entry.getKey(), vote.getKey(), vote.getValue());
+            }
+        }
+    }
+
+    protected interface Snapshot {
+
+        void course(String courseName, String author) throws IOException;
+
+        void time(FinishRecord record) throws IOException;
+
+        void vote(String courseName, String playerName, boolean liked) throws IOException;
+    }
+
+    private static class CourseData {
+
+        private final String author;
+        private final List<Run> runs = new ArrayList<>();
+        private final Set<String> completed = new HashSet<>();
+        private final Map<String, Boolean> votes = new HashMap<>();
+        private CourseRankIndex bests = new CourseRankIndex();
+
+        private CourseData(String author) {
+            this.author = author;
+        }
+    }
+
+    private static class Run {
+
+        private final String recordId;
+        private final String player;
+        private final long time;
+        private final int deaths;
+        private final long completedAt;
+
+        private Run(FinishRecord record) {
+            this.recordId = record.getRecordId();
+            this.player = record.getPlayerName();
+            this.time = record.getTime();
+            this.deaths = record.getDeaths();
+            this.completedAt = record.getCompletedAt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import me.A5H73Y.Parkour.Enums.DatabaseType;
+
+/**
+ * A single step of the database schema.
+ * Migrations are applied once, in order of version, but must be safe to run again
+ * against a database which already has the change, as older installs have no record of what was applied.
+ */
+public abstract class Migration {
+
+    private final int version;
+    private final String description;
+
+    protected Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    /**
+     * Apply the change to the schema.
+     * @param connection
+     * @param type engine in use
+     * @throws SQLException
+     */
+    public abstract void apply(Connection connection, DatabaseType type) throws SQLException;
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    protected static void execute(Connection connection, String... statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Create the index unless one with the same name already exists on the table.
+     * @param connection
+     * @param table
+     * @param index
+     * @param columns
+     * @throws SQLException
+     */
+    protected static void createIndex(Connection connection, String table, String index, String columns) throws SQLException {
+        if (!hasIndex(connection, table, index))
+            execute(connection, "CREATE INDEX " + index + " ON " + table + " (" + columns + ");");
+    }
+
+    protected static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME")))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param connection
+     * @param table
+     * @param column
+     * @return the declared type of the column, null if it doesn't exist
+     * @throws SQLException
+     */
+    protected static String getColumnType(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, table, null)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME")))
+                    return rs.getString("TYPE_NAME");
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
+import me.A5H73Y.Parkour.Other.TimeObject;
+
+/**
+ * Where courses, times, votes and personal bests are kept.
+ * The engine is chosen by Storage.Engine in the config, see {@link me.A5H73Y.Parkour.Enums.StorageEngine}.
+ *
+ * Implementations are used from the main thread and the {@link TimeWriter} thread at the same time.
+ */
+public interface ParkourStorage {
+
+    /**
+     * Release anything held by the engine, called when the plugin is disabled.
+     */
+    void shutdown();
+
+    /**
+     * The player has joined, load anything needed to answer questions about them quickly.
+     * @param uuid
+     * @param playerName
+     */
+    void loadPlayer(UUID uuid, String playerName);
+
+    /**
+     * The player has left, forget anything loaded for them.
+     * @param playerName
+     */
+    void evictPlayer(String playerName);
+
+    // Courses
+
+    void insertCourse(String courseName, String playerName);
+
+    boolean hasCourse(String courseName);
+
+    /**
+     * Remove the course along with its times and votes.
+     * @param courseName
+     */
+    void deleteCourse(String courseName);
+
+    /**
+     * Add any courses which exist in the config but not in storage.
+     */
+    void recreateAllCourses();
+
+    // Times
+
+    /**
+     * Record a batch of finishes.
+     * When the finish should only keep the player's best time, the existing times are replaced only if it has been beaten.
+     * @param records
+     * @return the finishes which beat the player's previous best time
+     */
+    Set<FinishRecord> insertTimes(List<FinishRecord> records);
+
+    /**
+     * Record times from an export, times which have already been recorded are skipped by their recordId.
+     * @param records
+     * @return amount of times recorded
+     * @throws Exception if the times couldn't be recorded
+     */
+    int importTimes(List<FinishRecord> records) throws Exception;
+
+    /**
+     * Record that the player has completed the course, before the time has been written.
+     * @param playerName
+     * @param courseName
+     */
+    void markCompleted(String playerName, String courseName);
+
+    List<TimeObject> getTopCourseResults(String courseName, int limit);
+
+    /**
+     * @return the fastest players during the current period, one time per player
+     */
+    List<TimeObject> getTopPeriodResults(String courseName, LeaderboardPeriod period, int limit);
+
+    List<TimeObject> getTopPlayerCourseResults(String playerName, String courseName, int limit);
+
+    void deleteCourseTimes(String courseName);
+
+    void deletePlayerCourseTimes(String playerName, String courseName);
+
+    void deleteAllTimesForPlayer(String playerName);
+
+    // Personal bests
+
+    /**
+     * @return false while the personal bests are still being loaded
+     */
+    boolean isRankingLoaded();
+
+    /**
+     * @return best time, null if the player hasn't completed the course
+     */
+    TimeObject getPlayerBestTime(String courseName, String playerName);
+
+    /**
+     * @return rank starting at 1, 0 if the player hasn't completed the course
+     */
+    int getPlayerRank(String courseName, String playerName);
+
+    /**
+     * @return amount of players who have completed the course
+     */
+    int getRankedPlayerCount(String courseName);
+
+    /**
+     * @param percentile 0 being the fastest, 100 the slowest
+     * @return time, null if nobody has completed the course
+     */
+    TimeObject getPercentileTime(String courseName, double percentile);
+
+    /**
+     * @param page starting at 1
+     * @return a page of the course's leaderboard, one best time per player
+     */
+    List<TimeObject> getLeaderboardPage(String courseName, int page, int pageSize);
+
+    boolean hasPlayerCompleted(String playerName, String courseName);
+
+    // Votes
+
+    void insertVote(String courseName, String playerName, boolean liked);
+
+    /**
+     * @return percentage of votes which liked the course
+     */
+    double getVotePercent(String courseName);
+
+    boolean hasVoted(String courseName, String playerName);
+}
@@ -0,0 +1,244 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
+import me.A5H73Y.Parkour.Other.TimeObject;
+
+/**
+ * The fastest players on each course for the current day, week and month.
+ * Each course and period has a bucket holding the best time of its top players,
+ * loaded from the database the first time it's requested and kept up to date as times are inserted.
+ * When a period ends its buckets are dropped and the next period starts empty, nothing is recalculated.
+ *
+ * Changes are tracked with a generation per course, in the same way as {@link LeaderboardCache}.
+ */
+public class PeriodLeaderboards {
+
+    public static final int MAX_RESULTS = LeaderboardCache.MAX_RESULTS;
+
+    private final Map<LeaderboardPeriod, Window> windows = new EnumMap<>(LeaderboardPeriod.class);
+    private final Map<Integer, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public PeriodLeaderboards() {
+        long now = System.currentTimeMillis();
+
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            windows.put(period, new Window(period.getStart(now)));
+        }
+    }
+
+    /**
+     * Start a new period for any which have ended.
+     * @param now epoch milliseconds
+     */
+    public void roll(long now) {
+        for (Map.Entry<LeaderboardPeriod, Window> entry : windows.entrySet()) {
+            Window window = entry.getValue();
+            long start = entry.getKey().getStart(now);
+
+            synchronized (window) {
+                if (window.start != start) {
+                    window.start = start;
+                    window.buckets.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param period
+     * @return the start of the current period, in epoch milliseconds
+     */
+    public long getStart(LeaderboardPeriod period) {
+        Window window = windows.get(period);
+
+        synchronized (window) {
+            return window.start;
+        }
+    }
+
+    /**
+     * Get the fastest players on the course for the period.
+     * @param courseId
+     * @param period
+     * @param limit
+     * @return up to limit times, one per player, null if the course hasn't been loaded
+     */
+    public List<TimeObject> getTopResults(int courseId, LeaderboardPeriod period, int limit) {
+        Bucket bucket = windows.get(period).buckets.get(courseId);
+        if (bucket == null)
+            return null;
+
+        synchronized (bucket) {
+            return new ArrayList<>(bucket.times.subList(0, Math.min(limit, bucket.times.size())));
+        }
+    }
+
+    /**
+     * Take the generation before reading the times from the database.
+     * @param courseId
+     * @return generation
+     */
+    public long getGeneration(int courseId) {
+        return generation(courseId).get();
+    }
+
+    /**
+     * Populate the course's bucket for the period from the database.
+     * Ignored if the course's times have changed, or the period has ended, since the read started.
+     * @param courseId
+     * @param period
+     * @param start the start of the period the times were read for
+     * @param times every time since the start, ordered by time
+     * @param generation the generation before the times were read
+     * @return the fastest players from the times, one time per player
+     */
+    public List<TimeObject> load(int courseId, LeaderboardPeriod period, long start, List<TimeObject> times, long generation) {
+        Window window = windows.get(period);
+        AtomicLong current = generation(courseId);
+
+        Bucket bucket = new Bucket(generation);
+        for (TimeObject time : times) {
+            bucket.offer(time);
+        }
+
+        synchronized (current) {
+            synchronized (window) {
+                if (current.get() == generation && window.start == start)
+                    window.buckets.put(courseId, bucket);
+            }
+        }
+
+        synchronized (bucket) {
+            return new ArrayList<>(bucket.times);
+        }
+    }
+
+    /**
+     * Announce that times are about to be written for the course.
+     * @param courseId
+     * @return the write generation, to be passed to {@link #insert(int, TimeObject, long, long)}
+     */
+    public long beginWrite(int courseId) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            return current.incrementAndGet();
+        }
+    }
+
+    /**
+     * Offer a newly committed time to each period it was completed in.
+     * @param courseId
+     * @param time
+     * @param completedAt epoch milliseconds
+     * @param writeGeneration from {@link #beginWrite(int)}
+     */
+    public void insert(int courseId, TimeObject time, long completedAt, long writeGeneration) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            current.incrementAndGet();
+
+            for (Window window : windows.values()) {
+                synchronized (window) {
+                    if (completedAt < window.start)
+                        continue;
+
+                    Bucket bucket = window.buckets.get(courseId);
+                    if (bucket == null)
+                        continue;
+
+                    if (bucket.loadedGeneration >= writeGeneration) {
+                        window.buckets.remove(courseId);
+                        continue;
+                    }
+
+                    synchronized (bucket) {
+                        bucket.offer(time);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Discard the course's buckets, they will be loaded again when next requested.
+     * @param courseId
+     */
+    public void invalidate(int courseId) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            current.incrementAndGet();
+
+            for (Window window : windows.values()) {
+                window.buckets.remove(courseId);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (Integer courseId : generations.keySet()) {
+            invalidate(courseId);
+        }
+    }
+
+    private AtomicLong generation(int courseId) {
+        return generations.computeIfAbsent(courseId, id -> new AtomicLong());
+    }
+
+    private static class Window {
+
+        private final Map<Integer, Bucket> buckets = new ConcurrentHashMap<>();
+        private long start;
+
+        private Window(long start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * The best time of the fastest players, ordered by time.
+     * A player's best time can only improve during a period, so once they've been pushed out
+     * they can only return with a faster time, which is offered to the bucket when it's set.
+     */
+    private static class Bucket {
+
+        private final List<TimeObject> times = new ArrayList<>();
+        private final long loadedGeneration;
+
+        private Bucket(long loadedGeneration) {
+            this.loadedGeneration = loadedGeneration;
+        }
+
+        private void offer(TimeObject time) {
+            for (int i = 0; i < times.size(); i++) {
+                if (times.get(i).getPlayer().equals(time.getPlayer())) {
+                    if (times.get(i).getTime() <= time.getTime())
+                        return;
+
+                    times.remove(i);
+                    break;
+                }
+            }
+
+            int position = times.size();
+            while (position > 0 && times.get(position - 1).getTime() > time.getTime()) {
+                position--;
+            }
+
+            if (position < MAX_RESULTS) {
+                times.add(position, time);
+                if (times.size() > MAX_RESULTS)
+                    times.remove(times.size() - 1);
+            }
+        }
+    }
+}
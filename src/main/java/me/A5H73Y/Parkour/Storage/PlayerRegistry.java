@@ -0,0 +1,63 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory mapping between player names and their database playerId.
+ * Players are registered as they join, once their UUID has been bound to a playerId,
+ * other names are registered the first time they're looked up.
+ */
+public class PlayerRegistry {
+
+    private final Map<String, Integer> playerIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> playerNames = new ConcurrentHashMap<>();
+
+    /**
+     * Find the playerId of a player.
+     * @param playerName
+     * @return the playerId, null if it hasn't been looked up
+     */
+    public Integer getPlayerId(String playerName) {
+        return playerIds.get(playerName);
+    }
+
+    /**
+     * Find the name of a player from their playerId.
+     * @param playerId
+     * @return playerName, null if unknown
+     */
+    public String getPlayerName(int playerId) {
+        return playerNames.get(playerId);
+    }
+
+    /**
+     * Register the player's current name, replacing the name they were previously known by.
+     * @param playerName
+     * @param playerId
+     */
+    public synchronized void register(String playerName, int playerId) {
+        String previousName = playerNames.put(playerId, playerName);
+        if (previousName != null && !previousName.equals(playerName))
+            playerIds.remove(previousName, playerId);
+
+        Integer previousId = playerIds.put(playerName, playerId);
+        if (previousId != null && previousId != playerId)
+            playerNames.remove(previousId, playerName);
+    }
+
+    /**
+     * Forget what is known about a player, so the next lookup goes to the database.
+     * @param playerName
+     */
+    public synchronized void forget(String playerName) {
+        Integer previous = playerIds.remove(playerName);
+
+        if (previous != null)
+            playerNames.remove(previous, playerName);
+    }
+
+    public int size() {
+        return playerIds.size();
+    }
+}
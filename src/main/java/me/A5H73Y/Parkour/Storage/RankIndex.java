@@ -0,0 +1,160 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import me.A5H73Y.Parkour.Other.TimeObject;
+
+/**
+ * Rank index of every course, holding each player's best time.
+ * Built from the time table at startup on a background thread; changes made while it's being built
+ * are recorded and replayed onto the new index before it replaces the live one.
+ */
+public class RankIndex {
+
+    private volatile Map<Integer, CourseRankIndex> courses = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    private List<Change> pending;
+
+    /**
+     * Start recording changes, call before reading the time table.
+     */
+    public synchronized void beginRebuild() {
+        pending = new ArrayList<>();
+        loaded = false;
+    }
+
+    /**
+     * Replace the live index with the one read from the time table.
+     * @param rebuilt courseId to index
+     */
+    public synchronized void completeRebuild(Map<Integer, CourseRankIndex> rebuilt) {
+        Map<Integer, CourseRankIndex> replacement = new ConcurrentHashMap<>(rebuilt);
+
+        if (pending != null) {
+            for (Change change : pending) {
+                change.apply(replacement);
+            }
+        }
+
+        courses = replacement;
+        pending = null;
+        loaded = true;
+    }
+
+    /**
+     * Abandon a rebuild which failed, the live index is kept.
+     */
+    public synchronized void cancelRebuild() {
+        pending = null;
+    }
+
+    /**
+     * @return true once the index has been built from the database
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Get the index for a course.
+     * @param courseId
+     * @return index, null if no times have been recorded for the course
+     */
+    public CourseRankIndex getCourse(int courseId) {
+        return courses.get(courseId);
+    }
+
+    /**
+     * A time has been committed for the player.
+     * @param courseId
+     * @param time
+     */
+    public void offer(final int courseId, final TimeObject time) {
+        record(new Change() {
+            @Override
+            public void apply(Map<Integer, CourseRankIndex> target) {
+                target.computeIfAbsent(courseId, id -> new CourseRankIndex()).offer(time);
+            }
+        });
+    }
+
+    /**
+     * The player's times on the course have been deleted.
+     * @param courseId
+     * @param playerName
+     */
+    public void removePlayer(final int courseId, final String playerName) {
+        record(new Change() {
+            @Override
+            public void apply(Map<Integer, CourseRankIndex> target) {
+                CourseRankIndex index = target.get(courseId);
+                if (index != null)
+                    index.remove(playerName);
+            }
+        });
+    }
+
+    /**
+     * The player's times on every course have been deleted.
+     * @param playerName
+     */
+    public void removePlayer(final String playerName) {
+        record(new Change() {
+            @Override
+            public void apply(Map<Integer, CourseRankIndex> target) {
+                for (CourseRankIndex index : target.values()) {
+                    index.remove(playerName);
+                }
+            }
+        });
+    }
+
+    /**
+     * The player has changed their name, their times are kept under the new one.
+     * @param oldName
+     * @param newName
+     */
+    public void renamePlayer(final String oldName, final String newName) {
+        record(new Change() {
+            @Override
+            public void apply(Map<Integer, CourseRankIndex> target) {
+                for (CourseRankIndex index : target.values()) {
+                    TimeObject time = index.getTime(oldName);
+                    if (time == null)
+                        continue;
+
+                    index.remove(oldName);
+                    index.offer(new TimeObject(newName, time.getTime(), time.getDeaths()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Every time on the course has been deleted.
+     * @param courseId
+     */
+    public void removeCourse(final int courseId) {
+        record(new Change() {
+            @Override
+            public void apply(Map<Integer, CourseRankIndex> target) {
+                target.remove(courseId);
+            }
+        });
+    }
+
+    private synchronized void record(Change change) {
+        change.apply(courses);
+
+        if (pending != null)
+            pending.add(change);
+    }
+
+    private interface Change {
+        void apply(Map<Integer, CourseRankIndex> target);
+    }
+}
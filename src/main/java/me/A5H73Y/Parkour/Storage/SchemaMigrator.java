@@ -0,0 +1,314 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Enums.DatabaseType;
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+/**
+ * Brings the database schema up to date.
+ * The version reached is recorded in the schema_version table, each migration above it is applied in order.
+ * To change the schema, add a new migration with the next version; never edit one which has been released.
+ */
+public class SchemaMigrator {
+
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        MIGRATIONS.add(new Migration(1, "Create course, time and vote tables") {
+            @Override
+            public void apply(Connection connection, DatabaseType type) throws SQLException {
+                String autoIncrement = type == DatabaseType.MySQL ? " AUTO_INCREMENT" : "";
+
+                execute(connection,
+                        "CREATE TABLE IF NOT EXISTS course (courseId INTEGER PRIMARY KEY" + autoIncrement + ", name VARCHAR(15) NOT NULL UNIQUE, author VARCHAR(20) NOT NULL, created TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL);",
+                        "CREATE TABLE IF NOT EXISTS time (timeId INTEGER PRIMARY KEY" + autoIncrement + ", courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, time DECIMAL(13,0) NOT NULL, deaths INT(5) NOT NULL, FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE);",
+                        "CREATE TABLE IF NOT EXISTS vote (courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, liked BIT NOT NULL, PRIMARY KEY (courseId, player), FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE);");
+            }
+        });
+
+        MIGRATIONS.add(new Migration(2, "Create personal_best table") {
+            @Override
+            public void apply(Connection connection, DatabaseType type) throws SQLException {
+                execute(connection,
+                        "CREATE TABLE IF NOT EXISTS personal_best (courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, time DECIMAL(13,0) NOT NULL, deaths INT(5) NOT NULL, PRIMARY KEY (courseId, player), FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE);");
+
+                try (PreparedStatement check = connection.prepareStatement("SELECT 1 FROM personal_best LIMIT 1;")) {
+                    if (check.executeQuery().next())
+                        return;
+                }
+
+                // the deaths recorded are the fewest from the player's runs matching their best time
+                execute(connection,
+                        "INSERT INTO personal_best (courseId, player, time, deaths) " +
+                        "SELECT t.courseId, t.player, t.time, MIN(t.deaths) FROM time t " +
+                        "JOIN (SELECT courseId, player, MIN(time) AS time FROM time GROUP BY courseId, player) b " +
+                        "ON t.courseId = b.courseId AND t.player = b.player AND t.time = b.time " +
+                        "GROUP BY t.courseId, t.player, t.time;");
+            }
+        });
+
+        MIGRATIONS.add(new Migration(3, "Store times as BIGINT") {
+            @Override
+            public void apply(Connection connection, DatabaseType type) throws SQLException {
+                if (type == DatabaseType.MySQL) {
+                    execute(connection,
+                            "ALTER TABLE time MODIFY time BIGINT NOT NULL;",
+                            "ALTER TABLE personal_best MODIFY time BIGINT NOT NULL;");
+                    return;
+                }
+
+                // SQLite can't change the type of a column, so the tables are rebuilt
+                if (!isBigInt(getColumnType(connection, "time", "time"))) {
+                    execute(connection,
+                            "CREATE TABLE time_new (timeId INTEGER PRIMARY KEY, courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, time BIGINT NOT NULL, deaths INT(5) NOT NULL, FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE);",
+                            "INSERT INTO time_new (timeId, courseId, player, time, deaths) SELECT timeId, courseId, player, time, deaths FROM time;",
+                            "DROP TABLE time;",
+                            "ALTER TABLE time_new RENAME TO time;");
+                }
+
+                if (!isBigInt(getColumnType(connection, "personal_best", "time"))) {
+                    execute(connection,
+                            "CREATE TABLE personal_best_new (courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, time BIGINT NOT NULL, deaths INT(5) NOT NULL, PRIMARY KEY (courseId, player), FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE);",
+                            "INSERT INTO personal_best_new (courseId, player, time, deaths) SELECT courseId, player, time, deaths FROM personal_best;",
+                            "DROP TABLE personal_best;",
+                            "ALTER TABLE personal_best_new RENAME TO personal_best;");
+                }
+            }
+
+            private boolean isBigInt(String columnType) {
+                return columnType != null && columnType.toUpperCase().startsWith("BIGINT");
+            }
+        });
+
+        MIGRATIONS.add(new Migration(4, "Add leaderboard and vote indexes") {
+            @Override
+            public void apply(Connection connection, DatabaseType type) throws SQLException {
+                // covers the course leaderboard, read in order of time without touching the table
+                createIndex(connection, "time", "time_course_time", "courseId, time, player, deaths");
+                // covers a player's times on a course
+                createIndex(connection, "time", "time_course_player", "courseId, player, time");
+                createIndex(connection, "vote", "vote_course_liked", "courseId, liked");
+            }
+        });
+
+        MIGRATIONS.add(new Migration(5, "Reference players by playerId") {
+            @Override
+            public void apply(Connection connection, DatabaseType type) throws SQLException {
+                String autoIncrement = type == DatabaseType.MySQL ? " AUTO_INCREMENT" : "";
+
+                // the UUID of existing players is unknown, it's bound when they next join
+                execute(connection,
+                        "CREATE TABLE IF NOT EXISTS player (playerId INTEGER PRIMARY KEY" + autoIncrement + ", uuid VARCHAR(36) UNIQUE, name VARCHAR(20) NOT NULL);");
+                createIndex(connection, "player", "player_name", "name");
+
+                List<String> names = new ArrayList<>();
+                for (String table : new String[] {"time", "vote", "personal_best"}) {
+                    if (getColumnType(connection, table, "player") != null)
+                        names.add("SELECT player FROM " + table);
+                }
+
+                if (names.isEmpty())
+                    return;
+
+                execute(connection,
+                        "INSERT INTO player (name) SELECT DISTINCT n.player FROM (" + String.join(" UNION ", names) + ") n " +
+                        "WHERE n.player NOT IN (SELECT name FROM player);");
+
+                if (type == DatabaseType.MySQL) {
+                    alterMySQL(connection);
+                } else {
+                    rebuildSQLite(connection);
+                }
+
+                createIndex(connection, "time", "time_course_time", "courseId, time, playerId, deaths");
+                createIndex(connection, "time", "time_course_player", "courseId, playerId, time");
+                createIndex(connection, "vote", "vote_course_liked", "courseId, liked");
+            }
+
+            private void alterMySQL(Connection connection) throws SQLException {
+                for (String table : new String[] {"time", "vote", "personal_best"}) {
+                    if (getColumnType(connection, table, "player") == null)
+                        continue;
+
+                    if (getColumnType(connection, table, "playerId") == null)
+                        execute(connection, "ALTER TABLE " + table + " ADD COLUMN playerId INTEGER NULL AFTER courseId;");
+
+                    execute(connection, "UPDATE " + table + " t JOIN player p ON p.name = t.player SET t.playerId = p.playerId;");
+                }
+
+                if (getColumnType(connection, "time", "player") != null) {
+                    // the indexes are recreated on playerId in the same statement,
+                    // dropping them on their own fails (1553) as they back the courseId foreign key
+                    StringBuilder alter = new StringBuilder("ALTER TABLE time ");
+                    if (hasIndex(connection, "time", "time_course_time"))
+                        alter.append("DROP INDEX time_course_time, ");
+                    if (hasIndex(connection, "time", "time_course_player"))
+                        alter.append("DROP INDEX time_course_player, ");
+
+                    alter.append("DROP COLUMN player, MODIFY playerId INTEGER NOT NULL, ")
+                            .append("ADD INDEX time_course_time (courseId, time, playerId, deaths), ")
+                            .append("ADD INDEX time_course_player (courseId, playerId, time), ")
+                            .append("ADD FOREIGN KEY (playerId) REFERENCES player(playerId) ON DELETE CASCADE;");
+                    execute(connection, alter.toString());
+                }
+
+                for (String table : new String[] {"vote", "personal_best"}) {
+                    if (getColumnType(connection, table, "player") == null)
+                        continue;
+
+                    execute(connection,
+                            "ALTER TABLE " + table + " DROP PRIMARY KEY, DROP COLUMN player, MODIFY playerId INTEGER NOT NULL, " +
+                            "ADD PRIMARY KEY (courseId, playerId), ADD FOREIGN KEY (playerId) REFERENCES player(playerId) ON DELETE CASCADE;");
+                }
+            }
+
+            // SQLite can't drop or change a key column, so the tables are rebuilt
+            private void rebuildSQLite(Connection connection) throws SQLException {
+                if (getColumnType(connection, "time", "player") != null) {
+                    execute(connection,
+                            "CREATE TABLE time_new (timeId INTEGER PRIMARY KEY, courseId INTEGER NOT NULL, playerId INTEGER NOT NULL, time BIGINT NOT NULL, deaths INT(5) NOT NULL, " +
+                            "FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE, FOREIGN KEY (playerId) REFERENCES player(playerId) ON DELETE CASCADE);",
+                            "INSERT INTO time_new (timeId, courseId, playerId, time, deaths) SELECT t.timeId, t.courseId, p.playerId, t.time, t.deaths FROM time t JOIN player p ON p.name = t.player;",
+                            "DROP TABLE time;",
+                            "ALTER TABLE time_new RENAME TO time;");
+                }
+
+                if (getColumnType(connection, "vote", "player") != null) {
+                    execute(connection,
+                            "CREATE TABLE vote_new (courseId INTEGER NOT NULL, playerId INTEGER NOT NULL, liked BIT NOT NULL, PRIMARY KEY (courseId, playerId), " +
+                            "FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE, FOREIGN KEY (playerId) REFERENCES player(playerId) ON DELETE CASCADE);",
+                            "INSERT INTO vote_new (courseId, playerId, liked) SELECT v.courseId, p.playerId, v.liked FROM vote v JOIN player p ON p.name = v.player;",
+                            "DROP TABLE vote;",
+                            "ALTER TABLE vote_new RENAME TO vote;");
+                }
+
+                if (getColumnType(connection, "personal_best", "player") != null) {
+                    execute(connection,
+                            "CREATE TABLE personal_best_new (courseId INTEGER NOT NULL, playerId INTEGER NOT NULL, time BIGINT NOT NULL, deaths INT(5) NOT NULL, PRIMARY KEY (courseId, playerId), " +
+                            "FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE, FOREIGN KEY (playerId) REFERENCES player(playerId) ON DELETE CASCADE);",
+                            "INSERT INTO personal_best_new (courseId, playerId, time, deaths) SELECT b.courseId, p.playerId, b.time, b.deaths FROM personal_best b JOIN player p ON p.name = b.player;",
+                            "DROP TABLE personal_best;",
+                            "ALTER TABLE personal_best_new RENAME TO personal_best;");
+                }
+            }
+        });
+
+        MIGRATIONS.add(new Migration(6, "Record when each time was completed") {
+            @Override
+            public void apply(Connection connection, DatabaseType type) throws SQLException {
+                // existing times are left at 0, so they only appear on the all-time leaderboards
+                if (getColumnType(connection, "time", "completed_at") == null)
+                    execute(connection, "ALTER TABLE time ADD COLUMN completed_at BIGINT NOT NULL DEFAULT 0;");
+
+                // covers the times of a course since the start of a period
+                createIndex(connection, "time", "time_course_completed", "courseId, completed_at");
+            }
+        });
+
+        MIGRATIONS.add(new Migration(7, "Create course_stats table") {
+            @Override
+            public void apply(Connection connection, DatabaseType type) throws SQLException {
+                // totals of the runs removed from the time table by compaction
+                execute(connection,
+                        "CREATE TABLE IF NOT EXISTS course_stats (courseId INTEGER NOT NULL PRIMARY KEY, compacted_runs BIGINT NOT NULL DEFAULT 0, compacted_deaths BIGINT NOT NULL DEFAULT 0, " +
+                        "FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE);");
+            }
+        });
+
+        MIGRATIONS.add(new Migration(8, "Identify each time by its finish record") {
+            @Override
+            public void apply(Connection connection, DatabaseType type) throws SQLException {
+                // existing times are left without an id, which the unique index allows any amount of
+                if (getColumnType(connection, "time", "recordId") == null)
+                    execute(connection, "ALTER TABLE time ADD COLUMN recordId VARCHAR(36) NULL;");
+
+                // a finish replayed from the journal more than once is only inserted the first time
+                if (!hasIndex(connection, "time", "time_record"))
+                    execute(connection, "CREATE UNIQUE INDEX time_record ON time (recordId);");
+            }
+        });
+    }
+
+    private final DatabaseType type;
+
+    public SchemaMigrator(DatabaseType type) {
+        this.type = type;
+    }
+
+    /**
+     * Apply every migration newer than the database's version.
+     * Each migration is recorded as soon as it's applied, so a failure resumes from the same point on the next startup.
+     * @return the version the database is now at
+     * @throws SQLException if a migration failed
+     */
+    public int migrate() throws SQLException {
+        List<Migration> migrations = new ArrayList<>(MIGRATIONS);
+        Collections.sort(migrations, (first, second) -> Integer.compare(first.getVersion(), second.getVersion()));
+
+        return Parkour.getDatabaseObj().write(connection -> {
+            Migration.execute(connection,
+                    "CREATE TABLE IF NOT EXISTS schema_version (version INTEGER NOT NULL PRIMARY KEY, description VARCHAR(100) NOT NULL, applied TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL);");
+
+            int current = getVersion(connection);
+
+            for (Migration migration : migrations) {
+                if (migration.getVersion() <= current)
+                    continue;
+
+                Utils.log("[SQL] Migrating database to version " + migration.getVersion() + ": " + migration.getDescription());
+                apply(connection, migration);
+                current = migration.getVersion();
+            }
+            return current;
+        });
+    }
+
+    /**
+     * @return the newest version known to the plugin
+     */
+    public static int getLatestVersion() {
+        int latest = 0;
+        for (Migration migration : MIGRATIONS) {
+            latest = Math.max(latest, migration.getVersion());
+        }
+        return latest;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        // MySQL commits each DDL statement implicitly, SQLite can apply the whole migration atomically
+        connection.setAutoCommit(false);
+
+        try {
+            migration.apply(connection, type);
+
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO schema_version (version, description) VALUES (?, ?);")) {
+                ps.setInt(1, migration.getVersion());
+                ps.setString(2, migration.getDescription());
+                ps.executeUpdate();
+            }
+            connection.commit();
+
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Migration to version " + migration.getVersion() + " failed: " + e.getMessage(), e);
+
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static int getVersion(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT MAX(version) AS version FROM schema_version;");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt("version") : 0;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
+import me.A5H73Y.Parkour.Other.TimeObject;
+import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+
+/**
+ * Storage in SQLite or MySQL, through {@link DatabaseMethods}.
+ */
+public class SqlStorage implements ParkourStorage {
+
+    @Override
+    public void shutdown() {
+        if (Parkour.getDatabaseObj() != null)
+            Parkour.getDatabaseObj().shutdown();
+    }
+
+    @Override
+    public void loadPlayer(UUID uuid, String playerName) {
+        DatabaseMethods.loadPlayer(uuid, playerName);
+    }
+
+    @Override
+    public void evictPlayer(String playerName) {
+        DatabaseMethods.evictPlayer(playerName);
+    }
+
+    @Override
+    public void insertCourse(String courseName, String playerName) {
+        DatabaseMethods.insertCourse(courseName, playerName);
+    }
+
+    @Override
+    public boolean hasCourse(String courseName) {
+        return DatabaseMethods.getCourseId(courseName, false) != 0;
+    }
+
+    @Override
+    public void deleteCourse(String courseName) {
+        DatabaseMethods.deleteCourseAndReferences(courseName);
+    }
+
+    @Override
+    public void recreateAllCourses() {
+        DatabaseMethods.recreateAllCourses();
+    }
+
+    @Override
+    public Set<FinishRecord> insertTimes(List<FinishRecord> records) {
+        return DatabaseMethods.insertTimes(records);
+    }
+
+    @Override
+    public int importTimes(List<FinishRecord> records) throws Exception {
+        return DatabaseMethods.importTimes(records);
+    }
+
+    @Override
+    public void markCompleted(String playerName, String courseName) {
+        DatabaseMethods.markCompleted(playerName, courseName);
+    }
+
+    @Override
+    public List<TimeObject> getTopCourseResults(String courseName, int limit) {
+        return DatabaseMethods.getTopCourseResults(courseName, limit);
+    }
+
+    @Override
+    public List<TimeObject> getTopPeriodResults(String courseName, LeaderboardPeriod period, int limit) {
+        return DatabaseMethods.getTopPeriodResults(courseName, period, limit);
+    }
+
+    @Override
+    public List<TimeObject> getTopPlayerCourseResults(String playerName, String courseName, int limit) {
+        return DatabaseMethods.getTopPlayerCourseResults(playerName, courseName, limit);
+    }
+
+    @Override
+    public void deleteCourseTimes(String courseName) {
+        DatabaseMethods.deleteCourseTimes(courseName);
+    }
+
+    @Override
+    public void deletePlayerCourseTimes(String playerName, String courseName) {
+        DatabaseMethods.deletePlayerCourseTimes(playerName, courseName);
+    }
+
+    @Override
+    public void deleteAllTimesForPlayer(String playerName) {
+        DatabaseMethods.deleteAllTimesForPlayer(playerName);
+    }
+
+    @Override
+    public boolean isRankingLoaded() {
+        return DatabaseMethods.getRankIndex().isLoaded();
+    }
+
+    @Override
+    public TimeObject getPlayerBestTime(String courseName, String playerName) {
+        return DatabaseMethods.getPlayerBestTime(courseName, playerName);
+    }
+
+    @Override
+    public int getPlayerRank(String courseName, String playerName) {
+        return DatabaseMethods.getPlayerRank(courseName, playerName);
+    }
+
+    @Override
+    public int getRankedPlayerCount(String courseName) {
+        return DatabaseMethods.getRankedPlayerCount(courseName);
+    }
+
+    @Override
+    public TimeObject getPercentileTime(String courseName, double percentile) {
+        return DatabaseMethods.getPercentileTime(courseName, percentile);
+    }
+
+    @Override
+    public List<TimeObject> getLeaderboardPage(String courseName, int page, int pageSize) {
+        return DatabaseMethods.getLeaderboardPage(courseName, page, pageSize);
+    }
+
+    @Override
+    public boolean hasPlayerCompleted(String playerName, String courseName) {
+        return DatabaseMethods.hasPlayerCompleted(playerName, courseName);
+    }
+
+    @Override
+    public void insertVote(String courseName, String playerName, boolean liked) {
+        DatabaseMethods.insertVote(courseName, playerName, liked);
+    }
+
+    @Override
+    public double getVotePercent(String courseName) {
+        return DatabaseMethods.getVotePercent(courseName);
+    }
+
+    @Override
+    public boolean hasVoted(String courseName, String playerName) {
+        return DatabaseMethods.hasVoted(courseName, playerName);
+    }
+}
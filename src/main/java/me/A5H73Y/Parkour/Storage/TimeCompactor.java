@@ -0,0 +1,315 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Enums.DatabaseType;
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
+import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+/**
+ * Background job which keeps only each player's best runs of a course.
+ * Slower runs are removed in small chunks, each in its own short transaction, and counted in the course_stats table.
+ * They can also be appended to a compressed archive in the plugin folder first.
+ * Runs from the current week and month are kept, as the period leaderboards may still need them.
+ */
+public class TimeCompactor implements Runnable {
+
+    /** Pause between chunks, so finishes waiting to be written aren't held up. */
+    private static final long CHUNK_PAUSE_MILLIS = 50;
+
+    private final int keepRuns;
+    private final int chunkSize;
+    private final boolean archive;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * @param keepRuns amount of each player's best runs to keep per course
+     * @param chunkSize maximum amount of runs removed in one transaction
+     * @param archive append the removed runs to a compressed file
+     */
+    public TimeCompactor(int keepRuns, int chunkSize, boolean archive) {
+        this.keepRuns = Math.max(1, keepRuns);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.archive = archive;
+    }
+
+    @Override
+    public void run() {
+        if (!running.compareAndSet(false, true))
+            return;
+
+        long keepSince = Math.min(LeaderboardPeriod.WEEKLY.getStart(System.currentTimeMillis()),
+                LeaderboardPeriod.MONTHLY.getStart(System.currentTimeMillis()));
+        int compacted = 0;
+
+        try (Writer writer = archive ? openArchive() : null) {
+            for (int courseId : getCourseIds()) {
+                int removed = compactCourse(courseId, keepSince, writer);
+                if (removed > 0) {
+                    DatabaseMethods.timesCompacted(courseId);
+                    compacted += removed;
+                }
+
+                if (!isEnabled())
+                    break;
+            }
+
+        } catch (SQLException | IOException e) {
+            Utils.log("[SQL] Failed to compact times: " + e.getMessage(), 2);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } finally {
+            running.set(false);
+        }
+
+        if (compacted > 0)
+            Utils.log("[SQL] Compacted " + compacted + " times, keeping the best " + keepRuns + " of each player per course.");
+    }
+
+    /**
+     * Remove the runs of each player beyond their best on the course.
+     * @return amount of runs removed
+     */
+    private int compactCourse(int courseId, long keepSince, Writer writer) throws SQLException, IOException, InterruptedException {
+        int removed = 0;
+
+        for (int playerId : getPlayersOverLimit(courseId)) {
+            Run cutoff = getCutoff(courseId, playerId);
+            if (cutoff == null)
+                continue;
+
+            // the best runs are never removed, so the cutoff can't move while the player is compacted
+            List<Run> runs;
+            do {
+                if (!isEnabled())
+                    return removed;
+
+                runs = getRunsAfter(courseId, playerId, cutoff, keepSince);
+                if (runs.isEmpty())
+                    break;
+
+                if (writer != null)
+                    writeArchive(writer, courseId, runs);
+
+                removed += delete(courseId, runs);
+                Thread.sleep(CHUNK_PAUSE_MILLIS);
+
+            } while (runs.size() == chunkSize);
+        }
+        return removed;
+    }
+
+    private List<Integer> getCourseIds() throws SQLException {
+        List<Integer> courseIds = new ArrayList<>();
+
+        try (Connection connection = Parkour.getDatabaseObj().getReadConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT courseId FROM course;")) {
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                courseIds.add(rs.getInt("courseId"));
+            }
+        }
+        return courseIds;
+    }
+
+    private List<Integer> getPlayersOverLimit(int courseId) throws SQLException {
+        List<Integer> playerIds = new ArrayList<>();
+
+        try (Connection connection = Parkour.getDatabaseObj().getReadConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT playerId FROM time WHERE courseId=? GROUP BY playerId HAVING COUNT(*) > ?;")) {
+            ps.setInt(1, courseId);
+            ps.setInt(2, keepRuns);
+
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                playerIds.add(rs.getInt("playerId"));
+            }
+        }
+        return playerIds;
+    }
+
+    /**
+     * @return the slowest of the player's runs to keep, null if they have no more than that
+     */
+    private Run getCutoff(int courseId, int playerId) throws SQLException {
+        try (Connection connection = Parkour.getDatabaseObj().getReadConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT timeId, time FROM time WHERE courseId=? AND playerId=? ORDER BY time, timeId LIMIT 1 OFFSET ?;")) {
+            ps.setInt(1, courseId);
+            ps.setInt(2, playerId);
+            ps.setInt(3, keepRuns - 1);
+
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? new Run(rs.getInt("timeId"), null, rs.getLong("time"), 0, 0) : null;
+        }
+    }
+
+    /**
+     * @return a chunk of the player's runs which are slower than the cutoff and were completed before the given time
+     */
+    private List<Run> getRunsAfter(int courseId, int playerId, Run cutoff, long completedBefore) throws SQLException {
+        List<Run> runs = new ArrayList<>();
+
+        try (Connection connection = Parkour.getDatabaseObj().getReadConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT t.timeId, p.name AS player, t.time, t.deaths, t.completed_at FROM time t JOIN player p ON p.playerId = t.playerId " +
+                     "WHERE t.courseId=? AND t.playerId=? AND (t.time > ? OR (t.time = ? AND t.timeId > ?)) AND t.completed_at < ? LIMIT ?;")) {
+            ps.setInt(1, courseId);
+            ps.setInt(2, playerId);
+            ps.setLong(3, cutoff.time);
+            ps.setLong(4, cutoff.time);
+            ps.setInt(5, cutoff.timeId);
+            ps.setLong(6, completedBefore);
+            ps.setInt(7, chunkSize);
+
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                runs.add(new Run(rs.getInt("timeId"), rs.getString("player"), rs.getLong("time"), rs.getInt("deaths"), rs.getLong("completed_at")));
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Remove the runs and add them to the course's totals, in one transaction.
+     * @return amount of runs removed
+     */
+    private int delete(final int courseId, final List<Run> runs) throws SQLException {
+        return Parkour.getDatabaseObj().write(connection -> {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM time WHERE timeId=?;")) {
+                for (Run run : runs) {
+                    delete.setInt(1, run.timeId);
+                    delete.addBatch();
+                }
+
+                // runs removed by the player beating their time in the meantime aren't counted
+                int[] counts = delete.executeBatch();
+                int removed = 0;
+                long deaths = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) {
+                        removed++;
+                        deaths += runs.get(i).deaths;
+                    }
+                }
+
+                addStats(connection, courseId, removed, deaths);
+                connection.commit();
+                return removed;
+
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * Add the removed runs to the course's totals.
+     * SQLite older than 3.24 can't upsert, so the row is created if missing and then updated, within the caller's transaction.
+     */
+    private static void addStats(Connection connection, int courseId, long removed, long deaths) throws SQLException {
+        if (DatabaseMethods.hasNativeUpsert()) {
+            try (PreparedStatement stats = connection.prepareStatement(getStatsUpsert())) {
+                stats.setInt(1, courseId);
+                stats.setLong(2, removed);
+                stats.setLong(3, deaths);
+                stats.executeUpdate();
+            }
+            return;
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO course_stats (courseId, compacted_runs, compacted_deaths) VALUES (?, 0, 0);");
+             PreparedStatement update = connection.prepareStatement("UPDATE course_stats SET compacted_runs = compacted_runs + ?, compacted_deaths = compacted_deaths + ? WHERE courseId=?;")) {
+            insert.setInt(1, courseId);
+            insert.executeUpdate();
+
+            update.setLong(1, removed);
+            update.setLong(2, deaths);
+            update.setInt(3, courseId);
+            update.executeUpdate();
+        }
+    }
+
+    private static String getStatsUpsert() {
+        if (DatabaseMethods.type == DatabaseType.MySQL) {
+            return "INSERT INTO course_stats (courseId, compacted_runs, compacted_deaths) VALUES (?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE compacted_runs = compacted_runs + VALUES(compacted_runs), compacted_deaths = compacted_deaths + VALUES(compacted_deaths);";
+        }
+        return "INSERT INTO course_stats (courseId, compacted_runs, compacted_deaths) VALUES (?, ?, ?) " +
+                "ON CONFLICT (courseId) DO UPDATE SET compacted_runs = compacted_runs + excluded.compacted_runs, compacted_deaths = compacted_deaths + excluded.compacted_deaths;";
+    }
+
+    /**
+     * Runs are archived before they're removed, so a failure can only leave a run in both places.
+     * Each compaction appends a new gzip member to the month's file, which is read back as a single stream.
+     */
+    private static Writer openArchive() throws IOException {
+        File folder = new File(Parkour.getPlugin().getDataFolder(), "archive");
+        if (!folder.exists())
+            folder.mkdirs();
+
+        File file = new File(folder, "times-" + new SimpleDateFormat("yyyy-MM").format(new Date()) + ".csv.gz");
+        boolean created = !file.exists();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file, true), true), StandardCharsets.UTF_8));
+        if (created)
+            writer.write("course,player,time,deaths,completed_at\n");
+
+        return writer;
+    }
+
+    private static void writeArchive(Writer writer, int courseId, List<Run> runs) throws IOException {
+        String courseName = DatabaseMethods.getCourseRegistry().getCourseName(courseId);
+
+        for (Run run : runs) {
+            writer.write((courseName != null ? courseName : String.valueOf(courseId)) + "," + run.player + ","
+                    + run.time + "," + run.deaths + "," + run.completedAt + "\n");
+        }
+        writer.flush();
+    }
+
+    private static boolean isEnabled() {
+        return Parkour.getPlugin() != null && Parkour.getPlugin().isEnabled();
+    }
+
+    private static class Run {
+
+        private final int timeId;
+        private final String player;
+        private final long time;
+        private final int deaths;
+        private final long completedAt;
+
+        private Run(int timeId, String player, long time, int deaths, long completedAt) {
+            this.timeId = timeId;
+            this.player = player;
+            this.time = time;
+            this.deaths = deaths;
+            this.completedAt = completedAt;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Enums.DatabaseType;
+import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+import me.A5H73Y.Parkour.Utilities.Static;
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+/**
+ * Moves times between servers through files in the plugin's exports folder, as CSV or NDJSON (one JSON object per line).
+ * Exports stream the time table through a cursor and imports are inserted in batches,
+ * so neither direction holds more than a batch of times in memory. Both run asynchronously.
+ *
+ * Each time keeps its recordId, so importing the same file twice only inserts its times once.
+ */
+public class TimeTransfer {
+
+    private static final String[] COLUMNS = {"course", "player", "time", "deaths", "completed_at", "recordId"};
+
+    private static final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * /pa export times (course / all) [csv / ndjson]
+     * @param args
+     * @param sender
+     */
+    public static void exportCommand(String[] args, CommandSender sender) {
+        if (args.length < 3 || args.length > 4 || !args[1].equalsIgnoreCase("times")) {
+            sender.sendMessage(Static.getParkourString() + "Usage: /pa export times (course / all) [csv / ndjson]");
+            return;
+        }
+        if (args.length == 4 && !args[3].equalsIgnoreCase("csv") && !args[3].equalsIgnoreCase("ndjson")) {
+            sender.sendMessage(Static.getParkourString() + "Unknown format '" + args[3] + "', use csv or ndjson.");
+            return;
+        }
+
+        exportTimes(args[2].toLowerCase(), args.length == 4 && args[3].equalsIgnoreCase("ndjson"), sender);
+    }
+
+    /**
+     * /pa import times (file)
+     * @param args
+     * @param sender
+     */
+    public static void importCommand(String[] args, CommandSender sender) {
+        if (args.length != 3 || !args[1].equalsIgnoreCase("times")) {
+            sender.sendMessage(Static.getParkourString() + "Usage: /pa import times (file)");
+            return;
+        }
+
+        importTimes(args[2], sender);
+    }
+
+    /**
+     * Export the course's times, or every time, to a new file.
+     * @param courseName course, or "all"
+     * @param ndjson write NDJSON instead of CSV
+     * @param sender
+     */
+    public static void exportTimes(final String courseName, final boolean ndjson, final CommandSender sender) {
+        if (Parkour.getDatabaseObj() == null) {
+            sender.sendMessage(Static.getParkourString() + "Times can only be exported from SQL storage.");
+            return;
+        }
+
+        final boolean all = courseName.equalsIgnoreCase("all");
+        final int courseId = all ? 0 : DatabaseMethods.getCourseId(courseName, false);
+        if (!all && courseId == 0) {
+            sender.sendMessage(Static.getParkourString() + "Course '" + courseName + "' has no times in the database.");
+            return;
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            sender.sendMessage(Static.getParkourString() + "A transfer is already running.");
+            return;
+        }
+
+        final File file = new File(getFolder(), "times-" + (all ? "all" : courseName) + "-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + (ndjson ? ".ndjson" : ".csv"));
+        sender.sendMessage(Static.getParkourString() + "Exporting times to " + file.getName() + "...");
+
+        Bukkit.getScheduler().runTaskAsynchronously(Parkour.getPlugin(), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long exported = export(courseId, file, ndjson);
+                    message(sender, "Exported " + exported + " times to " + file.getName() + ".");
+
+                } catch (SQLException | IOException e) {
+                    file.delete();
+                    message(sender, "Export failed: " + e.getMessage());
+                    Utils.log("[SQL] Failed to export times: " + e.getMessage(), 2);
+
+                } finally {
+                    running.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Import the times in a file from the exports folder.
+     * The format is chosen from the file's extension, times of courses which don't exist are skipped.
+     * @param fileName
+     * @param sender
+     */
+    public static void importTimes(final String fileName, final CommandSender sender) {
+        final File file = new File(getFolder(), fileName);
+
+        try {
+            if (!file.getCanonicalPath().startsWith(getFolder().getCanonicalPath() + File.separator) || !file.isFile()) {
+                sender.sendMessage(Static.getParkourString() + "File '" + fileName + "' was not found in the exports folder.");
+                return;
+            }
+        } catch (IOException e) {
+            sender.sendMessage(Static.getParkourString() + "File '" + fileName + "' could not be read.");
+            return;
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            sender.sendMessage(Static.getParkourString() + "A transfer is already running.");
+            return;
+        }
+
+        final int batchSize = Math.max(1, Parkour.getPlugin().getConfig().getInt("SQL.Transfer.BatchSize"));
+        sender.sendMessage(Static.getParkourString() + "Importing times from " + file.getName() + "...");
+
+        Bukkit.getScheduler().runTaskAsynchronously(Parkour.getPlugin(), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    message(sender, load(file, file.getName().endsWith(".ndjson"), batchSize));
+
+                } catch (Exception e) {
+                    message(sender, "Import failed, batches already committed are kept: " + e.getMessage());
+                    Utils.log("[Storage] Failed to import times: " + e.getMessage(), 2);
+
+                } finally {
+                    running.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return amount of times written
+     */
+    private static long export(int courseId, File file, boolean ndjson) throws SQLException, IOException {
+        long exported = 0;
+
+        try (Connection connection = Parkour.getDatabaseObj().getReadConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT c.name AS course, p.name AS player, t.time, t.deaths, t.completed_at, t.recordId " +
+                     "FROM time t JOIN course c ON c.courseId = t.courseId JOIN player p ON p.playerId = t.playerId" + (courseId != 0 ? " WHERE t.courseId=?;" : ";"),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            // MySQL only streams the rows one at a time with this fetch size, otherwise it reads the whole result first
+            ps.setFetchSize(DatabaseMethods.type == DatabaseType.MySQL ? Integer.MIN_VALUE
+                    : Math.max(1, Parkour.getPlugin().getConfig().getInt("SQL.Transfer.FetchSize")));
+            if (courseId != 0)
+                ps.setInt(1, courseId);
+
+            if (!ndjson)
+                writer.write(String.join(",", COLUMNS) + "\n");
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String[] values = {rs.getString("course"), rs.getString("player"), String.valueOf(rs.getLong("time")),
+                            String.valueOf(rs.getInt("deaths")), String.valueOf(rs.getLong("completed_at")), rs.getString("recordId")};
+
+                    writer.write(ndjson ? toJson(values) : toCsv(values));
+                    writer.write('\n');
+                    exported++;
+                }
+            }
+        }
+        return exported;
+    }
+
+    /**
+     * @return summary of the import
+     */
+    private static String load(File file, boolean ndjson, int batchSize) throws Exception {
+        ParkourStorage storage = Parkour.getStorage();
+        List<FinishRecord> batch = new ArrayList<>(batchSize);
+        long imported = 0;
+        long skipped = 0;
+        long invalid = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line = ndjson ? null : reader.readLine();
+            if (!ndjson && (line == null || !line.startsWith(COLUMNS[0])))
+                throw new IOException("Missing CSV header");
+
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty())
+                    continue;
+
+                FinishRecord record = ndjson ? fromJson(line) : fromCsv(line);
+                if (record == null) {
+                    invalid++;
+                    continue;
+                }
+                if (!storage.hasCourse(record.getCourseName())) {
+                    skipped++;
+                    continue;
+                }
+
+                batch.add(record);
+                if (batch.size() >= batchSize) {
+                    imported += storage.importTimes(batch);
+                    batch.clear();
+                }
+            }
+        }
+        imported += storage.importTimes(batch);
+
+        return "Imported " + imported + " times" + (skipped > 0 ? ", skipped " + skipped + " of missing courses" : "")
+                + (invalid > 0 ? ", " + invalid + " lines were invalid" : "") + ".";
+    }
+
+    private static FinishRecord toRecord(String course, String player, String time, String deaths, String completedAt, String recordId) {
+        if (course == null || player == null || course.isEmpty() || player.isEmpty())
+            return null;
+
+        try {
+            long parsedTime = Long.parseLong(time);
+            int parsedDeaths = Integer.parseInt(deaths);
+            long parsedCompletedAt = completedAt == null || completedAt.isEmpty() ? 0 : Long.parseLong(completedAt);
+
+            // times exported before they had an id are given one from their contents, so they're still only imported once
+            if (recordId == null || recordId.isEmpty()) {
+                recordId = UUID.nameUUIDFromBytes((course + "\t" + player + "\t" + time + "\t" + deaths + "\t" + parsedCompletedAt)
+                        .getBytes(StandardCharsets.UTF_8)).toString();
+            }
+            return new FinishRecord(recordId, course, player, parsedTime, parsedDeaths, false, parsedCompletedAt);
+
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String toCsv(String[] values) {
+        StringBuilder line = new StringBuilder();
+
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0)
+                line.append(',');
+
+            String value = values[i] == null ? "" : values[i];
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0)
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            else
+                line.append(value);
+        }
+        return line.toString();
+    }
+
+    private static FinishRecord fromCsv(String line) {
+        List<String> values = new ArrayList<>(COLUMNS.length);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+
+        if (values.size() < 4)
+            return null;
+
+        return toRecord(values.get(0), values.get(1), values.get(2), values.get(3),
+                values.size() > 4 ? values.get(4) : null, values.size() > 5 ? values.get(5) : null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toJson(String[] values) {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put(COLUMNS[0], values[0]);
+        object.put(COLUMNS[1], values[1]);
+        object.put(COLUMNS[2], Long.parseLong(values[2]));
+        object.put(COLUMNS[3], Integer.parseInt(values[3]));
+        object.put(COLUMNS[4], Long.parseLong(values[4]));
+        if (values[5] != null)
+            object.put(COLUMNS[5], values[5]);
+
+        return JSONObject.toJSONString(object);
+    }
+
+    private static FinishRecord fromJson(String line) {
+        Object parsed = JSONValue.parse(line);
+        if (!(parsed instanceof JSONObject))
+            return null;
+
+        JSONObject object = (JSONObject) parsed;
+        return toRecord(getString(object, COLUMNS[0]), getString(object, COLUMNS[1]), getString(object, COLUMNS[2]),
+                getString(object, COLUMNS[3]), getString(object, COLUMNS[4]), getString(object, COLUMNS[5]));
+    }
+
+    private static String getString(JSONObject object, String key) {
+        Object value = object.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    private static File getFolder() {
+        File folder = new File(Parkour.getPlugin().getDataFolder(), "exports");
+        if (!folder.exists())
+            folder.mkdirs();
+
+        return folder;
+    }
+
+    private static void message(final CommandSender sender, final String message) {
+        if (!Parkour.getPlugin().isEnabled())
+            return;
+
+        Bukkit.getScheduler().runTask(Parkour.getPlugin(), new Runnable() {
+            @Override
+            public void run() {
+                sender.sendMessage(Static.getParkourString() + message);
+            }
+        });
+    }
+}
@@ -0,0 +1,250 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+import org.bukkit.Bukkit;
+
+/**
+ * Write-behind pipeline for course completion times.
+ * Finishes are queued from the main thread and committed in batches on a dedicated database thread,
+ * the callback is then handed back to the main thread to notify the player.
+ */
+public class TimeWriter {
+
+    private final BlockingQueue<PendingFinish> queue;
+    private final Queue<PendingFinish> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger overflowSize = new AtomicInteger();
+    private final int overflowLimit;
+    private final int batchSize;
+    private final int warningDepth;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+    private long lastWarning;
+
+    /**
+     * @param queueSize amount of finishes queued before further ones are kept aside, and then how many can be kept aside
+     * @param batchSize maximum amount of finishes committed in one transaction
+     */
+    public TimeWriter(int queueSize, int batchSize) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.overflowLimit = Math.max(1, queueSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.warningDepth = Math.max(1, queueSize / 2);
+
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processQueue();
+            }
+        }, "Parkour-TimeWriter");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue a finish to be written to the database.
+     * Nothing is written on the calling thread, if the queue is full the finish is kept aside until the writer catches up.
+     * Once too many are kept aside the finish is saved to the database journal instead, or discarded if there isn't one.
+     *
+     * @param record
+     * @param callback run on the main thread, with true if the player beat their previous best time
+     */
+    public void submit(FinishRecord record, Consumer<Boolean> callback) {
+        if (!running) {
+            Utils.log("[SQL] Time writer has been shut down, the time of " + record.getPlayerName() + " on " + record.getCourseName() + " was not saved.", 2);
+            return;
+        }
+
+        PendingFinish pending = new PendingFinish(record, callback);
+
+        if (overflow.isEmpty() && queue.offer(pending)) {
+            int depth = queue.size();
+            if (depth >= warningDepth) {
+                warnDepth(depth);
+            }
+            return;
+        }
+
+        if (overflowSize.get() >= overflowLimit) {
+            journal(pending);
+            return;
+        }
+
+        overflow.add(pending);
+        overflowSize.incrementAndGet();
+        warnDepth(getQueueDepth());
+    }
+
+    /**
+     * Save the finish to the journal, to be written along with anything saved while the database was unavailable.
+     * The player isn't told whether it was a personal best, as that isn't known until it's written.
+     */
+    private void journal(PendingFinish pending) {
+        FinishRecord record = pending.record;
+        DatabaseJournal journal = DatabaseMethods.getJournal();
+
+        if (journal != null) {
+            try {
+                journal.appendFinishes(Collections.singletonList(record));
+                Parkour.getStorage().markCompleted(record.getPlayerName(), record.getCourseName());
+                warnDepth(getQueueDepth());
+                return;
+            } catch (IOException e) {
+                Utils.log("[SQL] Unable to save the time of " + record.getPlayerName() + " to the journal: " + e.getMessage(), 2);
+            }
+        }
+
+        Utils.log("[SQL] Time writer is full, the time of " + record.getPlayerName() + " on " + record.getCourseName() + " was not saved.", 2);
+    }
+
+    /**
+     * @return amount of finishes waiting to be written
+     */
+    public int getQueueDepth() {
+        return queue.size() + overflowSize.get();
+    }
+
+    /**
+     * Stop accepting new finishes and wait for the queue to be drained.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (worker.isAlive()) {
+            Utils.log("[SQL] Timed out writing times, " + getQueueDepth() + " were not saved.", 2);
+        }
+    }
+
+    private void processQueue() {
+        List<PendingFinish> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty() || !overflow.isEmpty()) {
+            try {
+                PendingFinish first = queue.poll(overflow.isEmpty() ? 1 : 0, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+
+                // finishes kept aside while the queue was full are written after the ones queued before them
+                PendingFinish extra;
+                while (batch.size() < batchSize && (extra = overflow.poll()) != null) {
+                    overflowSize.decrementAndGet();
+                    batch.add(extra);
+                }
+
+                if (!batch.isEmpty())
+                    write(batch);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+
+            } catch (Exception e) {
+                Utils.log("[SQL] Failed to write times: " + e.getMessage(), 2);
+
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Coalesce the batch and commit it.
+     * When only the best time is kept, several finishes for the same player and course only need the fastest one written.
+     */
+    private void write(List<PendingFinish> batch) {
+        Map<String, PendingFinish> bestTimes = new LinkedHashMap<>();
+        List<PendingFinish> toWrite = new ArrayList<>(batch.size());
+        List<PendingFinish> superseded = new ArrayList<>();
+
+        for (PendingFinish pending : batch) {
+            FinishRecord record = pending.record;
+            if (!record.isUpdateTime()) {
+                toWrite.add(pending);
+                continue;
+            }
+
+            String key = record.getCourseName() + ":" + record.getPlayerName();
+            PendingFinish existing = bestTimes.get(key);
+
+            if (existing == null || record.getTime() < existing.record.getTime()) {
+                bestTimes.put(key, pending);
+                if (existing != null)
+                    superseded.add(existing);
+            } else {
+                superseded.add(pending);
+            }
+        }
+        toWrite.addAll(bestTimes.values());
+
+        List<FinishRecord> records = new ArrayList<>(toWrite.size());
+        for (PendingFinish pending : toWrite) {
+            records.add(pending.record);
+        }
+
+        Set<FinishRecord> personalBests = Parkour.getStorage().insertTimes(records);
+
+        for (PendingFinish pending : toWrite) {
+            complete(pending, personalBests.contains(pending.record));
+        }
+        for (PendingFinish pending : superseded) {
+            complete(pending, false);
+        }
+    }
+
+    private void complete(final PendingFinish pending, final boolean personalBest) {
+        if (pending.callback == null || Parkour.getPlugin() == null || !Parkour.getPlugin().isEnabled())
+            return;
+
+        Bukkit.getScheduler().runTask(Parkour.getPlugin(), new Runnable() {
+            @Override
+            public void run() {
+                pending.callback.accept(personalBest);
+            }
+        });
+    }
+
+    private synchronized void warnDepth(int depth) {
+        long now = System.currentTimeMillis();
+        if (now - lastWarning < TimeUnit.MINUTES.toMillis(1))
+            return;
+
+        lastWarning = now;
+        Utils.log("[SQL] Time writer is backed up, " + depth + " times waiting to be saved.", 1);
+    }
+
+    private static class PendingFinish {
+
+        private final FinishRecord record;
+        private final Consumer<Boolean> callback;
+
+        private PendingFinish(FinishRecord record, Consumer<Boolean> callback) {
+            this.record = record;
+            this.callback = callback;
+        }
+    }
+}
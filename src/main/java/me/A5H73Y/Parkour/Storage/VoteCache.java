@@ -0,0 +1,141 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Like and vote counts for each course, along with who has voted.
+ * A course's votes are loaded from the database the first time they're needed,
+ * then kept up to date as votes are inserted, so stats and rating checks don't have to count the vote table.
+ * Every change to a course moves its generation on, so votes read from the database
+ * while a vote was being committed are discarded rather than cached without it.
+ */
+public class VoteCache {
+
+    private final Map<Integer, CourseVotes> courses = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * @param courseId
+     * @return the course's votes, null if they haven't been loaded
+     */
+    public CourseVotes getVotes(int courseId) {
+        return courses.get(courseId);
+    }
+
+    /**
+     * Take the generation before reading the votes from the database,
+     * then pass it to {@link #load(int, Map, long)}.
+     * @param courseId
+     * @return generation
+     */
+    public long getGeneration(int courseId) {
+        return generation(courseId).get();
+    }
+
+    /**
+     * Populate the course's votes from the database.
+     * They're only cached if no vote has been added since the generation was taken,
+     * otherwise they're returned as read and loaded again when next needed.
+     * @param courseId
+     * @param votes player to whether they liked the course
+     * @param generation the generation before the votes were read
+     * @return the loaded votes
+     */
+    public CourseVotes load(int courseId, Map<String, Boolean> votes, long generation) {
+        CourseVotes loaded = new CourseVotes();
+        for (Map.Entry<String, Boolean> vote : votes.entrySet()) {
+            loaded.add(vote.getKey(), vote.getValue());
+        }
+
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            if (current.get() != generation)
+                return loaded;
+
+            CourseVotes existing = courses.putIfAbsent(courseId, loaded);
+            return existing != null ? existing : loaded;
+        }
+    }
+
+    /**
+     * A vote has been committed, count it if the course is loaded.
+     * @param courseId
+     * @param playerName
+     * @param liked
+     */
+    public void add(int courseId, String playerName, boolean liked) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            current.incrementAndGet();
+
+            CourseVotes votes = courses.get(courseId);
+            if (votes != null)
+                votes.add(playerName, liked);
+        }
+    }
+
+    /**
+     * Discard the course's votes, they will be loaded again when next needed.
+     * @param courseId
+     */
+    public void invalidate(int courseId) {
+        AtomicLong current = generation(courseId);
+
+        synchronized (current) {
+            current.incrementAndGet();
+            courses.remove(courseId);
+        }
+    }
+
+    /**
+     * Discard the votes of every course, such as when a voter has changed their name.
+     */
+    public void invalidateAll() {
+        for (Integer courseId : generations.keySet()) {
+            invalidate(courseId);
+        }
+    }
+
+    private AtomicLong generation(int courseId) {
+        return generations.computeIfAbsent(courseId, id -> new AtomicLong());
+    }
+
+    public static class CourseVotes {
+
+        private final Set<String> voters = new HashSet<>();
+        private int likes;
+
+        /**
+         * Count the vote, a player can only vote once per course.
+         */
+        private synchronized void add(String playerName, boolean liked) {
+            if (voters.add(playerName) && liked)
+                likes++;
+        }
+
+        public synchronized boolean hasVoted(String playerName) {
+            return voters.contains(playerName);
+        }
+
+        public synchronized int getLikes() {
+            return likes;
+        }
+
+        public synchronized int getTotal() {
+            return voters.size();
+        }
+
+        /**
+         * @return percentage of voters who liked the course
+         */
+        public synchronized double getLikePercent() {
+            return voters.isEmpty() ? 0 : (likes * 1.0 / voters.size()) * 100;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Write-behind saving for the YAML files.
+ * Saving only marks the file as dirty, on each interval the dirty files are serialized on the main thread
+ * and written on a dedicated I/O thread, so a file changed many times in one interval is only written once.
+ *
+ * Each file is written to a temporary file first and then moved over the original, so a crash mid-write can't leave it half written.
+ */
+public class YamlWriter {
+
+    private final Map<File, FileConfiguration> dirty = new LinkedHashMap<>();
+    private final ExecutorService io;
+    private final BukkitTask task;
+
+    /**
+     * @param intervalTicks ticks between writing the dirty files
+     */
+    public YamlWriter(long intervalTicks) {
+        io = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Parkour-YamlWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        task = Bukkit.getScheduler().runTaskTimer(Parkour.getPlugin(), new Runnable() {
+            @Override
+            public void run() {
+                writeDirty();
+            }
+        }, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * The file has changed and should be written on the next interval.
+     * @param file
+     * @param data
+     */
+    public synchronized void markDirty(File file, FileConfiguration data) {
+        dirty.put(file, data);
+    }
+
+    /**
+     * Delete the file, dropping any changes waiting to be written.
+     * The delete is queued behind any write already in progress, so that write can't recreate the file.
+     * @param file
+     */
+    public void delete(final File file) {
+        synchronized (this) {
+            dirty.remove(file);
+        }
+
+        io.submit(new Runnable() {
+            @Override
+            public void run() {
+                file.delete();
+            }
+        });
+    }
+
+    /**
+     * Read a file which may have changes waiting to be written.
+     * The read is queued behind any write already in progress, so it never sees the file before that write has finished.
+     * @param file
+     * @return the data waiting to be written, otherwise the file's contents
+     */
+    public FileConfiguration read(final File file) {
+        synchronized (this) {
+            FileConfiguration pending = dirty.get(file);
+            if (pending != null)
+                return pending;
+        }
+
+        Future<FileConfiguration> read = io.submit(new Callable<FileConfiguration>() {
+            @Override
+            public FileConfiguration call() {
+                return load(file);
+            }
+        });
+
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+        return load(file);
+    }
+
+    /**
+     * @param file
+     * @return the file's contents, empty if it doesn't exist
+     */
+    public static FileConfiguration load(File file) {
+        return file.exists() ? YamlConfiguration.loadConfiguration(file) : new YamlConfiguration();
+    }
+
+    /**
+     * Write the dirty files now, waiting until they're on disk.
+     * Must be called from the main thread.
+     */
+    public void flush() {
+        for (Future<?> write : writeDirty()) {
+            try {
+                write.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // already logged by the write
+            }
+        }
+    }
+
+    /**
+     * Write the dirty files and stop the I/O thread.
+     */
+    public void shutdown() {
+        task.cancel();
+        flush();
+        io.shutdown();
+        try {
+            io.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serialize the dirty files and queue them to be written.
+     * The serializing happens on the calling thread, as the configs aren't safe to read while the main thread changes them.
+     */
+    private List<Future<?>> writeDirty() {
+        Map<File, FileConfiguration> toWrite;
+        synchronized (this) {
+            if (dirty.isEmpty())
+                return new ArrayList<>();
+
+            toWrite = new LinkedHashMap<>(dirty);
+            dirty.clear();
+        }
+
+        List<Future<?>> writes = new ArrayList<>(toWrite.size());
+        for (Map.Entry<File, FileConfiguration> entry : toWrite.entrySet()) {
+            final File file = entry.getKey();
+            final FileConfiguration data = entry.getValue();
+            final String contents = data.saveToString();
+
+            writes.add(io.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        write(file, contents);
+                    } catch (IOException e) {
+                        Utils.log("Failed to save " + file.getName() + ", retrying next interval: " + e.getMessage(), 2);
+                        markDirty(file, data);
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        return writes;
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(contents.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -1,51 +1,246 @@
 package me.A5H73Y.Parkour.Utilities;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import me.A5H73Y.Parkour.Course.CourseInfo;
 import me.A5H73Y.Parkour.Parkour;
 import me.A5H73Y.Parkour.Enums.DatabaseType;
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
 import me.A5H73Y.Parkour.Other.TimeObject;
+import me.A5H73Y.Parkour.Storage.CompletionCache;
+import me.A5H73Y.Parkour.Storage.CourseRankIndex;
+import me.A5H73Y.Parkour.Storage.CourseRegistry;
+import me.A5H73Y.Parkour.Storage.DatabaseJournal;
+import me.A5H73Y.Parkour.Storage.FinishRecord;
+import me.A5H73Y.Parkour.Storage.LeaderboardCache;
+import me.A5H73Y.Parkour.Storage.PeriodLeaderboards;
+import me.A5H73Y.Parkour.Storage.PlayerRegistry;
+import me.A5H73Y.Parkour.Storage.RankIndex;
+import me.A5H73Y.Parkour.Storage.SchemaMigrator;
+import me.A5H73Y.Parkour.Storage.VoteCache;
 
 import org.bukkit.Bukkit;
 
 import com.huskehhh.mysql.Database;
-import org.bukkit.entity.Player;
 
 public class DatabaseMethods extends Database {
 
     public static DatabaseType type;
 
+    private static final CourseRegistry courseRegistry = new CourseRegistry();
+    private static final PlayerRegistry playerRegistry = new PlayerRegistry();
+    private static final LeaderboardCache leaderboardCache = new LeaderboardCache();
+    private static final PeriodLeaderboards periodLeaderboards = new PeriodLeaderboards();
+    private static final RankIndex rankIndex = new RankIndex();
+    private static final VoteCache voteCache = new VoteCache();
+    private static final CompletionCache completionCache = new CompletionCache();
+
+    private static final Map<Integer, Long> courseWrites = new ConcurrentHashMap<>();
+    private static volatile long allCoursesWrittenAt;
+
+    private static DatabaseJournal journal;
+
+    // SQLite only supports "ON CONFLICT ... DO UPDATE" from 3.24.0, older drivers still ship with 1.12.2 servers
+    private static volatile boolean nativeUpsert = true;
+
+    /**
+     * Bring the database schema up to date, see {@link SchemaMigrator}.
+     */
     public static void setupTables() {
         try {
-            if (type.equals(DatabaseType.SQLite)) {
-                String tableScript =
-                        "CREATE TABLE IF NOT EXISTS course (courseId INTEGER PRIMARY KEY, name VARCHAR(15) NOT NULL UNIQUE, author VARCHAR(20) NOT NULL, created TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL); " +
+            if (type == DatabaseType.SQLite)
+                setSQLiteVersion(Parkour.getDatabaseObj().write(connection -> {
+                    try (PreparedStatement ps = connection.prepareStatement("SELECT sqlite_version();");
+                         ResultSet rs = ps.executeQuery()) {
+                        return rs.next() ? rs.getString(1) : "";
+                    }
+                }));
 
-                                "CREATE TABLE IF NOT EXISTS time (timeId INTEGER PRIMARY KEY, courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, time DECIMAL(13,0) NOT NULL, deaths INT(5) NOT NULL, FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE); " +
+            int version = new SchemaMigrator(type).migrate();
+            if (version > SchemaMigrator.getLatestVersion())
+                Utils.log("[SQL] Database is at version " + version + ", which is newer than this version of Parkour supports.", 1);
 
-                                "CREATE TABLE IF NOT EXISTS vote (courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, liked BIT NOT NULL, PRIMARY KEY (courseId, player), FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE); ";
+        } catch (SQLException e) {
+            Utils.log("[SQL] " + e.getMessage(), 2);
+            e.printStackTrace();
+        }
+    }
 
-                Parkour.getDatabaseObj().updateSQL(tableScript);
+    /**
+     * Record which SQLite version the database is using, to decide whether upserts can be done in a single statement.
+     * @param version as returned by sqlite_version()
+     */
+    public static void setSQLiteVersion(String version) {
+        nativeUpsert = isAtLeast(version, 3, 24);
+        if (!nativeUpsert)
+            Utils.log("[SQL] SQLite " + version + " doesn't support upserts, personal bests will be written in two statements.", 1);
+    }
 
-            } else if (type.equals(DatabaseType.MySQL)) {
-                String tableScript = "CREATE TABLE IF NOT EXISTS course (courseId INTEGER PRIMARY KEY AUTO_INCREMENT, name VARCHAR(15) NOT NULL UNIQUE, author VARCHAR(20) NOT NULL, created TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL); ";
-                Parkour.getDatabaseObj().updateSQL(tableScript);
-                tableScript = "CREATE TABLE IF NOT EXISTS time (timeId INTEGER PRIMARY KEY AUTO_INCREMENT, courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, time DECIMAL(13,0) NOT NULL, deaths INT(5) NOT NULL, FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE); ";
-                Parkour.getDatabaseObj().updateSQL(tableScript);
-                tableScript = "CREATE TABLE IF NOT EXISTS vote (courseId INTEGER NOT NULL, player VARCHAR(20) NOT NULL, liked BIT NOT NULL, PRIMARY KEY (courseId, player), FOREIGN KEY (courseId) REFERENCES course(courseId) ON DELETE CASCADE ON UPDATE CASCADE); ";
-                Parkour.getDatabaseObj().updateSQL(tableScript);
+    /**
+     * @return true if the database can insert or update a row in a single statement
+     */
+    public static boolean hasNativeUpsert() {
+        return type == DatabaseType.MySQL || nativeUpsert;
+    }
+
+    private static boolean isAtLeast(String version, int major, int minor) {
+        String[] parts = version.split("\\.");
+        try {
+            int actualMajor = Integer.parseInt(parts[0]);
+            int actualMinor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return actualMajor > major || (actualMajor == major && actualMinor >= minor);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Record the time as the player's personal best if it beats their current one, in a single statement.
+     * @return the SQL for the engine in use
+     */
+    private static String getPersonalBestUpsert() {
+        if (type == DatabaseType.MySQL) {
+            return "INSERT INTO personal_best (courseId, playerId, time, deaths) VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE deaths = IF(VALUES(time) < time, VALUES(deaths), deaths), time = IF(VALUES(time) < time, VALUES(time), time);";
+        }
+        return "INSERT INTO personal_best (courseId, playerId, time, deaths) VALUES (?, ?, ?, ?) " +
+                "ON CONFLICT (courseId, playerId) DO UPDATE SET time = excluded.time, deaths = excluded.deaths WHERE excluded.time < personal_best.time;";
+    }
+
+    /**
+     * Insert a row unless it conflicts with a unique key, in which case nothing is changed.
+     * @return the start of the statement for the engine in use
+     */
+    private static String getInsertIgnore() {
+        return type == DatabaseType.MySQL ? "INSERT IGNORE INTO" : "INSERT OR IGNORE INTO";
+    }
+
+    /**
+     * How a finish compares to the player's previous best time on the course.
+     */
+    private enum PersonalBest {
+        /** Slower than or equal to the previous best, which is kept */
+        NONE,
+        /** The player's first time on the course */
+        FIRST,
+        /** Beat the previous best, which was replaced */
+        BEATEN;
+
+        private boolean isRecorded() {
+            return this != NONE;
+        }
+    }
+
+    /**
+     * Writes personal bests, as a single upsert where supported.
+     * Otherwise the row is inserted if missing and then updated if the time is faster.
+     * The previous best is read first to tell a first time apart from a beaten one, so it must be run within a transaction.
+     */
+    private static class PersonalBestWriter implements AutoCloseable {
+
+        private final PreparedStatement select;
+        private final PreparedStatement upsert;
+        private final PreparedStatement insert;
+        private final PreparedStatement update;
+
+        private PersonalBestWriter(Connection connection) throws SQLException {
+            // locks the row, or the gap it would be inserted into, until the transaction ends
+            select = connection.prepareStatement("SELECT time FROM personal_best WHERE courseId=? AND playerId=?"
+                    + (type == DatabaseType.MySQL ? " FOR UPDATE;" : ";"));
+            if (hasNativeUpsert()) {
+                upsert = connection.prepareStatement(getPersonalBestUpsert());
+                insert = null;
+                update = null;
+            } else {
+                upsert = null;
+                insert = connection.prepareStatement("INSERT OR IGNORE INTO personal_best (courseId, playerId, time, deaths) VALUES (?, ?, ?, ?);");
+                update = connection.prepareStatement("UPDATE personal_best SET time=?, deaths=? WHERE courseId=? AND playerId=? AND time > ?;");
             }
-        } catch (ClassNotFoundException | SQLException e) {
-            e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
+
+        /**
+         * @return how the time compares to the player's previous best, it's written unless that was faster
+         */
+        private PersonalBest write(int courseId, int playerId, long time, int deaths) throws SQLException {
+            Long previous = null;
+            select.setInt(1, courseId);
+            select.setInt(2, playerId);
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next())
+                    previous = rs.getLong(1);
+            }
+
+            if (previous != null && previous <= time)
+                return PersonalBest.NONE;
+
+            PreparedStatement first = upsert != null ? upsert : insert;
+            first.setInt(1, courseId);
+            first.setInt(2, playerId);
+            first.setLong(3, time);
+            first.setInt(4, deaths);
+            first.executeUpdate();
+
+            if (update != null && previous != null) {
+                update.setLong(1, time);
+                update.setInt(2, deaths);
+                update.setInt(3, courseId);
+                update.setInt(4, playerId);
+                update.setLong(5, time);
+                update.executeUpdate();
+            }
+            return previous == null ? PersonalBest.FIRST : PersonalBest.BEATEN;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            for (PreparedStatement statement : new PreparedStatement[] { select, upsert, insert, update }) {
+                if (statement != null)
+                    statement.close();
+            }
+        }
+    }
+
+    /**
+     * Remember when the course's times or votes last changed, so they're read from the primary until a replica has them.
+     * Recorded before the caches are updated, so a query started after that sees the change.
+     * @param courseId
+     */
+    private static void courseWritten(int courseId) {
+        courseWrites.put(courseId, System.currentTimeMillis());
+    }
+
+    private static void allCoursesWritten() {
+        allCoursesWrittenAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return a connection which sees every change to the course's times and votes
+     */
+    private static Connection getCourseReadConnection(int courseId) throws SQLException {
+        Long writtenAt = courseWrites.get(courseId);
+        return Parkour.getDatabaseObj().getReadConnection(Math.max(allCoursesWrittenAt, writtenAt == null ? 0 : writtenAt));
+    }
+
+    /**
+     * @return a connection which sees every change written so far, for reading back changes which were just made
+     */
+    private static Connection getLatestReadConnection() throws SQLException {
+        return Parkour.getDatabaseObj().getReadConnection(System.currentTimeMillis());
     }
 
     @Override
@@ -59,26 +254,30 @@ public class DatabaseMethods extends Database {
 
     /**
      * Return the course's unique ID based on its name in the database.
+     * The ID is resolved from the course registry, only names which haven't been seen before are looked up.
      * @param courseName
      * @return
      * @throws SQLException
      */
     public static int getCourseId(String courseName, boolean printError) {
-        int courseId = 0;
+        Integer courseId = courseRegistry.getCourseId(courseName);
 
-        try{
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection().prepareStatement("SELECT courseId FROM course WHERE name = ?;");
-            ps.setString(1, courseName);
+        if (courseId == null) {
+            courseId = 0;
 
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()){
-                courseId =  rs.getInt("courseId");
-            }
+            try (Connection connection = getLatestReadConnection();
+                 PreparedStatement ps = connection.prepareStatement("SELECT courseId FROM course WHERE name = ?;")) {
+                ps.setString(1, courseName);
 
-        } catch (SQLException | ClassNotFoundException e) {
-            e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
+                ResultSet rs = ps.executeQuery();
+                if (rs.next()){
+                    courseId =  rs.getInt("courseId");
+                }
+                courseRegistry.register(courseName, courseId);
+
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
         }
 
         if (courseId == 0 && printError)
@@ -87,6 +286,235 @@ public class DatabaseMethods extends Database {
         return courseId;
     }
 
+    /**
+     * Load every course into the course registry, so course IDs can be resolved without a query.
+     */
+    public static void loadCourseIds() {
+        try (Connection connection = Parkour.getDatabaseObj().getReadConnection()) {
+            courseRegistry.load(readCourseIds(connection));
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static CourseRegistry getCourseRegistry() {
+        return courseRegistry;
+    }
+
+    /**
+     * Build the rank index from every time in the database.
+     * Run asynchronously, as it reads the entire time table.
+     */
+    public static void loadRankIndex() {
+        Bukkit.getScheduler().runTaskAsynchronously(Parkour.getPlugin(), new Runnable() {
+            @Override
+            public void run() {
+                Map<Integer, CourseRankIndex> courses = new HashMap<>();
+                int times = 0;
+                rankIndex.beginRebuild();
+
+                try (Connection connection = Parkour.getDatabaseObj().getReadConnection();
+                     PreparedStatement ps = connection.prepareStatement("SELECT t.courseId, p.name AS player, t.time, t.deaths FROM time t JOIN player p ON p.playerId = t.playerId;")) {
+                    ResultSet rs = ps.executeQuery();
+
+                    while (rs.next()) {
+                        CourseRankIndex index = courses.get(rs.getInt("courseId"));
+                        if (index == null) {
+                            index = new CourseRankIndex();
+                            courses.put(rs.getInt("courseId"), index);
+                        }
+                        index.offer(new TimeObject(rs.getString("player"), rs.getLong("time"), rs.getInt("deaths")));
+                        times++;
+                    }
+                    rankIndex.completeRebuild(courses);
+                    Utils.log("[SQL] Ranked " + times + " times across " + courses.size() + " courses.");
+
+                } catch (SQLException e) {
+                    rankIndex.cancelRebuild();
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    public static RankIndex getRankIndex() {
+        return rankIndex;
+    }
+
+    /**
+     * Bind the player's UUID to their playerId, then load the courses they have completed into memory.
+     * Run asynchronously when the player joins, so reward and rating checks don't have to query the database.
+     * @param uuid
+     * @param playerName
+     */
+    public static void loadPlayer(final UUID uuid, final String playerName) {
+        completionCache.track(playerName);
+
+        Bukkit.getScheduler().runTaskAsynchronously(Parkour.getPlugin(), new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int playerId = bindPlayer(uuid, playerName);
+
+                    try (Connection connection = getLatestReadConnection();
+                         PreparedStatement ps = connection.prepareStatement("SELECT courseId FROM personal_best WHERE playerId=?;")) {
+                        ps.setInt(1, playerId);
+                        BitSet courseIds = new BitSet();
+
+                        ResultSet rs = ps.executeQuery();
+                        while (rs.next()) {
+                            courseIds.set(rs.getInt("courseId"));
+                        }
+                        completionCache.load(playerName, courseIds);
+                    }
+
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Find the playerId belonging to the UUID, creating the player if they've never been seen.
+     * Times recorded against the player's name before UUIDs were stored are claimed by the first player to join with it.
+     * If the player has changed their name since they last joined, their times are kept under the new name.
+     * @param uuid
+     * @param playerName
+     * @return playerId
+     * @throws SQLException
+     */
+    private static int bindPlayer(final UUID uuid, final String playerName) throws SQLException {
+        final String[] previousName = new String[1];
+
+        int playerId = Parkour.getDatabaseObj().write(connection -> {
+            try (PreparedStatement find = connection.prepareStatement("SELECT playerId, name FROM player WHERE uuid=?;")) {
+                find.setString(1, uuid.toString());
+                ResultSet rs = find.executeQuery();
+
+                if (rs.next()) {
+                    int id = rs.getInt("playerId");
+                    if (!playerName.equals(rs.getString("name"))) {
+                        previousName[0] = rs.getString("name");
+
+                        try (PreparedStatement rename = connection.prepareStatement("UPDATE player SET name=? WHERE playerId=?;")) {
+                            rename.setString(1, playerName);
+                            rename.setInt(2, id);
+                            rename.executeUpdate();
+                        }
+                    }
+                    return id;
+                }
+            }
+
+            try (PreparedStatement claim = connection.prepareStatement("SELECT playerId FROM player WHERE name=? AND uuid IS NULL ORDER BY playerId LIMIT 1;")) {
+                claim.setString(1, playerName);
+                ResultSet rs = claim.executeQuery();
+
+                if (rs.next()) {
+                    int id = rs.getInt("playerId");
+                    try (PreparedStatement update = connection.prepareStatement("UPDATE player SET uuid=? WHERE playerId=?;")) {
+                        update.setString(1, uuid.toString());
+                        update.setInt(2, id);
+                        update.executeUpdate();
+                    }
+                    return id;
+                }
+            }
+
+            return insertPlayer(connection, uuid, playerName);
+        });
+
+        playerRegistry.register(playerName, playerId);
+
+        if (previousName[0] != null) {
+            playerRegistry.forget(previousName[0]);
+            allCoursesWritten();
+            rankIndex.renamePlayer(previousName[0], playerName);
+            leaderboardCache.invalidateAll();
+            periodLeaderboards.invalidateAll();
+            voteCache.invalidateAll();
+        }
+        return playerId;
+    }
+
+    /**
+     * Find the playerId of a player by name, players who are online are resolved from the player registry.
+     * @param playerName
+     * @param create add the player if they've never been recorded
+     * @return playerId, 0 if the player isn't in the database
+     * @throws SQLException
+     */
+    private static int getPlayerId(final String playerName, boolean create) throws SQLException {
+        Integer playerId = playerRegistry.getPlayerId(playerName);
+        if (playerId != null)
+            return playerId;
+
+        try (Connection connection = getLatestReadConnection()) {
+            playerId = findPlayerId(connection, playerName);
+        }
+
+        // checked again by the writer, the player may have joined in the meantime
+        if (playerId == 0 && create) {
+            playerId = Parkour.getDatabaseObj().write(connection -> {
+                int id = findPlayerId(connection, playerName);
+                return id != 0 ? id : insertPlayer(connection, null, playerName);
+            });
+        }
+
+        if (playerId != 0)
+            playerRegistry.register(playerName, playerId);
+
+        return playerId;
+    }
+
+    /**
+     * @return the most recent player to have used the name, 0 if there are none
+     */
+    private static int findPlayerId(Connection connection, String playerName) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT playerId FROM player WHERE name=? ORDER BY playerId DESC LIMIT 1;")) {
+            ps.setString(1, playerName);
+
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getInt("playerId") : 0;
+        }
+    }
+
+    private static int insertPlayer(Connection connection, UUID uuid, String playerName) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO player (uuid, name) VALUES (?, ?);", Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, uuid == null ? null : uuid.toString());
+            ps.setString(2, playerName);
+            ps.executeUpdate();
+
+            ResultSet keys = ps.getGeneratedKeys();
+            if (!keys.next())
+                throw new SQLException("No playerId was generated for " + playerName);
+
+            return keys.getInt(1);
+        }
+    }
+
+    /**
+     * Forget the player's completions once they've left the server.
+     * @param playerName
+     */
+    public static void evictPlayer(String playerName) {
+        completionCache.evict(playerName);
+        playerRegistry.forget(playerName);
+    }
+
+    /**
+     * Record that the player has completed the course, before the time has been written.
+     * @param playerName
+     * @param courseName
+     */
+    public static void markCompleted(String playerName, String courseName) {
+        int courseId = getCourseId(courseName, false);
+        if (courseId != 0)
+            completionCache.markCompleted(playerName, courseId);
+    }
+
     /**
      * Processes a ResultSet and returns a list of TimeObjects
      * @param rs ResultSet
@@ -112,17 +540,26 @@ public class DatabaseMethods extends Database {
      * @param courseName
      * @param playerName
      */
-    public static void insertCourse(String courseName, String playerName) {
+    public static void insertCourse(final String courseName, final String playerName) {
         try {
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("INSERT INTO `course` (`name`, `author`) VALUES (?, ?);");
-            ps.setString(1, courseName);
-            ps.setString(2, playerName);
-            ps.executeUpdate();
-        } catch (SQLException | ClassNotFoundException e) {
+            int courseId = Parkour.getDatabaseObj().write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("INSERT INTO `course` (`name`, `author`) VALUES (?, ?);", Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setString(1, courseName);
+                    ps.setString(2, playerName);
+                    ps.executeUpdate();
+
+                    ResultSet keys = ps.getGeneratedKeys();
+                    return keys.next() ? keys.getInt(1) : 0;
+                }
+            });
+
+            if (courseId != 0) {
+                courseRegistry.register(courseName, courseId);
+            } else {
+                courseRegistry.forget(courseName);
+            }
+        } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
     }
 
@@ -134,126 +571,385 @@ public class DatabaseMethods extends Database {
      * @param time
      * @param deaths
      */
-    public static void insertTime(String courseName, String playerName, long time, int deaths){
+    public static void insertTime(final String courseName, final String playerName, final long time, final int deaths){
+        final int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return;
+
+        final FinishRecord record = new FinishRecord(courseName, playerName, time, deaths, false);
+        long generation = leaderboardCache.beginWrite(courseId);
+        long periodGeneration = periodLeaderboards.beginWrite(courseId);
+
         try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
-                return;
+            final int playerId = getPlayerId(playerName, true);
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("INSERT INTO `time` (`courseId`, `player`, `time`, `deaths`) VALUES (?, ?, ?, ?);");
-            ps.setInt(1, courseId);
-            ps.setString(2, playerName);
-            ps.setLong(3, time);
-            ps.setInt(4, deaths);
-            ps.executeUpdate();
-        } catch (SQLException | ClassNotFoundException e) {
-            e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
+            Parkour.getDatabaseObj().write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("INSERT INTO `time` (`courseId`, `playerId`, `time`, `deaths`, `completed_at`, `recordId`) VALUES (?, ?, ?, ?, ?, ?);");
+                     PersonalBestWriter personalBest = new PersonalBestWriter(connection)) {
+                    connection.setAutoCommit(false);
+                    try {
+                        ps.setInt(1, courseId);
+                        ps.setInt(2, playerId);
+                        ps.setLong(3, time);
+                        ps.setInt(4, deaths);
+                        ps.setLong(5, record.getCompletedAt());
+                        ps.setString(6, record.getRecordId());
+                        ps.executeUpdate();
+                        personalBest.write(courseId, playerId, time, deaths);
+                        connection.commit();
+                        return null;
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    }
+                }
+            });
+
+            courseWritten(courseId);
+            TimeObject result = new TimeObject(playerName, time, deaths);
+            leaderboardCache.insert(courseId, result, false, generation);
+            periodLeaderboards.insert(courseId, result, record.getCompletedAt(), periodGeneration);
+            rankIndex.offer(courseId, result);
+            completionCache.markCompleted(playerName, courseId);
+        } catch (SQLException e) {
+            if (!journalFinishes(Collections.singletonList(record), e))
+                e.printStackTrace();
+        }
+    }
+
+    /**
+     * Insert a batch of finishes into the database within a single transaction.
+     * Every finish is compared to the player's best time, which is replaced by a single upsert if it was beaten.
+     * When the finish should only keep the player's best time, the existing times are replaced only if it has been beaten.
+     * If the database can't be reached the finishes are added to the journal, to be written once it returns.
+     * @param records
+     * @return the finishes which beat the player's previous best time
+     */
+    public static Set<FinishRecord> insertTimes(List<FinishRecord> records) {
+        Set<FinishRecord> personalBests = new HashSet<>();
+        if (records.isEmpty())
+            return personalBests;
+
+        try {
+            writeFinishes(records, personalBests);
+
+        } catch (SQLException e) {
+            personalBests.clear();
+            if (!journalFinishes(records, e))
+                e.printStackTrace();
         }
+        return personalBests;
     }
 
-    public static void updateTime(String courseName, Player player, long time, int deaths){
-        List<TimeObject> results = getTopPlayerCourseResults(player.getName(), courseName, 1);
+    /**
+     * Insert times read from an export, within a single transaction.
+     * Times which have already been inserted, identified by their recordId, are skipped.
+     * @param records
+     * @return amount of times inserted
+     * @throws SQLException
+     */
+    public static int importTimes(List<FinishRecord> records) throws SQLException {
+        return records.isEmpty() ? 0 : writeFinishes(records, new HashSet<>());
+    }
 
-        if (results == null || results.isEmpty()) {
-            insertTime(courseName, player.getName(), time, deaths);
-            return;
+    /**
+     * Write the finishes and add them to the caches.
+     * @param records
+     * @param personalBests populated with the finishes which beat the player's previous best time
+     * @return amount of finishes inserted
+     * @throws SQLException
+     */
+    private static int writeFinishes(List<FinishRecord> records, Set<FinishRecord> personalBests) throws SQLException {
+        List<FinishRecord> inserted = new ArrayList<>();
+
+        Map<String, Integer> courseIds = new HashMap<>();
+        Map<String, Integer> playerIds = new HashMap<>();
+        Map<Integer, Long> generations = new HashMap<>();
+        Map<Integer, Long> periodGenerations = new HashMap<>();
+        for (FinishRecord record : records) {
+            if (!courseIds.containsKey(record.getCourseName())) {
+                int courseId = getCourseId(record.getCourseName());
+                courseIds.put(record.getCourseName(), courseId);
+                generations.put(courseId, leaderboardCache.beginWrite(courseId));
+                periodGenerations.put(courseId, periodLeaderboards.beginWrite(courseId));
+            }
         }
 
-        TimeObject result = results.get(0);
+        for (FinishRecord record : records) {
+            if (!playerIds.containsKey(record.getPlayerName()))
+                playerIds.put(record.getPlayerName(), getPlayerId(record.getPlayerName(), true));
+        }
 
-        if (result.getTime() <= time)
-            return;
+        Parkour.getDatabaseObj().write(connection -> {
+            writeTimes(connection, records, courseIds, playerIds, personalBests, inserted);
+            return null;
+        });
 
-        player.sendMessage(Utils.getTranslation("Parkour.BestTime"));
-        deletePlayerCourseTimes(player.getName(), courseName);
-        insertTime(courseName, player.getName(), time, deaths);
+        for (int courseId : courseIds.values()) {
+            courseWritten(courseId);
+        }
+
+        for (FinishRecord record : inserted) {
+            int courseId = courseIds.get(record.getCourseName());
+            TimeObject result = new TimeObject(record.getPlayerName(), record.getTime(), record.getDeaths());
+            leaderboardCache.insert(courseId, result, record.isUpdateTime(), generations.get(courseId));
+            periodLeaderboards.insert(courseId, result, record.getCompletedAt(), periodGenerations.get(courseId));
+            rankIndex.offer(courseId, result);
+            completionCache.markCompleted(record.getPlayerName(), courseId);
+        }
+        return inserted.size();
+    }
+
+    /**
+     * Write the finishes within a single transaction, rolled back if any of them fail.
+     * @param connection
+     * @param records
+     * @param courseIds courseName to courseId
+     * @param playerIds playerName to playerId
+     * @param personalBests populated with the finishes which beat the player's previous best time
+     * @param inserted populated with the finishes written to the time table, finishes which were already written are left out
+     * @throws SQLException
+     */
+    private static void writeTimes(Connection connection, List<FinishRecord> records, Map<String, Integer> courseIds, Map<String, Integer> playerIds,
+                                   Set<FinishRecord> personalBests, List<FinishRecord> inserted) throws SQLException {
+        try (PersonalBestWriter personalBestWriter = new PersonalBestWriter(connection);
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM `time` WHERE `playerId`=? AND `courseId`=?;");
+             PreparedStatement insert = connection.prepareStatement(getInsertIgnore() + " `time` (`courseId`, `playerId`, `time`, `deaths`, `completed_at`, `recordId`) VALUES (?, ?, ?, ?, ?, ?);")) {
+            connection.setAutoCommit(false);
+            List<FinishRecord> written = new ArrayList<>();
+            Map<String, FinishRecord> latestBests = new HashMap<>();
+            List<FinishRecord> batched = new ArrayList<>();
+
+            try {
+                for (FinishRecord record : records) {
+                    int courseId = courseIds.get(record.getCourseName());
+                    if (courseId == 0)
+                        continue;
+
+                    int playerId = playerIds.get(record.getPlayerName());
+                    PersonalBest personalBest = personalBestWriter.write(courseId, playerId, record.getTime(), record.getDeaths());
+
+                    if (record.isUpdateTime()) {
+                        if (!personalBest.isRecorded())
+                            continue;
+
+                        if (personalBest == PersonalBest.BEATEN)
+                            personalBests.add(record);
+                        if (latestBests.put(courseId + ":" + playerId, record) == null) {
+                            delete.setInt(1, playerId);
+                            delete.setInt(2, courseId);
+                            delete.addBatch();
+                        }
+                    }
+                    written.add(record);
+                }
+
+                // only the last of several personal bests in the batch is kept, the earlier ones would have been deleted by it
+                for (FinishRecord record : written) {
+                    int courseId = courseIds.get(record.getCourseName());
+                    int playerId = playerIds.get(record.getPlayerName());
+                    if (record.isUpdateTime() && latestBests.get(courseId + ":" + playerId) != record)
+                        continue;
+
+                    insert.setInt(1, courseId);
+                    insert.setInt(2, playerId);
+                    insert.setLong(3, record.getTime());
+                    insert.setInt(4, record.getDeaths());
+                    insert.setLong(5, record.getCompletedAt());
+                    insert.setString(6, record.getRecordId());
+                    insert.addBatch();
+                    batched.add(record);
+                }
+
+                delete.executeBatch();
+                int[] counts = insert.executeBatch();
+                connection.commit();
+
+                // a finish replayed from the journal is ignored if it was written before the connection was lost
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0)
+                        inserted.add(batched.get(i));
+                }
+
+            } catch (SQLException e) {
+                connection.rollback();
+                personalBests.clear();
+                inserted.clear();
+                throw e;
+            }
+        }
     }
 
     /**
      * When a player votes whether or not a player likes course.
+     * If the database can't be reached the vote is added to the journal, to be written once it returns.
      * @param courseName
      * @param playerName
      * @param like
      */
     public static void insertVote(String courseName, String playerName, Boolean like){
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return;
+
         try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
+            final int playerId = getPlayerId(playerName, true);
+
+            Parkour.getDatabaseObj().write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("INSERT INTO `vote` (courseId, playerId, liked) VALUES (?, ?, ?);")) {
+                    ps.setInt(1, courseId);
+                    ps.setInt(2, playerId);
+                    ps.setBoolean(3, like);
+                    ps.executeUpdate();
+                }
+                return null;
+            });
+            courseWritten(courseId);
+            voteCache.add(courseId, playerName, like);
+
+        } catch (SQLException e) {
+            if (journal == null || !isConnectionFailure(e)) {
+                e.printStackTrace();
                 return;
+            }
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("INSERT INTO `vote` (courseId, player, liked) VALUES (?, ?, ?);");
-            ps.setInt(1, courseId);
-            ps.setString(2, playerName);
-            ps.setBoolean(3, like);
-            ps.executeUpdate();
-        } catch (SQLException | ClassNotFoundException e) {
-            e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
+            try {
+                journal.appendVote(courseName, playerName, like);
+                voteCache.add(courseId, playerName, like);
+            } catch (IOException ex) {
+                Utils.log("[SQL] Unable to save the vote of " + playerName + " to the journal: " + ex.getMessage(), 2);
+            }
         }
     }
 
     /**
-     * Calculate the percentage of how many players liked the course.
-     * @param courseName
-     * @return
+     * Journal to keep finishes and votes in while the database can't be reached.
+     * @param databaseJournal null to lose them instead
      */
-    public static double getVotePercent(String courseName){
-        double percentage = 0;
+    public static void setJournal(DatabaseJournal databaseJournal) {
+        journal = databaseJournal;
+    }
+
+    public static DatabaseJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Add the finishes to the journal if the database couldn't be reached.
+     * @return true if the finishes were saved to the journal
+     */
+    private static boolean journalFinishes(List<FinishRecord> records, SQLException e) {
+        if (journal == null || !isConnectionFailure(e))
+            return false;
+
         try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
-                return 0;
+            journal.appendFinishes(records);
+            Utils.log("[SQL] Saved " + records.size() + " finishes to the journal until the database returns.", 1);
+            return true;
+        } catch (IOException ex) {
+            Utils.log("[SQL] Unable to save " + records.size() + " finishes to the journal: " + ex.getMessage(), 2);
+            return false;
+        }
+    }
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("SELECT count(*) AS votes, (SELECT count(*) FROM vote WHERE liked = 1 AND courseId=?) AS likes FROM vote WHERE courseId=?;");
-            ps.setInt(1, courseId);
-            ps.setInt(2, courseId);
+    /**
+     * Write the finishes and votes saved to the journal while the database couldn't be reached.
+     * Nothing is attempted while the database is still unavailable. The journal is only cleared
+     * once every entry has been written, entries written by an earlier attempt are ignored.
+     */
+    public static void recoverJournal() {
+        if (journal == null || !journal.hasEntries() || Parkour.getDatabaseObj().getCircuitBreaker().isOpen())
+            return;
 
-            final ResultSet rs = ps.executeQuery();
+        try {
+            DatabaseJournal.Entries entries = journal.beginReplay();
+            if (entries == null)
+                return;
 
-            if (rs.next()) {
-                int total = rs.getInt("votes");
-                int likes = rs.getInt("likes");
+            if (!entries.getFinishes().isEmpty())
+                writeFinishes(entries.getFinishes(), new HashSet<>());
 
-                if (total > 0) {
-                    percentage = ((likes * 1.0 / total) * 100);
-                }
+            for (DatabaseJournal.Vote vote : entries.getVotes()) {
+                replayVote(vote);
             }
-        } catch (SQLException | ClassNotFoundException e) {
-            e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
+
+            journal.completeReplay();
+            Utils.log("[SQL] Recovered " + entries.size() + " entries from the journal.");
+
+        } catch (IOException | SQLException e) {
+            Utils.log("[SQL] Unable to recover the journal, it will be tried again: " + e.getMessage(), 1);
         }
-        return percentage;
+    }
+
+    private static void replayVote(final DatabaseJournal.Vote vote) throws SQLException {
+        final int courseId = getCourseId(vote.getCourseName(), false);
+        if (courseId == 0)
+            return;
+
+        final int playerId = getPlayerId(vote.getPlayerName(), true);
+
+        Parkour.getDatabaseObj().write(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(getInsertIgnore() + " `vote` (courseId, playerId, liked) VALUES (?, ?, ?);")) {
+                ps.setInt(1, courseId);
+                ps.setInt(2, playerId);
+                ps.setBoolean(3, vote.isLiked());
+                ps.executeUpdate();
+            }
+            return null;
+        });
+        courseWritten(courseId);
+        voteCache.invalidate(courseId);
+    }
+
+    /**
+     * Calculate the percentage of how many players liked the course.
+     * @param courseName
+     * @return
+     */
+    public static double getVotePercent(String courseName){
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return 0;
+
+        VoteCache.CourseVotes votes = getCourseVotes(courseId);
+        return votes == null ? 0 : votes.getLikePercent();
     }
 
     public static boolean hasVoted(String courseName, String playerName){
-        boolean voted = true;
-        try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
-                return true;
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return true;
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("SELECT 1 FROM vote WHERE courseId=? AND player=? LIMIT 1;");
+        VoteCache.CourseVotes votes = getCourseVotes(courseId);
+        return votes == null || votes.hasVoted(playerName);
+    }
+
+    /**
+     * Get the votes for the course, loading them from the database the first time.
+     * @param courseId
+     * @return votes, null if they couldn't be loaded
+     */
+    private static VoteCache.CourseVotes getCourseVotes(int courseId) {
+        VoteCache.CourseVotes votes = voteCache.getVotes(courseId);
+        if (votes != null)
+            return votes;
+
+        long generation = voteCache.getGeneration(courseId);
+        try (Connection connection = getCourseReadConnection(courseId);
+             PreparedStatement ps = connection.prepareStatement("SELECT p.name AS player, v.liked FROM vote v JOIN player p ON p.playerId = v.playerId WHERE v.courseId=?;")) {
             ps.setInt(1, courseId);
-            ps.setString(2, playerName);
+            Map<String, Boolean> loaded = new HashMap<>();
+
             ResultSet rs = ps.executeQuery();
-            if (!rs.next()){
-                voted = false;
+            while (rs.next()) {
+                loaded.put(rs.getString("player"), rs.getBoolean("liked"));
             }
+            return voteCache.load(courseId, loaded, generation);
 
-        } catch (SQLException | ClassNotFoundException e) {
+        } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
-        return voted;
+        return null;
     }
 
     /**
@@ -263,32 +959,70 @@ public class DatabaseMethods extends Database {
      */
     public static void deleteAllTimesForPlayer(String playerName){
         try {
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("DELETE FROM `time` WHERE `player`=?;");
-            ps.setString(1, playerName);
-            ps.executeUpdate();
-        } catch (SQLException | ClassNotFoundException e){
+            final int playerId = getPlayerId(playerName, false);
+            if (playerId == 0)
+                return;
+
+            Parkour.getDatabaseObj().write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("DELETE FROM `time` WHERE `playerId`=?;");
+                     PreparedStatement best = connection.prepareStatement("DELETE FROM `personal_best` WHERE `playerId`=?;")) {
+                    ps.setInt(1, playerId);
+                    ps.executeUpdate();
+                    best.setInt(1, playerId);
+                    best.executeUpdate();
+                }
+                return null;
+            });
+            allCoursesWritten();
+            leaderboardCache.invalidateAll();
+            periodLeaderboards.invalidateAll();
+            rankIndex.removePlayer(playerName);
+            completionCache.clearPlayer(playerName);
+        } catch (SQLException e){
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
     }
 
     /**
      * For usage if a course has been deleted.
      * Remove the times, votes and actual course from the database.
+     * SQLite doesn't enforce the foreign keys, so the references are removed rather than relying on them cascading,
+     * otherwise they would be picked up by the next course given the same courseId.
      * @param courseName
      */
     public static void deleteCourseAndReferences(String courseName){
+        int courseId = getCourseId(courseName, false);
+
         try {
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("DELETE FROM `course` WHERE `name`=?;");
-            ps.setString(1, courseName);
-            ps.executeUpdate();
-        } catch (SQLException | ClassNotFoundException e) {
+            Parkour.getDatabaseObj().write(connection -> {
+                connection.setAutoCommit(false);
+                try (PreparedStatement ps = connection.prepareStatement("DELETE FROM `course` WHERE `name`=?;")) {
+                    if (courseId != 0) {
+                        for (String table : new String[] {"time", "personal_best", "vote", "course_stats"}) {
+                            try (PreparedStatement references = connection.prepareStatement("DELETE FROM `" + table + "` WHERE `courseId`=?;")) {
+                                references.setInt(1, courseId);
+                                references.executeUpdate();
+                            }
+                        }
+                    }
+                    ps.setString(1, courseName);
+                    ps.executeUpdate();
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+                return null;
+            });
+            courseWritten(courseId);
+            courseRegistry.markMissing(courseName);
+            leaderboardCache.invalidate(courseId);
+            periodLeaderboards.invalidate(courseId);
+            rankIndex.removeCourse(courseId);
+            completionCache.clearCourse(courseId);
+            voteCache.invalidate(courseId);
+        } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
     }
 
@@ -297,38 +1031,60 @@ public class DatabaseMethods extends Database {
      * @param courseName
      */
     public static void deleteCourseTimes(String courseName){
-        try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
-                return;
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return;
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("DELETE FROM `time` WHERE `courseId`=?;");
-            ps.setInt(1, courseId);
-            ps.executeUpdate();
-        } catch (SQLException | ClassNotFoundException e) {
+        try {
+            Parkour.getDatabaseObj().write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("DELETE FROM `time` WHERE `courseId`=?;");
+                     PreparedStatement best = connection.prepareStatement("DELETE FROM `personal_best` WHERE `courseId`=?;")) {
+                    ps.setInt(1, courseId);
+                    ps.executeUpdate();
+                    best.setInt(1, courseId);
+                    best.executeUpdate();
+                }
+                return null;
+            });
+            courseWritten(courseId);
+            leaderboardCache.invalidate(courseId);
+            periodLeaderboards.invalidate(courseId);
+            rankIndex.removeCourse(courseId);
+            completionCache.clearCourse(courseId);
+        } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
     }
 
     public static void deletePlayerCourseTimes(String playerName, String courseName) {
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return;
+
         try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
+            final int playerId = getPlayerId(playerName, false);
+            if (playerId == 0)
                 return;
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("DELETE FROM `time` WHERE `player`=? AND `courseId`=?;");
-
-            ps.setString(1, playerName);
-            ps.setInt(2, courseId);
-            ps.executeUpdate();
-        } catch (SQLException | ClassNotFoundException e) {
+            Parkour.getDatabaseObj().write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("DELETE FROM `time` WHERE `playerId`=? AND `courseId`=?;");
+                     PreparedStatement best = connection.prepareStatement("DELETE FROM `personal_best` WHERE `playerId`=? AND `courseId`=?;")) {
+                    ps.setInt(1, playerId);
+                    ps.setInt(2, courseId);
+                    ps.executeUpdate();
+                    best.setInt(1, playerId);
+                    best.setInt(2, courseId);
+                    best.executeUpdate();
+                }
+                return null;
+            });
+            courseWritten(courseId);
+            leaderboardCache.invalidate(courseId);
+            periodLeaderboards.invalidate(courseId);
+            rankIndex.removePlayer(courseId, playerName);
+            completionCache.clear(playerName, courseId);
+        } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
     }
 
@@ -336,28 +1092,152 @@ public class DatabaseMethods extends Database {
         return getTopCourseResults(courseName, 5);
     }
 
+    /**
+     * Get the fastest times for the course.
+     * Served from the leaderboard cache, the course's leaderboard is only loaded from the database the first time.
+     * @param courseName
+     * @param limit
+     * @return
+     */
     public static List<TimeObject> getTopCourseResults(String courseName, int limit){
-        limit = limit < 1 ? 1 : limit > 20 ? 20 : limit;
+        limit = limit < 1 ? 1 : limit > LeaderboardCache.MAX_RESULTS ? LeaderboardCache.MAX_RESULTS : limit;
 
         List<TimeObject> times = new ArrayList<>();
-        try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
-                return times;
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return times;
+
+        List<TimeObject> cached = leaderboardCache.getTopResults(courseId, limit);
+        if (cached != null)
+            return cached;
+
+        long generation = leaderboardCache.getGeneration(courseId);
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("SELECT player, time, deaths FROM time WHERE courseId=? ORDER BY time LIMIT ?;");
+        try (Connection connection = getCourseReadConnection(courseId);
+             PreparedStatement ps = connection.prepareStatement("SELECT p.name AS player, t.time, t.deaths FROM time t JOIN player p ON p.playerId = t.playerId WHERE t.courseId=? ORDER BY t.time LIMIT ?;")) {
             ps.setInt(1, courseId);
-            ps.setInt(2, limit);
+            ps.setInt(2, LeaderboardCache.MAX_RESULTS);
 
             times = processTimes(ps.executeQuery());
+            leaderboardCache.load(courseId, times, generation);
 
-        } catch (SQLException | ClassNotFoundException e) {
+        } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
-        return times;
+        return times.size() > limit ? new ArrayList<>(times.subList(0, limit)) : times;
+    }
+
+    /**
+     * Get the fastest players on the course during the current day, week or month, one time per player.
+     * Served from memory, the course's times for the period are only read from the database the first time.
+     * @param courseName
+     * @param period
+     * @param limit
+     * @return
+     */
+    public static List<TimeObject> getTopPeriodResults(String courseName, LeaderboardPeriod period, int limit) {
+        limit = limit < 1 ? 1 : limit > PeriodLeaderboards.MAX_RESULTS ? PeriodLeaderboards.MAX_RESULTS : limit;
+
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return new ArrayList<>();
+
+        periodLeaderboards.roll(System.currentTimeMillis());
+        List<TimeObject> cached = periodLeaderboards.getTopResults(courseId, period, limit);
+        if (cached != null)
+            return cached;
+
+        long generation = periodLeaderboards.getGeneration(courseId);
+        long start = periodLeaderboards.getStart(period);
+        List<TimeObject> times = new ArrayList<>();
+
+        try (Connection connection = getCourseReadConnection(courseId);
+             PreparedStatement ps = connection.prepareStatement("SELECT p.name AS player, t.time, t.deaths FROM time t JOIN player p ON p.playerId = t.playerId WHERE t.courseId=? AND t.completed_at >= ? ORDER BY t.time;")) {
+            ps.setInt(1, courseId);
+            ps.setLong(2, start);
+
+            times = periodLeaderboards.load(courseId, period, start, processTimes(ps.executeQuery()), generation);
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return times.size() > limit ? new ArrayList<>(times.subList(0, limit)) : times;
+    }
+
+    /**
+     * The course's slower runs have been removed by the {@link me.A5H73Y.Parkour.Storage.TimeCompactor}.
+     * The leaderboard can hold several runs of the same player, so it's loaded again.
+     * @param courseId
+     */
+    public static void timesCompacted(int courseId) {
+        courseWritten(courseId);
+        leaderboardCache.invalidate(courseId);
+    }
+
+    /**
+     * Start a new day, week or month for the period leaderboards if one has ended.
+     */
+    public static void rollLeaderboards() {
+        periodLeaderboards.roll(System.currentTimeMillis());
+    }
+
+    /**
+     * Get the player's position on the course, based on their best time.
+     * @param courseName
+     * @param playerName
+     * @return rank starting at 1, 0 if the player hasn't completed the course
+     */
+    public static int getPlayerRank(String courseName, String playerName) {
+        CourseRankIndex index = getCourseRankIndex(courseName);
+        return index == null ? 0 : index.getRank(playerName);
+    }
+
+    /**
+     * Get the player's best time on the course.
+     * @param courseName
+     * @param playerName
+     * @return best time, null if the player hasn't completed the course
+     */
+    public static TimeObject getPlayerBestTime(String courseName, String playerName) {
+        CourseRankIndex index = getCourseRankIndex(courseName);
+        return index == null ? null : index.getTime(playerName);
+    }
+
+    /**
+     * @param courseName
+     * @return amount of players who have completed the course
+     */
+    public static int getRankedPlayerCount(String courseName) {
+        CourseRankIndex index = getCourseRankIndex(courseName);
+        return index == null ? 0 : index.size();
+    }
+
+    /**
+     * Get the best time needed to be within the given percentile of players.
+     * @param courseName
+     * @param percentile 0 being the fastest, 100 the slowest
+     * @return time, null if nobody has completed the course
+     */
+    public static TimeObject getPercentileTime(String courseName, double percentile) {
+        CourseRankIndex index = getCourseRankIndex(courseName);
+        return index == null ? null : index.getPercentile(percentile);
+    }
+
+    /**
+     * Get a page of the course's leaderboard, one best time per player.
+     * @param courseName
+     * @param page starting at 1
+     * @param pageSize
+     * @return
+     */
+    public static List<TimeObject> getLeaderboardPage(String courseName, int page, int pageSize) {
+        CourseRankIndex index = getCourseRankIndex(courseName);
+        return index == null ? new ArrayList<TimeObject>() : index.getPage(Math.max(1, page), pageSize);
+    }
+
+    private static CourseRankIndex getCourseRankIndex(String courseName) {
+        int courseId = getCourseId(courseName);
+        return courseId == 0 ? null : rankIndex.getCourse(courseId);
     }
 
     public static List<TimeObject> getTopPlayerCourseResults(String playerName, String courseName){
@@ -368,66 +1248,168 @@ public class DatabaseMethods extends Database {
         limit = limit < 1 ? 1 : limit > 20 ? 20 : limit;
 
         List<TimeObject> times = new ArrayList<>();
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return times;
+
         try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
+            int playerId = getPlayerId(playerName, false);
+            if (playerId == 0)
                 return times;
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("SELECT player, time, deaths FROM time WHERE courseId=? AND player=? ORDER BY time LIMIT ?;");
-            ps.setInt(1, courseId);
-            ps.setString(2, playerName);
-            ps.setInt(3, limit);
+            try (Connection connection = getLatestReadConnection();
+                 PreparedStatement ps = connection.prepareStatement("SELECT p.name AS player, t.time, t.deaths FROM time t JOIN player p ON p.playerId = t.playerId WHERE t.courseId=? AND t.playerId=? ORDER BY t.time LIMIT ?;")) {
+                ps.setInt(1, courseId);
+                ps.setInt(2, playerId);
+                ps.setInt(3, limit);
 
-            times = processTimes(ps.executeQuery());
+                times = processTimes(ps.executeQuery());
+            }
 
-        } catch (SQLException | ClassNotFoundException e) {
+        } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
         return times;
     }
 
+    /**
+     * Check whether the player has completed the course.
+     * Answered from the completion cache once the player's completions have loaded.
+     * @param playerName
+     * @param courseName
+     * @return
+     */
     public static boolean hasPlayerCompleted(String playerName, String courseName) {
         boolean completed = true;
+        int courseId = getCourseId(courseName);
+        if (courseId == 0)
+            return true;
+
+        Boolean cached = completionCache.hasCompleted(playerName, courseId);
+        if (cached != null)
+            return cached;
+
+        // an online player's completions are read when they join, until then they're treated as completed rather than queried here
+        if (completionCache.isLoading(playerName))
+            return true;
+
         try {
-            int courseId = getCourseId(courseName);
-            if (courseId == 0)
-                return true;
+            int playerId = getPlayerId(playerName, false);
+            if (playerId == 0)
+                return false;
 
-            PreparedStatement ps = Parkour.getDatabaseObj().openConnection()
-                    .prepareStatement("SELECT 1 FROM time WHERE courseId=? AND player=? LIMIT 1;");
-            ps.setInt(1, courseId);
-            ps.setString(2, playerName);
-            ResultSet rs = ps.executeQuery();
-            if (!rs.next()){
-                completed = false;
+            try (Connection connection = getLatestReadConnection();
+                 PreparedStatement ps = connection.prepareStatement("SELECT 1 FROM personal_best WHERE courseId=? AND playerId=?;")) {
+                ps.setInt(1, courseId);
+                ps.setInt(2, playerId);
+                ResultSet rs = ps.executeQuery();
+                if (!rs.next()){
+                    completed = false;
+                }
             }
 
-        } catch (SQLException | ClassNotFoundException e) {
+        } catch (SQLException e) {
             e.printStackTrace();
-        } finally {
-            Parkour.getDatabaseObj().closeConnection();
         }
         return completed;
     }
 
     public static void recreateAllCourses() {
+        final Map<String, String> creators = getCourseCreators();
+
         Bukkit.getScheduler().runTaskLaterAsynchronously(Parkour.getPlugin(), new Runnable() {
             @Override
             public void run() {
                 Utils.logToFile("Started courses recreation.");
                 Utils.log("Starting recreation of courses process...");
-                int changes = 0;
-                for (String courseName : Static.getCourses()){
-                    if (getCourseId(courseName) == 0){
-                        insertCourse(courseName, CourseInfo.getCreator(courseName));
-                        changes++;
+                reconcileCourses(creators);
+            }
+        }, 1);
+    }
+
+    /**
+     * Read the creator of every course in the config.
+     * Run on the main thread, as the course config isn't safe to read elsewhere.
+     * @return courseName to creator
+     */
+    public static Map<String, String> getCourseCreators() {
+        Map<String, String> creators = new HashMap<>();
+
+        for (String courseName : Static.getCourses()) {
+            creators.put(courseName, CourseInfo.getCreator(courseName));
+        }
+        return creators;
+    }
+
+    /**
+     * Insert every course which is in the config but missing from the database.
+     * The course table is read in one query and the missing courses are inserted in one batched transaction,
+     * then the course registry is reloaded from the result.
+     * @param creators courseName to creator, from {@link #getCourseCreators()}
+     * @return amount of courses inserted
+     */
+    public static int reconcileCourses(final Map<String, String> creators) {
+        long started = System.currentTimeMillis();
+
+        try {
+            int[] counts = Parkour.getDatabaseObj().write(connection -> {
+                Map<String, Integer> existing = readCourseIds(connection);
+                List<String> missing = new ArrayList<>();
+
+                for (String courseName : creators.keySet()) {
+                    if (!existing.containsKey(courseName.toLowerCase()))
+                        missing.add(courseName);
+                }
+
+                if (!missing.isEmpty()) {
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement ps = connection.prepareStatement(getInsertIgnore() + " `course` (`name`, `author`) VALUES (?, ?);")) {
+                        for (String courseName : missing) {
+                            String creator = creators.get(courseName);
+                            ps.setString(1, courseName);
+                            ps.setString(2, creator == null ? "Unknown" : creator);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        connection.commit();
+
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
                     }
+                    existing = readCourseIds(connection);
                 }
-                Utils.log("Process complete. Courses recreated: " + changes);
+
+                courseRegistry.load(existing);
+                return new int[] {missing.size(), existing.size()};
+            });
+
+            if (counts[0] > 0)
+                allCoursesWritten();
+
+            Utils.log("Process complete. Courses recreated: " + counts[0] + " (" + creators.size() + " in config, "
+                    + counts[1] + " in database) in " + (System.currentTimeMillis() - started) + "ms");
+            return counts[0];
+
+        } catch (SQLException e) {
+            Utils.log("[SQL] Failed to recreate courses: " + e.getMessage(), 2);
+            return 0;
+        }
+    }
+
+    /**
+     * @return lowercase courseName to courseId, for every course in the database
+     */
+    private static Map<String, Integer> readCourseIds(Connection connection) throws SQLException {
+        Map<String, Integer> courses = new HashMap<>();
+
+        try (PreparedStatement ps = connection.prepareStatement("SELECT courseId, name FROM course;")) {
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                courses.put(rs.getString("name").toLowerCase(), rs.getInt("courseId"));
             }
-        }, 1);
+        }
+        return courses;
     }
 }
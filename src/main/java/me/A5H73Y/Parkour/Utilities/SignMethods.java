@@ -3,6 +3,7 @@ package me.A5H73Y.Parkour.Utilities;
 import me.A5H73Y.Parkour.Course.CourseInfo;
 import me.A5H73Y.Parkour.Parkour;
 import me.A5H73Y.Parkour.Course.CourseMethods;
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
 
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
@@ -159,8 +160,9 @@ public class SignMethods {
 	    if (!createStandardCourseSign(sign, player, "Leaderboards", false))
 	        return;
 
+	    // the last line is either the amount of results or a period
 	    if (!sign.getLine(3).isEmpty()) {
-	        if (!Utils.isNumber(sign.getLine(3)))
+	        if (!Utils.isNumber(sign.getLine(3)) && LeaderboardPeriod.fromName(sign.getLine(3)) == null)
 	            sign.setLine(3, "");
         }
 
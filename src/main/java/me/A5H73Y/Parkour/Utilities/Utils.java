@@ -11,6 +11,7 @@ import java.io.PrintWriter;
 import java.text.Format;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.logging.Logger;
 
 import me.A5H73Y.Parkour.Course.CourseInfo;
 import me.A5H73Y.Parkour.Other.*;
@@ -220,16 +221,19 @@ public final class Utils {
      * @param severity (0 - 2)
      */
     public static void log(String message, int severity) {
+        // the plugin isn't enabled when the storage is used outside of the server, such as by the tests
+        Logger logger = Parkour.getPlugin() != null ? Parkour.getPlugin().getLogger() : Logger.getLogger("Parkour");
+
         switch (severity) {
             case 1:
-                Parkour.getPlugin().getLogger().warning(message);
+                logger.warning(message);
                 break;
             case 2:
-                Parkour.getPlugin().getLogger().severe("! " + message);
+                logger.severe("! " + message);
                 break;
             case 0:
             default:
-                Parkour.getPlugin().getLogger().info(message);
+                logger.info(message);
                 break;
         }
     }
@@ -618,6 +622,17 @@ public final class Utils {
      * @param courseName
      */
     public static void displayLeaderboard(Player player, List<TimeObject> times, String courseName) {
+        displayLeaderboard(player, times, courseName, 1);
+    }
+
+    /**
+     * Display the leaderboard, numbering the entries from the given position.
+     * @param player
+     * @param times
+     * @param courseName
+     * @param startPosition position of the first entry
+     */
+    public static void displayLeaderboard(Player player, List<TimeObject> times, String courseName, int startPosition) {
         if (times.isEmpty()) {
             player.sendMessage(Static.getParkourString() + "No results were found!");
             return;
@@ -631,7 +646,7 @@ public final class Utils {
 
         for (int i = 0; i < times.size(); i++) {
             String translation = Utils.getTranslation("Parkour.LeaderboardEntry", false)
-                    .replace("%POSITION%", String.valueOf(i + 1))
+                    .replace("%POSITION%", String.valueOf(startPosition + i))
                     .replace("%PLAYER%", times.get(i).getPlayer())
                     .replace("%TIME%", Utils.displayCurrentTime(times.get(i).getTime()))
                     .replace("%DEATHS%", String.valueOf(times.get(i).getDeaths()));
@@ -981,5 +996,7 @@ public final class Utils {
         Parkour.getParkourConfig().reload();
         Parkour.setSettings(new Settings());
         Static.initiate();
+        CourseInfo.clearDefinitions();
+        PlayerInfo.loadProfiles();
     }
 }
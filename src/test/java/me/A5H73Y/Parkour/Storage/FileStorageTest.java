@@ -0,0 +1,137 @@
+package me.A5H73Y.Parkour.Storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
+import me.A5H73Y.Parkour.Other.TimeObject;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileStorageTest extends ParkourStorageContractTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Override
+    protected ParkourStorage createStorage() throws Exception {
+        file = new File(folder.getRoot(), "storage/parkour.log");
+        return new FileStorage(file);
+    }
+
+    @Test
+    public void reopeningRecreatesTheSameState() throws Exception {
+        String player = uniqueName("p");
+        String other = uniqueName("p");
+        String removed = uniqueName("p");
+        String deletedCourse = newCourse();
+        long old = System.currentTimeMillis() - 400L * 24 * 60 * 60 * 1000;
+
+        storage.insertTimes(list(finish(course, player, 900, true), finish(course, player, 1200, true), finish(course, player, 700, true)));
+        storage.insertTimes(list(finish(course, other, 800, false), finish(course, other, 600, false)));
+        storage.importTimes(list(new FinishRecord(UUID.randomUUID().toString(), course, removed, 500, 3, false, old)));
+        storage.insertTimes(list(finish(deletedCourse, player, 100, false)));
+        storage.insertVote(course, player, true);
+        storage.insertVote(course, other, false);
+        storage.deletePlayerCourseTimes(removed, course);
+        storage.deleteCourse(deletedCourse);
+
+        List<String> before = describe(storage, player, other, removed);
+        storage.shutdown();
+
+        storage = new FileStorage(file);
+        assertEquals(before, describe(storage, player, other, removed));
+        assertFalse(storage.hasCourse(deletedCourse));
+
+        // compacted on open, so reopening again reads the snapshot rather than the changes
+        storage.shutdown();
+        storage = new FileStorage(file);
+        assertEquals(before, describe(storage, player, other, removed));
+    }
+
+    @Test
+    public void recordIdsSurviveReopening() throws Exception {
+        List<FinishRecord> records = list(new FinishRecord(UUID.randomUUID().toString(), course, uniqueName("p"), 1000, 0, false, System.currentTimeMillis()));
+        assertEquals(1, storage.importTimes(records));
+        storage.shutdown();
+
+        storage = new FileStorage(file);
+        assertEquals(0, storage.importTimes(records));
+    }
+
+    @Test
+    public void compactionDropsReplacedTimes() throws Exception {
+        String player = uniqueName("p");
+        for (int time = 2000; time > 1000; time -= 100) {
+            storage.insertTimes(list(finish(course, player, time, true)));
+        }
+        int logged = countLines();
+        storage.shutdown();
+
+        storage = new FileStorage(file);
+        assertTrue(countLines() < logged);
+        assertEquals(1100, storage.getPlayerBestTime(course, player).getTime());
+    }
+
+    @Test
+    public void damagedEntriesAreSkipped() throws Exception {
+        String player = uniqueName("p");
+        storage.insertTimes(list(finish(course, player, 1000, true)));
+        storage.shutdown();
+
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("12345 T\tbroken\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        storage = new FileStorage(file);
+        assertTrue(storage.hasCourse(course));
+        assertEquals(1000, storage.getPlayerBestTime(course, player).getTime());
+    }
+
+    private int countLines() throws IOException {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size();
+    }
+
+    /**
+     * Everything the storage can answer about the course and players, in a comparable form.
+     */
+    private List<String> describe(ParkourStorage storage, String... players) {
+        List<String> state = new ArrayList<>();
+        state.add("course " + storage.hasCourse(course));
+        state.add("top " + describe(storage.getTopCourseResults(course, 10)));
+        state.add("monthly " + describe(storage.getTopPeriodResults(course, LeaderboardPeriod.MONTHLY, 10)));
+        state.add("page " + describe(storage.getLeaderboardPage(course, 1, 10)));
+        state.add("ranked " + storage.getRankedPlayerCount(course));
+        state.add("votes " + storage.getVotePercent(course));
+
+        for (String player : players) {
+            state.add(player + " times " + describe(storage.getTopPlayerCourseResults(player, course, 10)));
+            state.add(player + " rank " + storage.getPlayerRank(course, player));
+            state.add(player + " completed " + storage.hasPlayerCompleted(player, course));
+            state.add(player + " voted " + storage.hasVoted(course, player));
+        }
+        return state;
+    }
+
+    private static String describe(List<TimeObject> times) {
+        StringBuilder description = new StringBuilder();
+        for (TimeObject time : times) {
+            description.append(time.getPlayer()).append(':').append(time.getTime()).append(':').append(time.getDeaths()).append(' ');
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package me.A5H73Y.Parkour.Storage;
+
+import static org.junit.Assert.assertFalse;
+
+import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The SQL engine as used with SQLite older than 3.24, which writes personal bests without an upsert.
+ */
+public class LegacySqliteStorageTest extends SqlStorageTest {
+
+    @Before
+    public void useLegacyStatements() {
+        DatabaseMethods.setSQLiteVersion("3.21.0");
+    }
+
+    @After
+    public void restoreVersion() {
+        DatabaseMethods.setSQLiteVersion(SqliteTestDatabase.getVersion());
+    }
+
+    @Test
+    public void upsertIsNotUsed() {
+        assertFalse(DatabaseMethods.hasNativeUpsert());
+    }
+}
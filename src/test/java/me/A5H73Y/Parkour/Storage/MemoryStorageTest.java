@@ -0,0 +1,9 @@
+package me.A5H73Y.Parkour.Storage;
+
+public class MemoryStorageTest extends ParkourStorageContractTest {
+
+    @Override
+    protected ParkourStorage createStorage() {
+        return new MemoryStorage();
+    }
+}
@@ -0,0 +1,289 @@
+package me.A5H73Y.Parkour.Storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.A5H73Y.Parkour.Enums.LeaderboardPeriod;
+import me.A5H73Y.Parkour.Other.TimeObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Behaviour every {@link ParkourStorage} engine must share, run against each engine by its subclass.
+ * Course and player names are unique to each test, as the SQL engine's caches are shared by every test in the run.
+ */
+public abstract class ParkourStorageContractTest {
+
+    private static final AtomicInteger names = new AtomicInteger();
+
+    protected ParkourStorage storage;
+    protected String course;
+
+    /**
+     * @return a new, empty storage
+     */
+    protected abstract ParkourStorage createStorage() throws Exception;
+
+    @Before
+    public void setUp() throws Exception {
+        storage = createStorage();
+        course = newCourse();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        storage.shutdown();
+    }
+
+    protected String newCourse() {
+        String courseName = uniqueName("course");
+        storage.insertCourse(courseName, "author");
+        return courseName;
+    }
+
+    protected static String uniqueName(String prefix) {
+        return prefix + names.incrementAndGet();
+    }
+
+    protected static FinishRecord finish(String courseName, String playerName, long time, boolean updateTime) {
+        return new FinishRecord(courseName, playerName, time, 0, updateTime);
+    }
+
+    protected static List<FinishRecord> list(FinishRecord... records) {
+        return new ArrayList<>(Arrays.asList(records));
+    }
+
+    @Test
+    public void courseCanBeCreatedAndDeleted() {
+        assertTrue(storage.hasCourse(course));
+        assertFalse(storage.hasCourse(uniqueName("missing")));
+
+        storage.deleteCourse(course);
+        assertFalse(storage.hasCourse(course));
+    }
+
+    @Test
+    public void deletingCourseRemovesItsTimes() {
+        String player = uniqueName("p");
+        storage.insertTimes(list(finish(course, player, 1000, false)));
+
+        storage.deleteCourse(course);
+
+        assertTrue(storage.getTopCourseResults(course, 10).isEmpty());
+        assertEquals(0, storage.getRankedPlayerCount(course));
+    }
+
+    @Test
+    public void bestTimeIsOnlyReplacedWhenBeaten() {
+        String player = uniqueName("p");
+        FinishRecord first = finish(course, player, 1000, true);
+        FinishRecord slower = finish(course, player, 2000, true);
+        FinishRecord faster = finish(course, player, 500, true);
+
+        // a first time has nothing to beat
+        assertTrue(storage.insertTimes(list(first)).isEmpty());
+        assertTrue(storage.insertTimes(list(slower)).isEmpty());
+        assertTrue(storage.insertTimes(list(faster)).contains(faster));
+
+        List<TimeObject> times = storage.getTopPlayerCourseResults(player, course, 10);
+        assertEquals(1, times.size());
+        assertEquals(500, times.get(0).getTime());
+        assertEquals(500, storage.getPlayerBestTime(course, player).getTime());
+    }
+
+    @Test
+    public void personalBestsAreReportedWithinOneBatch() {
+        String player = uniqueName("p");
+        FinishRecord first = finish(course, player, 1000, true);
+        FinishRecord slower = finish(course, player, 1500, true);
+        FinishRecord faster = finish(course, player, 800, true);
+
+        Set<FinishRecord> personalBests = storage.insertTimes(list(first, slower, faster));
+
+        assertEquals(1, personalBests.size());
+        assertTrue(personalBests.contains(faster));
+        assertEquals(1, storage.getTopPlayerCourseResults(player, course, 10).size());
+        assertEquals(800, storage.getPlayerBestTime(course, player).getTime());
+    }
+
+    @Test
+    public void everyTimeIsKeptWhenNotOnlyTheBest() {
+        String player = uniqueName("p");
+
+        Set<FinishRecord> personalBests = storage.insertTimes(list(
+                finish(course, player, 3000, false), finish(course, player, 1000, false), finish(course, player, 2000, false)));
+
+        assertTrue(personalBests.isEmpty());
+        List<TimeObject> times = storage.getTopPlayerCourseResults(player, course, 10);
+        assertEquals(3, times.size());
+        assertEquals(1000, times.get(0).getTime());
+        assertEquals(3000, times.get(2).getTime());
+        assertEquals(1000, storage.getPlayerBestTime(course, player).getTime());
+        assertEquals(1, storage.getRankedPlayerCount(course));
+    }
+
+    @Test
+    public void topResultsAreOrderedByTime() {
+        storage.insertTimes(list(finish(course, uniqueName("p"), 300, false), finish(course, uniqueName("p"), 100, false),
+                finish(course, uniqueName("p"), 200, false)));
+
+        List<TimeObject> times = storage.getTopCourseResults(course, 2);
+        assertEquals(2, times.size());
+        assertEquals(100, times.get(0).getTime());
+        assertEquals(200, times.get(1).getTime());
+    }
+
+    @Test
+    public void periodResultsIncludeRecentFinishes() {
+        String player = uniqueName("p");
+        storage.insertTimes(list(finish(course, player, 700, false), finish(course, player, 600, false)));
+
+        List<TimeObject> times = storage.getTopPeriodResults(course, LeaderboardPeriod.DAILY, 10);
+        assertEquals(1, times.size());
+        assertEquals(600, times.get(0).getTime());
+    }
+
+    @Test
+    public void duplicateRecordIdsAreOnlyRecordedOnce() throws Exception {
+        String player = uniqueName("p");
+        long now = System.currentTimeMillis();
+        List<FinishRecord> records = list(
+                new FinishRecord(UUID.randomUUID().toString(), course, player, 1000, 1, false, now),
+                new FinishRecord(UUID.randomUUID().toString(), course, player, 2000, 2, false, now));
+
+        assertEquals(2, storage.importTimes(records));
+        assertEquals(0, storage.importTimes(records));
+
+        assertTrue(storage.insertTimes(list(records.get(0))).isEmpty());
+        assertEquals(2, storage.getTopPlayerCourseResults(player, course, 10).size());
+    }
+
+    @Test
+    public void deletingCourseTimesRemovesEveryPlayer() {
+        String first = uniqueName("p");
+        String second = uniqueName("p");
+        storage.insertTimes(list(finish(course, first, 1000, false), finish(course, second, 2000, false)));
+
+        storage.deleteCourseTimes(course);
+
+        assertTrue(storage.hasCourse(course));
+        assertTrue(storage.getTopCourseResults(course, 10).isEmpty());
+        assertEquals(0, storage.getRankedPlayerCount(course));
+        assertFalse(storage.hasPlayerCompleted(first, course));
+    }
+
+    @Test
+    public void deletingPlayerCourseTimesKeepsOtherPlayersAndCourses() {
+        String otherCourse = newCourse();
+        String player = uniqueName("p");
+        String other = uniqueName("p");
+        storage.insertTimes(list(finish(course, player, 1000, false), finish(course, other, 2000, false),
+                finish(otherCourse, player, 3000, false)));
+
+        storage.deletePlayerCourseTimes(player, course);
+
+        assertTrue(storage.getTopPlayerCourseResults(player, course, 10).isEmpty());
+        assertNull(storage.getPlayerBestTime(course, player));
+        assertFalse(storage.hasPlayerCompleted(player, course));
+        assertEquals(1, storage.getTopPlayerCourseResults(other, course, 10).size());
+        assertEquals(1, storage.getTopPlayerCourseResults(player, otherCourse, 10).size());
+    }
+
+    @Test
+    public void deletingAllPlayerTimesCoversEveryCourse() {
+        String otherCourse = newCourse();
+        String player = uniqueName("p");
+        String other = uniqueName("p");
+        storage.insertTimes(list(finish(course, player, 1000, false), finish(otherCourse, player, 2000, false),
+                finish(course, other, 3000, false)));
+
+        storage.deleteAllTimesForPlayer(player);
+
+        assertTrue(storage.getTopPlayerCourseResults(player, course, 10).isEmpty());
+        assertTrue(storage.getTopPlayerCourseResults(player, otherCourse, 10).isEmpty());
+        assertEquals(0, storage.getPlayerRank(otherCourse, player));
+        assertEquals(1, storage.getRankedPlayerCount(course));
+    }
+
+    @Test
+    public void completionIsRecorded() {
+        String player = uniqueName("p");
+        assertFalse(storage.hasPlayerCompleted(player, course));
+
+        storage.insertTimes(list(finish(course, player, 1000, true)));
+
+        assertTrue(storage.hasPlayerCompleted(player, course));
+        assertFalse(storage.hasPlayerCompleted(uniqueName("p"), course));
+    }
+
+    @Test
+    public void unknownCourseCountsAsCompletedAndVoted() {
+        String missing = uniqueName("missing");
+        String player = uniqueName("p");
+
+        assertTrue(storage.hasPlayerCompleted(player, missing));
+        assertTrue(storage.hasVoted(missing, player));
+    }
+
+    @Test
+    public void eachPlayerVotesOnce() {
+        String first = uniqueName("p");
+        String second = uniqueName("p");
+        String third = uniqueName("p");
+
+        storage.insertVote(course, first, true);
+        storage.insertVote(course, second, false);
+        storage.insertVote(course, third, true);
+        storage.insertVote(course, first, false);
+
+        assertEquals(200.0 / 3, storage.getVotePercent(course), 0.01);
+        assertTrue(storage.hasVoted(course, first));
+        assertFalse(storage.hasVoted(course, uniqueName("p")));
+    }
+
+    @Test
+    public void courseWithoutVotesHasNoPercent() {
+        assertEquals(0, storage.getVotePercent(course), 0);
+    }
+
+    @Test
+    public void playersAreRankedByBestTime() {
+        String third = uniqueName("p");
+        String first = uniqueName("p");
+        String second = uniqueName("p");
+        String fourth = uniqueName("p");
+        storage.insertTimes(list(finish(course, third, 300, true), finish(course, first, 100, true),
+                finish(course, second, 200, true), finish(course, fourth, 400, true), finish(course, fourth, 450, false)));
+
+        assertTrue(storage.isRankingLoaded());
+        assertEquals(4, storage.getRankedPlayerCount(course));
+        assertEquals(1, storage.getPlayerRank(course, first));
+        assertEquals(3, storage.getPlayerRank(course, third));
+        assertEquals(4, storage.getPlayerRank(course, fourth));
+        assertEquals(0, storage.getPlayerRank(course, uniqueName("p")));
+
+        assertEquals(100, storage.getPercentileTime(course, 0).getTime());
+        assertEquals(200, storage.getPercentileTime(course, 50).getTime());
+        assertEquals(400, storage.getPercentileTime(course, 100).getTime());
+        assertNull(storage.getPercentileTime(newCourse(), 50));
+
+        List<TimeObject> page = storage.getLeaderboardPage(course, 2, 3);
+        assertEquals(1, page.size());
+        assertEquals(fourth, page.get(0).getPlayer());
+        assertEquals(400, page.get(0).getTime());
+
+        page = storage.getLeaderboardPage(course, 1, 3);
+        assertEquals(Arrays.asList(first, second, third), Arrays.asList(page.get(0).getPlayer(), page.get(1).getPlayer(), page.get(2).getPlayer()));
+    }
+}
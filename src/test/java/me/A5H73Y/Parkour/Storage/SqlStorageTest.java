@@ -0,0 +1,21 @@
+package me.A5H73Y.Parkour.Storage;
+
+import org.junit.BeforeClass;
+
+public class SqlStorageTest extends ParkourStorageContractTest {
+
+    @BeforeClass
+    public static void openDatabase() throws Exception {
+        SqliteTestDatabase.open();
+    }
+
+    @Override
+    protected ParkourStorage createStorage() {
+        return new SqlStorage() {
+            @Override
+            public void shutdown() {
+                // the database is shared by every test in the run
+            }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package me.A5H73Y.Parkour.Storage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+import me.A5H73Y.Parkour.Parkour;
+import me.A5H73Y.Parkour.Enums.DatabaseType;
+import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+
+import com.huskehhh.mysql.Database;
+
+/**
+ * In-memory SQLite database for the tests, opened once and shared by every test in the run,
+ * as {@link DatabaseMethods} caches course and player ids statically.
+ */
+class SqliteTestDatabase extends Database {
+
+    private static final String URL = "jdbc:sqlite:file:parkour-test?mode=memory&cache=shared";
+
+    // the database only lives while a connection to it is open
+    private static Connection keepAlive;
+    private static String version;
+
+    static synchronized void open() throws SQLException {
+        if (keepAlive != null)
+            return;
+
+        keepAlive = DriverManager.getConnection(URL);
+        try (PreparedStatement ps = keepAlive.prepareStatement("SELECT sqlite_version();");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            version = rs.getString(1);
+        }
+
+        Database database = new SqliteTestDatabase();
+        database.initialisePool(1, 5000, 600000, 0, 20);
+        Parkour.setDatabaseObj(database);
+        DatabaseMethods.type = DatabaseType.SQLite;
+        DatabaseMethods.setupTables();
+
+        // nothing to rank yet, loadRankIndex would need the scheduler
+        DatabaseMethods.getRankIndex().beginRebuild();
+        DatabaseMethods.getRankIndex().completeRebuild(new HashMap<>());
+    }
+
+    /**
+     * @return version of the SQLite driver in use
+     */
+    static String getVersion() {
+        return version;
+    }
+
+    @Override
+    public Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(URL);
+    }
+}
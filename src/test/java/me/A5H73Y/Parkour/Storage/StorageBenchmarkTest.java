@@ -0,0 +1,98 @@
+package me.A5H73Y.Parkour.Storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import me.A5H73Y.Parkour.Utilities.DatabaseMethods;
+import me.A5H73Y.Parkour.Utilities.Utils;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Rough throughput of each engine, writing finishes in the batches the {@link TimeWriter} uses and reading the results back.
+ * Only run when asked for, with -Dparkour.benchmark=true, the figures are logged rather than asserted.
+ */
+public class StorageBenchmarkTest {
+
+    private static final int PLAYERS = 200;
+    private static final int BATCHES = 50;
+    private static final int BATCH_SIZE = 100;
+    private static final int READS = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void openDatabase() throws Exception {
+        assumeTrue(Boolean.getBoolean("parkour.benchmark"));
+        SqliteTestDatabase.open();
+    }
+
+    @Test
+    public void memory() {
+        run("Memory", new MemoryStorage());
+    }
+
+    @Test
+    public void file() throws Exception {
+        run("File", new FileStorage(new File(folder.getRoot(), "parkour.log")));
+    }
+
+    @Test
+    public void sqlite() {
+        run("SQLite", new SqlStorage());
+    }
+
+    @Test
+    public void sqliteWithoutUpsert() {
+        DatabaseMethods.setSQLiteVersion("3.21.0");
+        try {
+            run("SQLite < 3.24", new SqlStorage());
+        } finally {
+            DatabaseMethods.setSQLiteVersion(SqliteTestDatabase.getVersion());
+        }
+    }
+
+    private static void run(String engine, ParkourStorage storage) {
+        String course = ParkourStorageContractTest.uniqueName("bench");
+        String prefix = ParkourStorageContractTest.uniqueName("b") + "-";
+        storage.insertCourse(course, "author");
+
+        long started = System.nanoTime();
+        for (int batch = 0; batch < BATCHES; batch++) {
+            List<FinishRecord> records = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                int finish = batch * BATCH_SIZE + i;
+                records.add(new FinishRecord(course, prefix + (finish % PLAYERS), 10000 - finish, 0, finish % 2 == 0));
+            }
+            storage.insertTimes(records);
+        }
+        long written = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            storage.getPlayerRank(course, prefix + (i % PLAYERS));
+            storage.getTopCourseResults(course, 10);
+        }
+        long read = System.nanoTime() - started;
+
+        assertEquals(PLAYERS, storage.getRankedPlayerCount(course));
+        Utils.log(String.format("[Benchmark] %s: %.0f finishes/s written, %.0f rank and leaderboard reads/s",
+                engine, perSecond(BATCHES * BATCH_SIZE, written), perSecond(READS, read)));
+
+        if (!(storage instanceof SqlStorage))
+            storage.shutdown();
+    }
+
+    private static double perSecond(int operations, long nanos) {
+        return operations * 1.0 / Math.max(1, nanos) * TimeUnit.SECONDS.toNanos(1);
+    }
+}